@@ -2,109 +2,190 @@ package ru.practicum.shareit.base.client;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.base.metrics.LatencyHistograms;
+import ru.practicum.shareit.base.metrics.LatencyMetrics;
 
 /**
  * Базовый клиент - основные методы для работы с REST API
  */
 public class BaseClient {
-    protected final RestTemplate rest;
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "content-length");
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+    protected final String apiPrefix;
+    protected final ServerTransport transport;
+    protected final GatewayResponseCache responseCache;
+    protected final RequestCoalescer coalescer;
+    private final LatencyHistograms downstreamLatency;
+
+    public BaseClient(String apiPrefix, ServerTransportFactory transportFactory, GatewayResponseCache responseCache,
+                      RequestCoalescer coalescer, LatencyMetrics latencyMetrics) {
+        this.apiPrefix = apiPrefix;
+        this.transport = transportFactory.create(apiPrefix);
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+        this.downstreamLatency = latencyMetrics.downstream(apiPrefix);
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<byte[]>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId) {
+    protected Mono<ResponseEntity<byte[]>> get(String path, Long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    /**
+     * Одинаковые одновременные GET-запросы объединяются в одно обращение к server
+     */
+    protected Mono<ResponseEntity<byte[]>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        String route = LatencyMetrics.currentRoute();
+        return coalescer.coalesce(GatewayResponseCache.key(apiPrefix + path, parameters, userId),
+                () -> send(route, HttpMethod.GET, path, defaultHeaders(userId), parameters, null)
+                        .map(BaseClient::prepareGatewayResponse));
+    }
+
+    /**
+     * GET через кэш ответов: свежая запись отдается сразу, устаревшая перепроверяется по ETag
+     */
+    protected Mono<ResponseEntity<byte[]>> getCached(String path, Long userId) {
+        return getCached(path, userId, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected Mono<ResponseEntity<byte[]>> getCached(String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters) {
+        GatewayResponseCache.CacheKey key = GatewayResponseCache.key(apiPrefix + path, parameters, userId);
+        String route = LatencyMetrics.currentRoute();
+        return coalescer.coalesce(key, () -> Mono.defer(() -> {
+            GatewayResponseCache.CachedResponse cached = responseCache.get(key);
+            if (cached != null && responseCache.isFresh(cached)) {
+                return Mono.just(responseCache.hit(cached));
+            }
+            HttpHeaders headers = defaultHeaders(userId);
+            if (cached != null && cached.getEtag() != null) {
+                headers.setIfNoneMatch(cached.getEtag());
+            }
+            return send(route, HttpMethod.GET, path, headers, parameters, null)
+                    .map(response -> {
+                        if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                            return responseCache.revalidated(key, cached);
+                        }
+                        return responseCache.miss(key, prepareGatewayResponse(response));
+                    });
+        }));
+    }
+
+    /**
+     * Удаление из кэша ответов ресурса (полный путь, например /items/1) после успешного изменения
+     */
+    protected Mono<ResponseEntity<byte[]>> evictOnSuccess(Mono<ResponseEntity<byte[]>> response, String resource) {
+        return response.doOnNext(result -> {
+            if (result.getStatusCode().is2xxSuccessful()) {
+                responseCache.evict(resource);
+            }
+        });
+    }
+
+    protected <T> Mono<ResponseEntity<byte[]>> post(String path, T body) {
         return post(path, null, null,
                 body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> post(String path, Long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters,
-                                              T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> post(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                    T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> put(String path, Long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, @Nullable Map<String, Object> parameters,
-                                             T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> put(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                   T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters,
-                                               T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                     T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    /**
+     * PATCH с условием If-Match: server применяет изменение, только если версия сущности совпадает с ETag
+     */
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                     @Nullable T body, @Nullable String ifMatch) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (ifMatch != null) {
+            headers.set(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return send(LatencyMetrics.currentRoute(), HttpMethod.PATCH, path, headers, parameters, body)
+                .map(BaseClient::prepareGatewayResponse);
+    }
+
+    protected Mono<ResponseEntity<byte[]>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId) {
+    protected Mono<ResponseEntity<byte[]>> delete(String path, Long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<byte[]>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
-                                                          @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    private <T> Mono<ResponseEntity<byte[]>> makeAndSendRequest(HttpMethod method, String path, Long userId,
+                                                                @Nullable Map<String, Object> parameters,
+                                                                @Nullable T body) {
+        return send(LatencyMetrics.currentRoute(), method, path, defaultHeaders(userId), parameters, body)
+                .map(BaseClient::prepareGatewayResponse);
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
-        }
-        return prepareGatewayResponse(shareitServerResponse);
+    /**
+     * Обращение к server с записью задержки в gateway.downstream.requests. Маршрут определяется в момент
+     * вызова метода клиента контроллером - пути server совпадают с путями gateway
+     */
+    private <T> Mono<ResponseEntity<byte[]>> send(String route, HttpMethod method, String path, HttpHeaders headers,
+                                                  @Nullable Map<String, Object> parameters, @Nullable T body) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return transport.exchange(method, path, headers, parameters, body)
+                            .doOnNext(response -> downstreamLatency.record(route, method.name(),
+                                    response.getStatusCodeValue(), System.nanoTime() - start))
+                            .doOnError(e -> downstreamLatency.record(route, method.name(),
+                                    LatencyHistograms.NO_RESPONSE, System.nanoTime() - start));
+        });
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -117,12 +198,18 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
+    /**
+     * Ответ server передается клиенту без разбора тела: статус, заголовки (кроме hop-by-hop) и байты тела
+     */
+    private static ResponseEntity<byte[]> prepareGatewayResponse(ResponseEntity<byte[]> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, values);
+            }
+        });
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode()).headers(headers);
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.base.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш GET-ответов server.
+ * Свежая запись отдается без обращения к server, устаревшая - перепроверяется по ETag (If-None-Match).
+ * Ключи записей индексируются по ресурсу, сброс ресурса не перебирает весь кэш
+ */
+@Component
+public class GatewayResponseCache {
+    private static final String METRIC_NAME = "gateway.response.cache";
+
+    private final Cache<CacheKey, CachedResponse> cache;
+    private final ConcurrentMap<String, Set<CacheKey>> keysByResource = new ConcurrentHashMap<>();
+    private final long freshForNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter revalidations;
+
+    public GatewayResponseCache(@Value("${shareit-server.cache.max-size:10000}") long maxSize,
+                                @Value("${shareit-server.cache.fresh-for:2s}") Duration freshFor,
+                                @Value("${shareit-server.cache.expire-after:10m}") Duration expireAfter,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfterWrite(expireAfter)
+                             .<CacheKey, CachedResponse>removalListener((key, value, cause) -> unindex(key))
+                             .build();
+        this.freshForNanos = freshFor.toNanos();
+        this.hits = meterRegistry.counter(METRIC_NAME, "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_NAME, "result", "miss");
+        this.revalidations = meterRegistry.counter(METRIC_NAME, "result", "revalidated");
+        meterRegistry.gauge(METRIC_NAME + ".size", cache, Cache::estimatedSize);
+    }
+
+    public static CacheKey key(String resource, @Nullable Map<String, Object> parameters, @Nullable Long userId) {
+        String query = parameters == null ? "" : new TreeMap<>(parameters).toString();
+        return new CacheKey(resource, query, userId);
+    }
+
+    /**
+     * Запись из кэша, в том числе устаревшая. null, если записи нет
+     */
+    @Nullable
+    public CachedResponse get(CacheKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public boolean isFresh(CachedResponse cached) {
+        return System.nanoTime() - cached.getStoredAt() < freshForNanos;
+    }
+
+    public ResponseEntity<byte[]> hit(CachedResponse cached) {
+        hits.increment();
+        return cached.toResponse();
+    }
+
+    /**
+     * server ответил 304 Not Modified - запись снова считается свежей
+     */
+    public ResponseEntity<byte[]> revalidated(CacheKey key, CachedResponse cached) {
+        revalidations.increment();
+        put(key, cached.renew());
+        return cached.toResponse();
+    }
+
+    /**
+     * Полный ответ server. Сохраняется только 200 OK, прочие ответы удаляют запись
+     */
+    public ResponseEntity<byte[]> miss(CacheKey key, ResponseEntity<byte[]> response) {
+        misses.increment();
+        if (response.getStatusCode() == HttpStatus.OK) {
+            put(key, new CachedResponse(response.getHeaders(), response.getBody(), System.nanoTime()));
+        } else {
+            cache.invalidate(key);
+        }
+        return response;
+    }
+
+    /**
+     * Удаление всех записей ресурса - для всех пользователей и параметров запроса
+     */
+    public void evict(String resource) {
+        Set<CacheKey> keys = keysByResource.remove(resource);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * Ключ индексируется после записи в кэш, поэтому параллельное удаление записи не оставит ее без индекса
+     */
+    private void put(CacheKey key, CachedResponse cached) {
+        cache.put(key, cached);
+        keysByResource.compute(key.getResource(), (resource, keys) -> {
+            Set<CacheKey> indexed = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    /**
+     * Удаление ключа из индекса после вытеснения, истечения или замены записи, если записи с этим ключом
+     * уже нет в кэше
+     */
+    private void unindex(@Nullable CacheKey key) {
+        if (key == null) {
+            return;
+        }
+        keysByResource.computeIfPresent(key.getResource(), (resource, keys) -> {
+            if (!cache.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static final class CacheKey {
+        private final String resource;
+        private final String query;
+        private final Long userId;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class CachedResponse {
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final long storedAt;
+
+        @Nullable
+        public String getEtag() {
+            return headers.getETag();
+        }
+
+        CachedResponse renew() {
+            return new CachedResponse(headers, body, System.nanoTime());
+        }
+
+        ResponseEntity<byte[]> toResponse() {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.base.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных GET-запросов (single-flight): пока запрос к server с тем же путем,
+ * параметрами и пользователем выполняется, новые запросы ждут его ответа вместо отдельного обращения к server
+ */
+@Component
+public class RequestCoalescer {
+    private static final String METRIC_NAME = "gateway.coalescing";
+
+    private final ConcurrentMap<GatewayResponseCache.CacheKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final int maxWaiters;
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter overflow;
+
+    public RequestCoalescer(@Value("${shareit-server.coalescing.max-waiters:1000}") int maxWaiters,
+                            MeterRegistry meterRegistry) {
+        this.maxWaiters = maxWaiters;
+        this.leaders = meterRegistry.counter(METRIC_NAME, "result", "leader");
+        this.joined = meterRegistry.counter(METRIC_NAME, "result", "joined");
+        this.overflow = meterRegistry.counter(METRIC_NAME, "result", "overflow");
+        meterRegistry.gauge(METRIC_NAME + ".ratio", this, RequestCoalescer::coalescingRatio);
+        meterRegistry.gauge(METRIC_NAME + ".in-flight", inFlight, ConcurrentMap::size);
+    }
+
+    /**
+     * Выполнение запроса с объединением по ключу. Если ожидающих уже maxWaiters, запрос уходит в server отдельно
+     */
+    public Mono<ResponseEntity<byte[]>> coalesce(GatewayResponseCache.CacheKey key,
+                                                 Supplier<Mono<ResponseEntity<byte[]>>> request) {
+        return Mono.defer(() -> {
+            Flight created = new Flight();
+            created.response = request.get()
+                                      .doFinally(signal -> inFlight.remove(key, created))
+                                      .cache();
+            Flight flight = inFlight.putIfAbsent(key, created);
+            if (flight == null) {
+                leaders.increment();
+                return created.response;
+            }
+            if (flight.waiters.incrementAndGet() > maxWaiters) {
+                overflow.increment();
+                return request.get();
+            }
+            joined.increment();
+            return flight.response;
+        });
+    }
+
+    /**
+     * Доля запросов, получивших ответ чужого обращения к server
+     */
+    double coalescingRatio() {
+        double total = leaders.count() + joined.count() + overflow.count();
+        return total == 0 ? 0 : joined.count() / total;
+    }
+
+    private static final class Flight {
+        private final AtomicInteger waiters = new AtomicInteger();
+        private Mono<ResponseEntity<byte[]>> response;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.base.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Транспорт с bulkhead и circuit breaker одного клиента. При разомкнутом breaker или исчерпанном
+ * лимите одновременных вызовов запрос отклоняется сразу, без ожидания
+ */
+public class ResilientTransport implements ServerTransport {
+    private final ServerTransport delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientTransport(ServerTransport delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Транспорт клиента с префиксом API apiPrefix: экземпляры breaker и bulkhead берутся по имени без "/"
+     */
+    public static ServerTransport of(String apiPrefix, ServerTransport delegate,
+                                     CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+        String name = apiPrefix.substring(1);
+        return new ResilientTransport(delegate, circuitBreakerRegistry.circuitBreaker(name),
+                bulkheadRegistry.bulkhead(name));
+    }
+
+    /**
+     * Ответ 5xx учитывается breaker как ошибка, но клиенту передается как есть
+     */
+    @Override
+    public <T> Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                    @Nullable Map<String, Object> parameters, @Nullable T body) {
+        return delegate.exchange(method, path, headers, parameters, body)
+                       .flatMap(ResilientTransport::failOnServerError)
+                       .transformDeferred(BulkheadOperator.of(bulkhead))
+                       .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                       .onErrorResume(ServerErrorResponseException.class, e -> Mono.just(e.getResponse()));
+    }
+
+    private static Mono<ResponseEntity<byte[]>> failOnServerError(ResponseEntity<byte[]> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            return Mono.error(new ServerErrorResponseException(response));
+        }
+        return Mono.just(response);
+    }
+
+    /**
+     * Ответ server со статусом 5xx, без стека
+     */
+    private static final class ServerErrorResponseException extends RuntimeException {
+        private final transient ResponseEntity<byte[]> response;
+
+        ServerErrorResponseException(ResponseEntity<byte[]> response) {
+            super("Server responded with " + response.getStatusCode(), null, false, false);
+            this.response = response;
+        }
+
+        ResponseEntity<byte[]> getResponse() {
+            return response;
+        }
+    }
+}
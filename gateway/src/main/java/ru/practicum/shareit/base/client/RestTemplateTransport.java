@@ -0,0 +1,43 @@
+package ru.practicum.shareit.base.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Блокирующий транспорт на RestTemplate. Запрос выполняется в потоке, подписавшемся на результат
+ */
+public class RestTemplateTransport implements ServerTransport {
+    private final RestTemplate rest;
+
+    public RestTemplateTransport(RestTemplate rest) {
+        this.rest = rest;
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                    @Nullable Map<String, Object> parameters, @Nullable T body) {
+        return Mono.fromSupplier(() -> send(method, path, new HttpEntity<>(body, headers), parameters));
+    }
+
+    private <T> ResponseEntity<byte[]> send(HttpMethod method, String path, HttpEntity<T> requestEntity,
+                                            @Nullable Map<String, Object> parameters) {
+        try {
+            if (parameters != null) {
+                return rest.exchange(path, method, requestEntity, byte[].class, parameters);
+            }
+            return rest.exchange(path, method, requestEntity, byte[].class);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                                 .headers(e.getResponseHeaders())
+                                 .body(e.getResponseBodyAsByteArray());
+        }
+    }
+}
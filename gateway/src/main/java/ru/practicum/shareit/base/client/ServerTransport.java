@@ -0,0 +1,28 @@
+package ru.practicum.shareit.base.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Транспорт запросов от gateway к server в рамках одного API-префикса
+ */
+public interface ServerTransport {
+    /**
+     * Отправка запроса на server. Тело ответа не разбирается и возвращается как есть. Ошибочные ответы
+     * server (4xx, 5xx) возвращаются как ResponseEntity, а не как ошибка Mono
+     *
+     * @param method     HTTP-метод
+     * @param path       путь относительно API-префикса, может содержать шаблоны {name}
+     * @param headers    заголовки запроса
+     * @param parameters значения для шаблонов пути
+     * @param body       тело запроса
+     * @return ответ server
+     */
+    <T> Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                             @Nullable Map<String, Object> parameters, @Nullable T body);
+}
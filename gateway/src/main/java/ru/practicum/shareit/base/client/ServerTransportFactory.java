@@ -0,0 +1,10 @@
+package ru.practicum.shareit.base.client;
+
+/**
+ * Фабрика транспортов к server. Реализация выбирается свойством shareit-server.client.mode
+ */
+public interface ServerTransportFactory {
+    String MODE_PROPERTY = "shareit-server.client.mode";
+
+    ServerTransport create(String apiPrefix);
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.base.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Неблокирующий транспорт на WebClient (Reactor Netty)
+ */
+public class WebClientTransport implements ServerTransport {
+    private final WebClient webClient;
+
+    public WebClientTransport(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<byte[]>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                    @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                                                     .uri(path, parameters == null ? Map.of() : parameters)
+                                                     .headers(requestHeaders -> requestHeaders.addAll(headers));
+        if (body != null) {
+            return request.bodyValue(body).exchangeToMono(response -> response.toEntity(byte[].class));
+        }
+        return request.exchangeToMono(response -> response.toEntity(byte[].class));
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.base.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.base.client.ResilientTransport;
+import ru.practicum.shareit.base.client.RestTemplateTransport;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Блокирующий режим (shareit-server.client.mode=blocking, по умолчанию): RestTemplate поверх
+ * общего пула HTTP-соединений для всех клиентов gateway
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+@ConditionalOnProperty(name = ServerTransportFactory.MODE_PROPERTY, havingValue = "blocking", matchIfMissing = true)
+public class HttpClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+
+    @Bean
+    public PoolingHttpClientConnectionManager shareitServerConnectionManager(HttpClientProperties properties) {
+        if (properties.getProtocol() != HttpClientProperties.Protocol.HTTP1) {
+            throw new IllegalStateException("Protocol " + properties.getProtocol()
+                    + " requires " + ServerTransportFactory.MODE_PROPERTY + "=reactive");
+        }
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity((int) properties.getValidateAfterInactivity().toMillis());
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient shareitServerHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                       HttpClientProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                                                   .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                                                   .setConnectionRequestTimeout((int) properties.getLeaseTimeout()
+                                                                                                .toMillis())
+                                                   .setSocketTimeout((int) properties.getSocketTimeout().toMillis())
+                                                   .build();
+        return HttpClients.custom()
+                          .setConnectionManager(connectionManager)
+                          .setDefaultRequestConfig(requestConfig)
+                          .setKeepAliveStrategy(keepAliveStrategy(properties.getKeepAlive().toMillis()))
+                          .evictExpiredConnections()
+                          .evictIdleConnections(properties.getMaxIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                          .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareitServerRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * Метрики занятости пула: httpcomponents.httpclient.pool.* в actuator/metrics
+     */
+    @Bean
+    public MeterBinder shareitServerPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME);
+    }
+
+    @Bean
+    public ServerTransportFactory restTemplateTransportFactory(@Value("${shareit-server.url}") String serverUrl,
+                                                               RestTemplateBuilder builder,
+                                                               ClientHttpRequestFactory shareitServerRequestFactory,
+                                                               CircuitBreakerRegistry circuitBreakerRegistry,
+                                                               BulkheadRegistry bulkheadRegistry) {
+        return apiPrefix -> ResilientTransport.of(apiPrefix, new RestTemplateTransport(
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + apiPrefix))
+                        .requestFactory(() -> shareitServerRequestFactory)
+                        .build()
+        ), circuitBreakerRegistry, bulkheadRegistry);
+    }
+
+    /**
+     * Вызов к server занимает поток Tomcat, поэтому сумма лимитов bulkhead всех клиентов должна быть меньше
+     * server.tomcat.threads.max: иначе медленный server займет все потоки, и запросы, не идущие в server
+     * (health checks), не будут обслужены. Проверяется после создания всех клиентов
+     */
+    @Bean
+    public SmartInitializingSingleton shareitServerBulkheadThreadsCheck(BulkheadRegistry bulkheadRegistry,
+                                                                        ServerProperties serverProperties) {
+        return () -> {
+            int maxThreads = serverProperties.getTomcat().getThreads().getMax();
+            int maxConcurrentCalls = 0;
+            for (Bulkhead bulkhead : bulkheadRegistry.getAllBulkheads()) {
+                maxConcurrentCalls += bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+            }
+            if (maxConcurrentCalls >= maxThreads) {
+                throw new IllegalStateException(String.format("Total max concurrent calls of all clients %d "
+                        + "must be less than server.tomcat.threads.max %d", maxConcurrentCalls, maxThreads));
+            }
+        };
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAliveMillis) {
+        return (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? keepAlive : defaultKeepAliveMillis;
+        };
+    }
+}
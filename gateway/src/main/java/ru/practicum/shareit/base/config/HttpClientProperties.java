@@ -0,0 +1,63 @@
+package ru.practicum.shareit.base.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула HTTP-соединений gateway -> server
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http-client")
+public class HttpClientProperties {
+    /**
+     * Максимальное число соединений в пуле
+     */
+    private int maxTotal = 200;
+    /**
+     * Максимальное число соединений на один маршрут (host:port)
+     */
+    private int maxPerRoute = 100;
+    /**
+     * Таймаут установки соединения
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /**
+     * Таймаут ожидания свободного соединения из пула
+     */
+    private Duration leaseTimeout = Duration.ofSeconds(1);
+    /**
+     * Таймаут чтения ответа
+     */
+    private Duration socketTimeout = Duration.ofSeconds(30);
+    /**
+     * Время удержания соединения, если сервер не прислал Keep-Alive
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+    /**
+     * Простаивающие дольше этого времени соединения закрываются фоновым потоком
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(60);
+    /**
+     * Проверка соединения перед выдачей, если оно простаивало дольше этого времени
+     */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    /**
+     * Протокол соединений с server. h2c поддерживается только в режиме reactive
+     */
+    private Protocol protocol = Protocol.HTTP1;
+
+    public enum Protocol {
+        /**
+         * HTTP/1.1: один запрос на соединение в каждый момент времени
+         */
+        HTTP1,
+        /**
+         * HTTP/2 без TLS (prior knowledge): много запросов мультиплексируются в одном соединении
+         */
+        H2C
+    }
+}
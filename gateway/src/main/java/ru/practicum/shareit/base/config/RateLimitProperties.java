@@ -0,0 +1,48 @@
+package ru.practicum.shareit.base.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки ограничения частоты запросов пользователя (X-Sharer-User-Id) по группам эндпоинтов
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-gateway.rate-limit")
+public class RateLimitProperties {
+    /**
+     * Максимальное число пользователей, для которых хранится состояние, в каждой группе
+     */
+    private long maxUsers = 1_000_000;
+    /**
+     * Состояние пользователя без запросов дольше этого времени удаляется
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    /**
+     * Группы эндпоинтов по имени, у каждой группы свой бюджет
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Group {
+        /**
+         * Шаблоны путей группы, например /items/search
+         */
+        private List<String> paths = List.of();
+        /**
+         * Размер всплеска - сколько запросов подряд допускается без ожидания
+         */
+        private int capacity = 20;
+        /**
+         * Скорость пополнения, запросов в секунду
+         */
+        private double refillPerSecond = 10;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.base.config;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Реестры circuit breaker и bulkhead для клиентов gateway. Имя экземпляра - префикс API клиента без "/"
+ */
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry shareitServerCircuitBreakerRegistry(ResilienceProperties properties) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+        return CircuitBreakerRegistry.of(config);
+    }
+
+    @Bean
+    public BulkheadRegistry shareitServerBulkheadRegistry(ResilienceProperties properties) {
+        return BulkheadRegistry.of(BulkheadConfig.custom()
+                                                 .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                                                 .maxWaitDuration(Duration.ZERO)
+                                                 .build());
+    }
+
+    /**
+     * Метрики resilience4j.circuitbreaker.* и resilience4j.bulkhead.* в actuator/metrics
+     */
+    @Bean
+    public MeterBinder shareitServerCircuitBreakerMetrics(CircuitBreakerRegistry registry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry);
+    }
+
+    @Bean
+    public MeterBinder shareitServerBulkheadMetrics(BulkheadRegistry registry) {
+        return TaggedBulkheadMetrics.ofBulkheadRegistry(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.base.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки circuit breaker и bulkhead для обращений к server, общие для всех клиентов gateway.
+ * Состояние и счетчики у каждого клиента (items, bookings, users, requests) свои
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.resilience")
+public class ResilienceProperties {
+    /**
+     * Доля неуспешных вызовов (ошибки соединения и ответы 5xx) в процентах, при которой breaker размыкается
+     */
+    private float failureRateThreshold = 50;
+    /**
+     * Вызов дольше этого времени считается медленным
+     */
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+    /**
+     * Доля медленных вызовов в процентах, при которой breaker размыкается
+     */
+    private float slowCallRateThreshold = 80;
+    /**
+     * Число последних вызовов, по которым считаются доли
+     */
+    private int slidingWindowSize = 50;
+    /**
+     * Минимальное число вызовов в окне до первой оценки долей
+     */
+    private int minimumNumberOfCalls = 20;
+    /**
+     * Время в разомкнутом состоянии до перехода в полуоткрытое
+     */
+    private Duration waitInOpenState = Duration.ofSeconds(10);
+    /**
+     * Число пробных вызовов в полуоткрытом состоянии
+     */
+    private int permittedCallsInHalfOpenState = 5;
+    /**
+     * Максимальное число одновременных вызовов одного клиента, сверх него запрос сразу отклоняется.
+     * В блокирующем режиме сумма по всем клиентам должна быть меньше server.tomcat.threads.max
+     */
+    private int maxConcurrentCalls = 40;
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.base.config;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.base.client.ResilientTransport;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+import ru.practicum.shareit.base.client.WebClientTransport;
+
+/**
+ * Неблокирующий режим (shareit-server.client.mode=reactive): WebClient на Reactor Netty.
+ * Поток Tomcat освобождается на время ожидания ответа server. С shareit-server.http-client.protocol=h2c
+ * запросы мультиплексируются по HTTP/2 в нескольких соединениях
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+@ConditionalOnProperty(name = ServerTransportFactory.MODE_PROPERTY, havingValue = "reactive")
+public class WebClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareitServerConnectionProvider(HttpClientProperties properties) {
+        return ConnectionProvider.builder(POOL_NAME)
+                                 .maxConnections(properties.getMaxTotal())
+                                 .pendingAcquireTimeout(properties.getLeaseTimeout())
+                                 .maxIdleTime(properties.getMaxIdleTime())
+                                 .evictInBackground(properties.getMaxIdleTime())
+                                 .metrics(true)
+                                 .build();
+    }
+
+    @Bean
+    public HttpClient shareitServerReactorHttpClient(ConnectionProvider shareitServerConnectionProvider,
+                                                     HttpClientProperties properties) {
+        HttpProtocol protocol = properties.getProtocol() == HttpClientProperties.Protocol.H2C
+                ? HttpProtocol.H2C
+                : HttpProtocol.HTTP11;
+        return HttpClient.create(shareitServerConnectionProvider)
+                         .protocol(protocol)
+                         .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                                 (int) properties.getConnectTimeout().toMillis())
+                         .responseTimeout(properties.getSocketTimeout());
+    }
+
+    @Bean
+    public ServerTransportFactory webClientTransportFactory(@Value("${shareit-server.url}") String serverUrl,
+                                                            WebClient.Builder builder,
+                                                            HttpClient shareitServerReactorHttpClient,
+                                                            CircuitBreakerRegistry circuitBreakerRegistry,
+                                                            BulkheadRegistry bulkheadRegistry) {
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(shareitServerReactorHttpClient);
+        return apiPrefix -> ResilientTransport.of(apiPrefix, new WebClientTransport(
+                builder.clone()
+                       .baseUrl(serverUrl + apiPrefix)
+                       .clientConnector(connector)
+                       .build()
+        ), circuitBreakerRegistry, bulkheadRegistry);
+    }
+}
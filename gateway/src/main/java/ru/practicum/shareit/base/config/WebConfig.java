@@ -1,8 +1,12 @@
 package ru.practicum.shareit.base.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.base.ratelimit.RateLimitInterceptor;
+import ru.practicum.shareit.base.ratelimit.TokenBucketRateLimiter;
 import ru.practicum.shareit.booking.converter.StringToApprovedStateConverter;
 import ru.practicum.shareit.booking.converter.StringToBookingRequestStateConverter;
 
@@ -10,10 +14,31 @@ import ru.practicum.shareit.booking.converter.StringToBookingRequestStateConvert
  * Дополнительная конфигурация Spring MVC
  */
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class WebConfig implements WebMvcConfigurer {
+    private final RateLimitProperties rateLimitProperties;
+
+    public WebConfig(RateLimitProperties rateLimitProperties) {
+        this.rateLimitProperties = rateLimitProperties;
+    }
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         registry.addConverter(new StringToApprovedStateConverter());
         registry.addConverter(new StringToBookingRequestStateConverter());
     }
+
+    /**
+     * Ограничение частоты запросов: для каждой группы эндпоинтов свой бюджет
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        rateLimitProperties.getGroups().forEach((name, group) -> {
+            TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(group.getCapacity(),
+                    group.getRefillPerSecond(), rateLimitProperties.getMaxUsers(),
+                    rateLimitProperties.getIdleTimeout());
+            registry.addInterceptor(new RateLimitInterceptor(name, limiter))
+                    .addPathPatterns(group.getPaths());
+        });
+    }
 }
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.base.handler;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,6 +11,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.practicum.shareit.exception.IllegalRequestStateException;
+import ru.practicum.shareit.exception.RateLimitExceededException;
+import ru.practicum.shareit.batch.BatchController;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.request.ItemRequestController;
@@ -23,7 +28,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @RestControllerAdvice(assignableTypes = {UserController.class, ItemRequestController.class,
-        ItemController.class, BookingController.class})
+        ItemController.class, BookingController.class, BatchController.class})
 public class ErrorHandler {
 
     /**
@@ -77,6 +82,45 @@ public class ErrorHandler {
         return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.BAD_REQUEST.value()), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Обработчик исключения при некорректных параметрах запроса
+     *
+     * @return описание ошибки. код 400
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> illegalRequestStateHandler(final IllegalRequestStateException ex) {
+        String errorMessage = String.format("Illegal request: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.BAD_REQUEST.value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Обработчик отказа в вызове server: breaker клиента разомкнут или превышен лимит одновременных вызовов
+     *
+     * @return описание ошибки. код 503
+     */
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    public ResponseEntity<ErrorResponse> serviceUnavailableHandler(final RuntimeException ex) {
+        String errorMessage = String.format("Service unavailable: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.SERVICE_UNAVAILABLE.value()),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Обработчик превышения частоты запросов пользователя
+     *
+     * @return описание ошибки и заголовок Retry-After. код 429
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> rateLimitHandler(final RateLimitExceededException ex) {
+        log.error(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                             .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                             .body(new ErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS.value()));
+    }
+
     /**
      * Обработчик остальных исключений
      *
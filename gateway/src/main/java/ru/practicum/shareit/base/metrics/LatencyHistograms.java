@@ -0,0 +1,89 @@
+package ru.practicum.shareit.base.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Набор гистограмм задержек одной метрики с тегами route, method и status.
+ * Таймеры создаются один раз и хранятся в таблице: маршрут -> массив по (метод, статус), поэтому запись
+ * задержки - поиск по строке шаблона маршрута, индекс в массиве и запись в гистограмму с фиксированными
+ * корзинами (HdrHistogram) без выделения памяти
+ */
+public class LatencyHistograms {
+    public static final String UNKNOWN_ROUTE = "UNKNOWN";
+    /**
+     * Статус для вызовов, завершившихся исключением без HTTP-ответа
+     */
+    public static final int NO_RESPONSE = 0;
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS", "OTHER"};
+    private static final int STATUSES = 600;
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final Tags commonTags;
+    private final ConcurrentMap<String, Timer[]> routes = new ConcurrentHashMap<>();
+
+    public LatencyHistograms(MeterRegistry registry, String name, Tags commonTags) {
+        this.registry = registry;
+        this.name = name;
+        this.commonTags = commonTags;
+    }
+
+    public void record(String route, String method, int status, long nanos) {
+        Timer[] timers = routes.get(route);
+        if (timers == null) {
+            timers = routes.computeIfAbsent(route, key -> new Timer[METHODS.length * STATUSES]);
+        }
+        int methodIndex = methodIndex(method);
+        int statusIndex = status >= 0 && status < STATUSES ? status : NO_RESPONSE;
+        int index = methodIndex * STATUSES + statusIndex;
+        Timer timer = timers[index];
+        if (timer == null) {
+            // Гонка безопасна: реестр возвращает один и тот же таймер для одинаковых тегов
+            timer = register(route, METHODS[methodIndex], statusIndex);
+            timers[index] = timer;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(String route, String method, int status) {
+        return Timer.builder(name)
+                    .tags(commonTags)
+                    .tag("route", route)
+                    .tag("method", method)
+                    .tag("status", status == NO_RESPONSE ? "NONE" : String.valueOf(status))
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+    }
+
+    private static int methodIndex(String method) {
+        switch (method) {
+            case "GET":
+                return 0;
+            case "POST":
+                return 1;
+            case "PUT":
+                return 2;
+            case "PATCH":
+                return 3;
+            case "DELETE":
+                return 4;
+            case "HEAD":
+                return 5;
+            case "OPTIONS":
+                return 6;
+            default:
+                return 7;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.base.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Гистограммы задержек gateway: gateway.requests - запросы к контроллерам,
+ * gateway.downstream.requests - обращения клиентов к server (тег client - префикс API клиента)
+ */
+@Component
+public class LatencyMetrics {
+    public static final String ROUTE_METRIC = "gateway.requests";
+    public static final String DOWNSTREAM_METRIC = "gateway.downstream.requests";
+
+    private final MeterRegistry registry;
+    private final LatencyHistograms routes;
+
+    public LatencyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.routes = new LatencyHistograms(registry, ROUTE_METRIC, Tags.empty());
+    }
+
+    public LatencyHistograms routes() {
+        return routes;
+    }
+
+    public LatencyHistograms downstream(String apiPrefix) {
+        return new LatencyHistograms(registry, DOWNSTREAM_METRIC, Tags.of("client", apiPrefix));
+    }
+
+    /**
+     * Шаблон маршрута контроллера текущего запроса, например /items/{itemId}
+     */
+    public static String currentRoute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return LatencyHistograms.UNKNOWN_ROUTE;
+        }
+        Object route = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return route == null ? LatencyHistograms.UNKNOWN_ROUTE : route.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.base.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Задержка запроса к контроллеру gateway от входа в фильтр до завершения ответа, в том числе
+ * асинхронного (контроллеры возвращают Mono)
+ */
+@Component
+public class RouteLatencyFilter extends OncePerRequestFilter {
+    private final LatencyHistograms routes;
+
+    public RouteLatencyFilter(LatencyMetrics latencyMetrics) {
+        this.routes = latencyMetrics.routes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(start));
+            } else {
+                record(request, response, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        routes.record(route == null ? LatencyHistograms.UNKNOWN_ROUTE : route.toString(), request.getMethod(),
+                response.getStatus(), System.nanoTime() - start);
+    }
+
+    /**
+     * Обработчик завершения асинхронного запроса, время начала хранится в поле без упаковки в Long
+     */
+    private final class CompletionListener implements AsyncListener {
+        private final long start;
+
+        private CompletionListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record((HttpServletRequest) event.getAsyncContext().getRequest(),
+                    (HttpServletResponse) event.getAsyncContext().getResponse(), start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
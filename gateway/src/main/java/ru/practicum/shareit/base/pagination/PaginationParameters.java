@@ -0,0 +1,40 @@
+package ru.practicum.shareit.base.pagination;
+
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Параметры пагинации для запросов к server: смещение from и размер size или курсор keyset-пагинации.
+ * Курсор непрозрачен для gateway и передается в server как есть
+ */
+public final class PaginationParameters {
+    private PaginationParameters() {
+    }
+
+    public static Map<String, Object> of(int from, int size, @Nullable String cursor) {
+        return of(Map.of(), from, size, cursor);
+    }
+
+    public static Map<String, Object> of(Map<String, Object> parameters, int from, int size, @Nullable String cursor) {
+        Map<String, Object> result = new LinkedHashMap<>(parameters);
+        result.put("from", from);
+        result.put("size", size);
+        if (cursor != null && !cursor.isBlank()) {
+            result.put("cursor", cursor);
+        }
+        return result;
+    }
+
+    /**
+     * Строка запроса с шаблонами URI для всех параметров, например ?from={from}&size={size}
+     */
+    public static String query(Map<String, Object> parameters) {
+        return parameters.keySet()
+                         .stream()
+                         .map(name -> name + "={" + name + "}")
+                         .collect(Collectors.joining("&", "?", ""));
+    }
+}
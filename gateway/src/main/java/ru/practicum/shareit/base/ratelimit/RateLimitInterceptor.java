@@ -0,0 +1,55 @@
+package ru.practicum.shareit.base.ratelimit;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.shareit.exception.RateLimitExceededException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов одной группы эндпоинтов по X-Sharer-User-Id.
+ * Запросы без заголовка не ограничиваются - их отклоняет контроллер
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final String group;
+    private final TokenBucketRateLimiter limiter;
+
+    public RateLimitInterceptor(String group, TokenBucketRateLimiter limiter) {
+        this.group = group;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        Long userId = parseUserId(request.getHeader(USER_ID_HEADER));
+        if (userId == null) {
+            return true;
+        }
+        long waitNanos = limiter.tryAcquire(userId);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+            throw new RateLimitExceededException(String.format("Rate limit exceeded for user %d in group %s",
+                    userId, group), retryAfterSeconds);
+        }
+        return true;
+    }
+
+    private static Long parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
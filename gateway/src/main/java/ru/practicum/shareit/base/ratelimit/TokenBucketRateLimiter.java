@@ -0,0 +1,48 @@
+package ru.practicum.shareit.base.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket для каждого пользователя в форме GCRA: состояние - одно число (теоретическое время
+ * следующего запроса), изменяется через CAS без блокировок. Простаивающие пользователи вытесняются
+ */
+public class TokenBucketRateLimiter {
+    private final Cache<Long, AtomicLong> buckets;
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond, long maxUsers, Duration idleTimeout) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+                               .maximumSize(maxUsers)
+                               .expireAfterAccess(idleTimeout)
+                               .build();
+    }
+
+    /**
+     * Попытка взять токен
+     *
+     * @return 0, если запрос разрешен, иначе время в наносекундах до появления токена
+     */
+    public long tryAcquire(long userId) {
+        AtomicLong theoreticalArrival = buckets.get(userId, id -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current == Long.MIN_VALUE ? now : current, now) + emissionIntervalNanos;
+            long allowedAt = next - burstNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
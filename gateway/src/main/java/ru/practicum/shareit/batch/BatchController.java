@@ -0,0 +1,59 @@
+package ru.practicum.shareit.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.batch.dto.BatchRequestDto;
+import ru.practicum.shareit.batch.dto.BatchSubResponseDto;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Контроллер пакетных запросов: несколько запросов к gateway за одно обращение клиента
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/batch")
+public class BatchController {
+    private final BatchDispatcher dispatcher;
+    private final int concurrency;
+
+    public BatchController(BatchDispatcher dispatcher,
+                           @Value("${shareit-gateway.batch.concurrency:8}") int concurrency) {
+        this.dispatcher = dispatcher;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Выполнение пакета запросов. Каждый запрос проверяется так же, как отдельный, и выполняется в той же
+     * модели, что и отдельный запрос: в реактивном режиме до concurrency запросов к server одновременно,
+     * в блокирующем - по очереди в потоке Tomcat пакетного запроса, поэтому пакет не выходит за число потоков,
+     * учтенное в проверке bulkhead
+     *
+     * @param batch список запросов
+     * @return ответы со статусом для каждого запроса в порядке запросов
+     */
+    @PostMapping
+    public Mono<List<BatchSubResponseDto>> execute(@Valid @RequestBody BatchRequestDto batch,
+                                                   HttpServletRequest request,
+                                                   HttpServletResponse response) {
+        log.info("Batch request with {} sub-requests", batch.getRequests().size());
+        List<Mono<BatchSubResponseDto>> responses = batch.getRequests()
+                                                         .stream()
+                                                         .map(subRequest -> dispatcher.dispatch(request, response,
+                                                                 subRequest))
+                                                         .collect(Collectors.toList());
+        return Flux.fromIterable(responses)
+                   .flatMapSequential(subResponse -> subResponse, concurrency)
+                   .collectList();
+    }
+}
@@ -0,0 +1,284 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.base.handler.ErrorResponse;
+import ru.practicum.shareit.batch.dto.BatchSubRequestDto;
+import ru.practicum.shareit.batch.dto.BatchSubResponseDto;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выполнение запроса из пакета тем же путем, что и отдельного запроса: поиск метода контроллера по
+ * RequestMappingHandlerMapping, перехватчики (ограничение частоты), разбор и валидация аргументов Spring MVC,
+ * вызов контроллера и обработка исключений тем же HandlerExceptionResolver (ErrorHandler)
+ */
+@Slf4j
+@Component
+public class BatchDispatcher {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final HandlerMethodArgumentResolverComposite argumentResolvers;
+    private final WebDataBinderFactory binderFactory;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final ObjectMapper objectMapper;
+
+    public BatchDispatcher(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                           RequestMappingHandlerAdapter handlerAdapter,
+                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                           ObjectMapper objectMapper) {
+        this.handlerMapping = handlerMapping;
+        this.argumentResolvers = new HandlerMethodArgumentResolverComposite()
+                .addResolvers(handlerAdapter.getArgumentResolvers());
+        this.binderFactory = new ServletRequestDataBinderFactory(null, handlerAdapter.getWebBindingInitializer());
+        this.exceptionResolver = exceptionResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Проверка и вызов контроллера выполняются сразу, в потоке пакетного запроса.
+     * Возвращаемый Mono обращается к server только при подписке
+     */
+    public Mono<BatchSubResponseDto> dispatch(HttpServletRequest batchRequest, HttpServletResponse batchResponse,
+                                              BatchSubRequestDto subRequest) {
+        String id = subRequest.getId();
+        SubResponseServletWrapper response = new SubResponseServletWrapper(batchResponse);
+        try {
+            HttpServletRequest request = toServletRequest(batchRequest, subRequest);
+            if (handlerMapping.usesPathPatterns()) {
+                ServletRequestPathUtils.parseAndCache(request);
+            }
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            if (chain == null || !(chain.getHandler() instanceof HandlerMethod)
+                    || ((HandlerMethod) chain.getHandler()).getBeanType() == BatchController.class) {
+                return Mono.just(error(id, HttpStatus.NOT_FOUND, String.format("No handler for %s %s",
+                        subRequest.getMethod(), subRequest.getPath())));
+            }
+            HandlerMethod handlerMethod = (HandlerMethod) chain.getHandler();
+            List<HandlerInterceptor> interceptors = chain.getInterceptorList();
+            try {
+                if (!applyPreHandle(interceptors, request, response, handlerMethod)) {
+                    return Mono.just(toResponse(id, response));
+                }
+            } catch (Exception ex) {
+                return Mono.just(handleException(id, request, response, handlerMethod, ex));
+            }
+            Mono<ResponseEntity<byte[]>> result;
+            try {
+                result = invoke(handlerMethod, request, response);
+            } catch (Exception ex) {
+                result = Mono.error(ex);
+            }
+            return result.map(entity -> toResponse(id, entity))
+                         .doOnSuccess(subResponse -> triggerAfterCompletion(interceptors, interceptors.size(),
+                                 request, response, handlerMethod, null))
+                         .doOnCancel(() -> triggerAfterCompletion(interceptors, interceptors.size(), request,
+                                 response, handlerMethod, null))
+                         .onErrorResume(ex -> {
+                             triggerAfterCompletion(interceptors, interceptors.size(), request, response,
+                                     handlerMethod, ex);
+                             return Mono.just(handleException(id, request, response, handlerMethod, ex));
+                         });
+        } catch (HttpRequestMethodNotSupportedException ex) {
+            return Mono.just(error(id, HttpStatus.METHOD_NOT_ALLOWED, ex.getMessage()));
+        } catch (HttpMediaTypeNotSupportedException ex) {
+            return Mono.just(error(id, HttpStatus.UNSUPPORTED_MEDIA_TYPE, ex.getMessage()));
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            return Mono.just(error(id, HttpStatus.NOT_ACCEPTABLE, ex.getMessage()));
+        } catch (Exception ex) {
+            log.error("Batch sub-request {} failed before reaching a handler", id, ex);
+            return Mono.just(error(id, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage()));
+        }
+    }
+
+    /**
+     * preHandle перехватчиков по порядку, как в HandlerExecutionChain.applyPreHandle (метод не публичный).
+     * Если перехватчик отклонил запрос или бросил исключение, afterCompletion вызывается для уже пропустивших
+     * запрос, статус и заголовки ответа остаются теми, что записал перехватчик
+     *
+     * @return пропустили ли запрос все перехватчики
+     */
+    private static boolean applyPreHandle(List<HandlerInterceptor> interceptors, HttpServletRequest request,
+                                          HttpServletResponse response, HandlerMethod handlerMethod)
+            throws Exception {
+        for (int i = 0; i < interceptors.size(); i++) {
+            boolean passed;
+            try {
+                passed = interceptors.get(i).preHandle(request, response, handlerMethod);
+            } catch (Exception ex) {
+                triggerAfterCompletion(interceptors, i, request, response, handlerMethod, ex);
+                throw ex;
+            }
+            if (!passed) {
+                triggerAfterCompletion(interceptors, i, request, response, handlerMethod, null);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * afterCompletion первых count перехватчиков в обратном порядке, как в
+     * HandlerExecutionChain.triggerAfterCompletion: исключение одного перехватчика не мешает остальным
+     */
+    private static void triggerAfterCompletion(List<HandlerInterceptor> interceptors, int count,
+                                               HttpServletRequest request, HttpServletResponse response,
+                                               HandlerMethod handlerMethod, @Nullable Throwable ex) {
+        Exception cause = ex instanceof Exception || ex == null ? (Exception) ex : new RuntimeException(ex);
+        for (int i = count - 1; i >= 0; i--) {
+            try {
+                interceptors.get(i).afterCompletion(request, response, handlerMethod, cause);
+            } catch (Exception e) {
+                log.error("HandlerInterceptor.afterCompletion threw exception", e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<ResponseEntity<byte[]>> invoke(HandlerMethod handlerMethod, HttpServletRequest request,
+                                                HttpServletResponse response) throws Exception {
+        InvocableHandlerMethod invocable = new InvocableHandlerMethod(handlerMethod);
+        invocable.setHandlerMethodArgumentResolvers(argumentResolvers);
+        invocable.setDataBinderFactory(binderFactory);
+        invocable.setParameterNameDiscoverer(new DefaultParameterNameDiscoverer());
+        RequestAttributes batchAttributes = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            Object result = invocable.invokeForRequest(new ServletWebRequest(request, response),
+                    new ModelAndViewContainer());
+            return (Mono<ResponseEntity<byte[]>>) result;
+        } finally {
+            RequestContextHolder.setRequestAttributes(batchAttributes);
+        }
+    }
+
+    private HttpServletRequest toServletRequest(HttpServletRequest batchRequest, BatchSubRequestDto subRequest)
+            throws JsonProcessingException {
+        UriComponents uri = UriComponentsBuilder.fromUriString(subRequest.getPath()).build();
+        Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+        if (subRequest.getHeaders() != null) {
+            headers.putAll(subRequest.getHeaders());
+        }
+        String userId = batchRequest.getHeader(USER_ID_HEADER);
+        if (userId != null) {
+            headers.putIfAbsent(USER_ID_HEADER, userId);
+        }
+        byte[] body = subRequest.getBody() == null || subRequest.getBody().isNull()
+                ? new byte[0]
+                : objectMapper.writeValueAsBytes(subRequest.getBody());
+        return new SubRequestServletWrapper(batchRequest, subRequest.getMethod().name(), uri, headers, body);
+    }
+
+    private BatchSubResponseDto toResponse(String id, ResponseEntity<byte[]> entity) {
+        return new BatchSubResponseDto(id, entity.getStatusCodeValue(), entity.getHeaders().toSingleValueMap(),
+                toJson(entity.getHeaders().getContentType(), entity.getBody()));
+    }
+
+    /**
+     * Тело ответа в JSON-формате встраивается как JSON, прочее и тело, которое не удалось разобрать, - строкой.
+     * Пустое тело - null
+     */
+    @Nullable
+    private JsonNode toJson(@Nullable MediaType contentType, @Nullable byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        if (contentType == null || MediaType.APPLICATION_JSON.includes(contentType)
+                || "json".equals(contentType.getSubtypeSuffix())) {
+            try {
+                JsonNode json = objectMapper.readTree(body);
+                if (json != null && !json.isMissingNode()) {
+                    return json;
+                }
+            } catch (IOException e) {
+                log.debug("Batch sub-response body is not valid JSON, embedded as a string", e);
+            }
+        }
+        Charset charset = contentType == null || contentType.getCharset() == null
+                ? StandardCharsets.UTF_8
+                : contentType.getCharset();
+        return TextNode.valueOf(new String(body, charset));
+    }
+
+    private BatchSubResponseDto toResponse(String id, SubResponseServletWrapper response) {
+        return toResponse(id, ResponseEntity.status(response.getStatusCode())
+                                            .headers(response.getResponseHeaders())
+                                            .body(response.getBody()));
+    }
+
+    /**
+     * Исключение обрабатывается тем же HandlerExceptionResolver, что и для отдельного запроса: метод ErrorHandler
+     * выбирается по исключению и его причинам, аргументы разбираются стандартными резолверами, ответ
+     * записывается в ответ запроса из пакета. Ответ без тела (sendError) дополняется ErrorResponse
+     */
+    private BatchSubResponseDto handleException(String id, HttpServletRequest request,
+                                                SubResponseServletWrapper response, HandlerMethod handlerMethod,
+                                                Throwable ex) {
+        if (!(ex instanceof Exception)) {
+            log.error("Batch sub-request {} failed", id, ex);
+            return error(id, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+        }
+        response.reset();
+        ModelAndView resolved;
+        try {
+            resolved = exceptionResolver.resolveException(request, response, handlerMethod, (Exception) ex);
+        } catch (RuntimeException e) {
+            log.error("Batch error handling failed", e);
+            resolved = null;
+        }
+        if (resolved == null) {
+            return error(id, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+        }
+        HttpStatus status = HttpStatus.resolve(response.getStatusCode());
+        if (status != null && status.isError() && response.getBody().length == 0) {
+            return error(id, status, ex.getMessage());
+        }
+        return toResponse(id, response);
+    }
+
+    private BatchSubResponseDto error(String id, HttpStatus status, String message) {
+        return new BatchSubResponseDto(id, status.value(), Map.of(),
+                objectMapper.valueToTree(new ErrorResponse(message, status.value())));
+    }
+}
@@ -0,0 +1,230 @@
+package ru.practicum.shareit.batch;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Запрос из пакета в виде HttpServletRequest: метод, путь, параметры (значения декодируются), заголовки
+ * и тело свои, атрибуты не разделяются с пакетным запросом и другими запросами пакета
+ */
+class SubRequestServletWrapper extends HttpServletRequestWrapper {
+    private final String method;
+    private final String requestUri;
+    private final String queryString;
+    private final Map<String, String[]> parameters;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    SubRequestServletWrapper(HttpServletRequest request, String method, UriComponents uri,
+                             Map<String, String> headers, byte[] body) {
+        super(request);
+        this.method = method;
+        this.requestUri = request.getContextPath() + uri.getPath();
+        this.queryString = uri.getQuery();
+        this.parameters = toParameterMap(uri.getQueryParams());
+        this.headers = new LinkedCaseInsensitiveMap<>();
+        this.headers.putAll(headers);
+        this.body = body;
+        if (body.length > 0) {
+            this.headers.putIfAbsent(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+    }
+
+    private static Map<String, String[]> toParameterMap(MultiValueMap<String, String> queryParams) {
+        Map<String, String[]> result = new LinkedHashMap<>();
+        queryParams.forEach((name, values) -> result.put(name, values.stream()
+                                                                    .map(SubRequestServletWrapper::decode)
+                                                                    .toArray(String[]::new)));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String decode(String value) {
+        return value == null ? "" : UriUtils.decode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort())
+           .append(requestUri);
+        return url;
+    }
+
+    @Override
+    public String getServletPath() {
+        return requestUri.substring(getContextPath().length());
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        String value = headers.get(name);
+        return Collections.enumeration(value == null ? List.of() : List.of(value));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        return -1;
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = headers.get(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getContentType() {
+        return headers.get(HttpHeaders.CONTENT_TYPE);
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream stream = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return stream.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            /**
+             * Тело уже в памяти, поэтому все данные доступны сразу: слушатель вызывается в том же потоке
+             */
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                try {
+                    if (!isFinished()) {
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                } catch (IOException e) {
+                    readListener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() {
+                return stream.read();
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.batch.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO пакетного запроса
+ */
+@Getter
+@Setter
+public class BatchRequestDto {
+    @NotEmpty
+    @Size(max = 20)
+    private List<@Valid BatchSubRequestDto> requests;
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.batch.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.HttpMethod;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.util.Map;
+
+/**
+ * DTO одного запроса в пакете: метод, путь со строкой запроса, заголовки и тело, как у обычного запроса к gateway.
+ * Без заголовка X-Sharer-User-Id используется заголовок пакетного запроса
+ */
+@Getter
+@Setter
+public class BatchSubRequestDto {
+    private String id;
+    @NotNull
+    private HttpMethod method;
+    @NotBlank
+    @Pattern(regexp = "/.*", message = "must start with /")
+    private String path;
+    private Map<String, String> headers = Map.of();
+    private JsonNode body;
+}
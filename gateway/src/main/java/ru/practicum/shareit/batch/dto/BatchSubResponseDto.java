@@ -0,0 +1,19 @@
+package ru.practicum.shareit.batch.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * DTO ответа на один запрос из пакета. Тело - JSON ответа, тело в другом формате - строка
+ */
+@Getter
+@AllArgsConstructor
+public class BatchSubResponseDto {
+    private String id;
+    private int status;
+    private Map<String, String> headers;
+    private JsonNode body;
+}
@@ -1,68 +1,119 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.ApprovedState;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestState;
+import ru.practicum.shareit.booking.dto.BookingStatusBulkDto;
 import ru.practicum.shareit.base.client.BaseClient;
+import ru.practicum.shareit.base.client.GatewayResponseCache;
+import ru.practicum.shareit.base.client.RequestCoalescer;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+import ru.practicum.shareit.base.metrics.LatencyMetrics;
+import ru.practicum.shareit.base.pagination.PaginationParameters;
+import ru.practicum.shareit.item.ItemClient;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
  * Клиент для работы с эндпоинтами бронирований
  */
+@Slf4j
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(ServerTransportFactory transportFactory, GatewayResponseCache responseCache,
+                         RequestCoalescer coalescer, LatencyMetrics latencyMetrics, ObjectMapper objectMapper) {
+        super(API_PREFIX, transportFactory, responseCache, coalescer, latencyMetrics);
+        this.objectMapper = objectMapper;
     }
 
-    public ResponseEntity<Object> findByBookerIdAndStatus(Long userId, BookingRequestState state, Integer from,
-                                                          Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public Mono<ResponseEntity<byte[]>> findByBookerIdAndStatus(Long userId, BookingRequestState state, Integer from,
+                                                                Integer size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(Map.of("state", state.name()), from, size,
+                cursor);
+        return get(PaginationParameters.query(parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> add(Long userId, BookingReceivingDto requestDto) {
-        return post("", userId, requestDto);
+    public Mono<ResponseEntity<byte[]>> add(Long userId, BookingReceivingDto requestDto) {
+        return evictOnSuccess(post("", userId, requestDto), ItemClient.availabilityResource(requestDto.getItemId()));
     }
 
-    public ResponseEntity<Object> findById(Long userId, Long bookingId) {
+    public Mono<ResponseEntity<byte[]>> findById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> findByOwnerIdAndStatus(Long userId, BookingRequestState state, Integer from,
-                                                         Integer size) {
+    public Mono<ResponseEntity<byte[]>> findByOwnerIdAndStatus(Long userId, BookingRequestState state, Integer from,
+                                                               Integer size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(Map.of("state", state.name()), from, size,
+                cursor);
+        return get("/owner" + PaginationParameters.query(parameters), userId, parameters);
+    }
+
+    public Mono<ResponseEntity<byte[]>> handleStatus(Long userId, Long bookingId, ApprovedState approvedState,
+                                                     String ifMatch) {
         Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
+                "approved", approvedState.name()
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null, ifMatch)
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        evictItemAvailability(response.getBody());
+                    }
+                });
     }
 
-    public ResponseEntity<Object> handleStatus(Long userId, Long bookingId, ApprovedState approvedState) {
+    public Mono<ResponseEntity<byte[]>> handleStatuses(Long userId, BookingStatusBulkDto bulkDto,
+                                                       ApprovedState approvedState) {
         Map<String, Object> parameters = Map.of(
                 "approved", approvedState.name()
         );
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters);
+        return patch("?approved={approved}", userId, parameters, bulkDto)
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        evictUpdatedItemsAvailability(response.getBody());
+                    }
+                });
+    }
+
+    /**
+     * Сброс кэша свободных периодов вещи из ответа server с бронированием
+     */
+    private void evictItemAvailability(byte[] body) {
+        try {
+            JsonNode itemId = objectMapper.readTree(body).path("item").path("id");
+            if (itemId.canConvertToLong()) {
+                responseCache.evict(ItemClient.availabilityResource(itemId.asLong()));
+            }
+        } catch (IOException e) {
+            log.warn("Can't read item id from booking response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Сброс кэша свободных периодов вещей, бронирования которых изменены пакетной сменой статуса
+     */
+    private void evictUpdatedItemsAvailability(byte[] body) {
+        try {
+            for (JsonNode result : objectMapper.readTree(body)) {
+                JsonNode itemId = result.path("itemId");
+                if ("UPDATED".equals(result.path("outcome").asText()) && itemId.canConvertToLong()) {
+                    responseCache.evict(ItemClient.availabilityResource(itemId.asLong()));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Can't read item ids from bulk booking response: {}", e.getMessage());
+        }
     }
 }
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,10 +13,12 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.base.groups.OnCreate;
 import ru.practicum.shareit.booking.dto.ApprovedState;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingRequestState;
+import ru.practicum.shareit.booking.dto.BookingStatusBulkDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -43,8 +46,8 @@ public class BookingController {
 	 */
 	@PostMapping
 	@Validated(value = OnCreate.class)
-	public ResponseEntity<Object> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-							  @Valid @RequestBody BookingReceivingDto bookingDto) {
+	public Mono<ResponseEntity<byte[]>> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+											@Valid @RequestBody BookingReceivingDto bookingDto) {
 		log.info("Request to add new booking: {} from user: {}", bookingDto, userId);
 		return bookingClient.add(userId, bookingDto);
 	}
@@ -55,14 +58,33 @@ public class BookingController {
 	 * @param userId    id пользователя
 	 * @param bookingId id бронирования
 	 * @param approved  подтверждение или отказ (true, false)
+	 * @param ifMatch   ETag бронирования, передается в server
 	 * @return DTO обновленной сущности
 	 */
 	@PatchMapping("/{bookingId}")
-	public ResponseEntity<Object> handleStatus(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-										  @PathVariable Long bookingId,
-										  @RequestParam ApprovedState approved) {
+	public Mono<ResponseEntity<byte[]>> handleStatus(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+													 @PathVariable Long bookingId,
+													 @RequestParam ApprovedState approved,
+													 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+													 String ifMatch) {
 		log.info("Request to handle booking with id={}", bookingId);
-		return bookingClient.handleStatus(userId, bookingId, approved);
+		return bookingClient.handleStatus(userId, bookingId, approved, ifMatch);
+	}
+
+	/**
+	 * Пакетное подтверждение/отказ бронирований
+	 *
+	 * @param userId   id владельца вещей
+	 * @param approved подтверждение или отказ (true, false)
+	 * @param bulkDto  id бронирований, не больше 100
+	 * @return результат для каждого id
+	 */
+	@PatchMapping
+	public Mono<ResponseEntity<byte[]>> handleStatuses(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+													   @RequestParam ApprovedState approved,
+													   @Valid @RequestBody BookingStatusBulkDto bulkDto) {
+		log.info("Request to handle {} bookings from user: {}", bulkDto.getBookingIds().size(), userId);
+		return bookingClient.handleStatuses(userId, bulkDto, approved);
 	}
 
 	/**
@@ -73,8 +95,8 @@ public class BookingController {
 	 * @return DTO полученной сущности
 	 */
 	@GetMapping("/{bookingId}")
-	public ResponseEntity<Object> findById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-									  @PathVariable Long bookingId) {
+	public Mono<ResponseEntity<byte[]>> findById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+												 @PathVariable Long bookingId) {
 		log.info("Request to get booking with id={}", bookingId);
 		return bookingClient.findById(userId, bookingId);
 	}
@@ -86,16 +108,18 @@ public class BookingController {
 	 * @param state  параметр запроса (ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED)
 	 * @param from начальный индекс для пагинации
 	 * @param size размер страницы для пагинации
+	 * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
 	 * @return список DTO найденных сущностей
 	 */
 	@GetMapping
-	public ResponseEntity<Object> findAllCurrentUserBookingsByState(
+	public Mono<ResponseEntity<byte[]>> findAllCurrentUserBookingsByState(
 			@RequestHeader(name = "X-Sharer-User-Id") Long userId,
 			@RequestParam(required = false, defaultValue = "ALL") BookingRequestState state,
 			@PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-			@Positive @RequestParam(defaultValue = "10") Integer size) {
+			@Positive @RequestParam(defaultValue = "10") Integer size,
+			@RequestParam(required = false) String cursor) {
 		log.info("Request to get bookings with booker_id={}", userId);
-		return bookingClient.findByBookerIdAndStatus(userId, state, from, size);
+		return bookingClient.findByBookerIdAndStatus(userId, state, from, size, cursor);
 	}
 
 	/**
@@ -105,15 +129,17 @@ public class BookingController {
 	 * @param state  параметр запроса (ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED)
 	 * @param from начальный индекс для пагинации
 	 * @param size размер страницы для пагинации
+	 * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
 	 * @return список DTO найденных сущностей
 	 */
 	@GetMapping("/owner")
-	public ResponseEntity<Object> findAllOwnerBookingsByState(
+	public Mono<ResponseEntity<byte[]>> findAllOwnerBookingsByState(
 			@RequestHeader(name = "X-Sharer-User-Id") Long userId,
 			@RequestParam(required = false, defaultValue = "ALL") BookingRequestState state,
 			@PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-			@Positive @RequestParam(defaultValue = "10") Integer size) {
+			@Positive @RequestParam(defaultValue = "10") Integer size,
+			@RequestParam(required = false) String cursor) {
 		log.info("Request to get bookings with owner_id={}", userId);
-		return bookingClient.findByOwnerIdAndStatus(userId, state, from, size);
+		return bookingClient.findByOwnerIdAndStatus(userId, state, from, size, cursor);
 	}
 }
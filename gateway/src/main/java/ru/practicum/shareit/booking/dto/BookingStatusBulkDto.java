@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * DTO пакетного подтверждения/отказа бронирований
+ */
+@Getter
+@Setter
+public class BookingStatusBulkDto {
+    @NotEmpty
+    @Size(max = 100)
+    private List<@NotNull @Positive Long> bookingIds;
+}
@@ -1,16 +1,19 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.base.client.BaseClient;
+import ru.practicum.shareit.base.client.GatewayResponseCache;
+import ru.practicum.shareit.base.client.RequestCoalescer;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+import ru.practicum.shareit.base.metrics.LatencyMetrics;
+import ru.practicum.shareit.base.pagination.PaginationParameters;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -19,47 +22,61 @@ import java.util.Map;
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private static final String AVAILABILITY_PATH = "/availability?from={from}&to={to}";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(ServerTransportFactory transportFactory, GatewayResponseCache responseCache,
+                      RequestCoalescer coalescer, LatencyMetrics latencyMetrics) {
+        super(API_PREFIX, transportFactory, responseCache, coalescer, latencyMetrics);
     }
 
-    public ResponseEntity<Object> getById(long userId, long itemId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<byte[]>> getById(long userId, long itemId) {
+        return getCached("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getByOwnerId(long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "from", from,
-                "size", size
-        );
-        return get("/", userId, parameters);
+    public Mono<ResponseEntity<byte[]>> getByOwnerId(long userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(from, size, cursor);
+        return get("/" + PaginationParameters.query(parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> add(long userId, ItemDto dto) {
+    public Mono<ResponseEntity<byte[]>> add(long userId, ItemDto dto) {
+        if (dto.getRequestId() != null) {
+            return evictOnSuccess(post("/", userId, dto), "/requests/" + dto.getRequestId());
+        }
         return post("/", userId, dto);
     }
 
-    public ResponseEntity<Object> update(long userId, long itemId, ItemDto dto) {
-        return patch("/" + itemId, userId, dto);
+    public Mono<ResponseEntity<byte[]>> update(long userId, long itemId, ItemDto dto, String ifMatch) {
+        return evictOnSuccess(patch("/" + itemId, userId, null, dto, ifMatch), API_PREFIX + "/" + itemId);
+    }
+
+    public Mono<ResponseEntity<byte[]>> searchBy(long userId, String text, int from, int size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(Map.of("text", text), from, size, cursor);
+        return get("/search" + PaginationParameters.query(parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> searchBy(long userId, String text, int from, int size) {
+    public Mono<ResponseEntity<byte[]>> getAvailability(long userId, long itemId, LocalDateTime from,
+                                                        LocalDateTime to) {
         Map<String, Object> parameters = Map.of(
-                "text", text,
                 "from", from,
-                "size", size
+                "to", to
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return getCached("/" + itemId + AVAILABILITY_PATH, userId, parameters);
+    }
+
+    /**
+     * Ресурс кэша свободных периодов вещи - для сброса при изменении бронирований
+     */
+    public static String availabilityResource(long itemId) {
+        return API_PREFIX + "/" + itemId + AVAILABILITY_PATH;
+    }
+
+    public Mono<ResponseEntity<byte[]>> getComments(long userId, long itemId, int from, int size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(from, size, cursor);
+        return get("/" + itemId + "/comments" + PaginationParameters.query(parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto dto) {
-        return post("/" + itemId + "/comment", userId, dto);
+    public Mono<ResponseEntity<byte[]>> addComment(long userId, long itemId, CommentDto dto) {
+        return evictOnSuccess(post("/" + itemId + "/comment", userId, dto), API_PREFIX + "/" + itemId);
     }
 }
@@ -1,11 +1,13 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import ru.practicum.shareit.base.groups.OnCreate;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -16,10 +18,13 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.exception.IllegalRequestStateException;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 /**
  * Контроллер вещей
@@ -45,8 +50,8 @@ public class ItemController {
      */
     @PostMapping
     @Validated(value = OnCreate.class)
-    public ResponseEntity<Object> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                      @Valid @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<byte[]>> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                            @Valid @RequestBody ItemDto itemDto) {
         log.info("Request to add new item with ownerId={} and item: {}", userId, itemDto);
         return itemClient.add(userId, itemDto);
     }
@@ -57,14 +62,17 @@ public class ItemController {
      * @param userId  id пользователя
      * @param itemId  id вещи
      * @param itemDto DTO вещи
+     * @param ifMatch ETag вещи, передается в server
      * @return DTO обновленной вещи
      */
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                         @PathVariable Long itemId,
-                                         @Valid @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<byte[]>> update(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                               @PathVariable Long itemId,
+                                               @Valid @RequestBody ItemDto itemDto,
+                                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch) {
         log.info("Request to update item with ownerId={} and itemId={}", userId, itemId);
-        return itemClient.update(userId, itemId, itemDto);
+        return itemClient.update(userId, itemId, itemDto, ifMatch);
     }
 
     /**
@@ -74,8 +82,8 @@ public class ItemController {
      * @return DTO вещи
      */
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                          @PathVariable Long itemId) {
+    public Mono<ResponseEntity<byte[]>> getById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                @PathVariable Long itemId) {
         log.info("Request to get item with itemId={}", itemId);
         return itemClient.getById(userId, itemId);
     }
@@ -86,14 +94,16 @@ public class ItemController {
      * @param ownerId id пользователя
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return Список DTO вещей
      */
     @GetMapping
-    public ResponseEntity<Object> getAllByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                                     @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                     @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<byte[]>> getAllByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+                                                        @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor) {
         log.info("Request to get all items by ownerId={}", ownerId);
-        return itemClient.getByOwnerId(ownerId, from, size);
+        return itemClient.getByOwnerId(ownerId, from, size, cursor);
     }
 
     /**
@@ -102,15 +112,57 @@ public class ItemController {
      * @param text строка поиска
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return Список DTO вещей
      */
     @GetMapping("/search")
-    public ResponseEntity<Object> searchBy(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                           @RequestParam String text,
-                                  @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                  @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<byte[]>> searchBy(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                 @RequestParam String text,
+                                                 @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                 @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                 @RequestParam(required = false) String cursor) {
         log.info("Request to get all available items by text={}", text);
-        return itemClient.searchBy(userId, text, from, size);
+        return itemClient.searchBy(userId, text, from, size, cursor);
+    }
+
+    /**
+     * Свободные периоды вещи в окне [from, to)
+     *
+     * @param itemId id вещи
+     * @param from   начало окна
+     * @param to     конец окна
+     * @return DTO свободных периодов
+     */
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<byte[]>> getAvailability(
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Request to get availability of item with id={} from {} to {}", itemId, from, to);
+        if (!from.isBefore(to)) {
+            throw new IllegalRequestStateException(String.format("Window start %s must be before end %s", from, to));
+        }
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
+    /**
+     * Комментарии вещи, новые первыми
+     *
+     * @param itemId id вещи
+     * @param from начальный индекс для пагинации
+     * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
+     * @return Список DTO комментариев
+     */
+    @GetMapping("/{itemId}/comments")
+    public Mono<ResponseEntity<byte[]>> getComments(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                    @PathVariable Long itemId,
+                                                    @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                    @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                    @RequestParam(required = false) String cursor) {
+        log.info("Request to get comments of item with id={}", itemId);
+        return itemClient.getComments(userId, itemId, from, size, cursor);
     }
 
     /**
@@ -122,9 +174,9 @@ public class ItemController {
      * @return
      */
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                 @PathVariable Long itemId,
-                                 @Valid @RequestBody CommentDto commentDto) {
+    public Mono<ResponseEntity<byte[]>> addComment(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                   @PathVariable Long itemId,
+                                                   @Valid @RequestBody CommentDto commentDto) {
         log.info("Request to add comment to item with id = {} from user with id = {}", itemId, userId);
         return itemClient.addComment(userId, itemId, commentDto);
     }
@@ -1,13 +1,15 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.base.client.BaseClient;
+import ru.practicum.shareit.base.client.GatewayResponseCache;
+import ru.practicum.shareit.base.client.RequestCoalescer;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+import ru.practicum.shareit.base.metrics.LatencyMetrics;
+import ru.practicum.shareit.base.pagination.PaginationParameters;
 
 import java.util.Map;
 
@@ -19,32 +21,25 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemRequestClient(ServerTransportFactory transportFactory, GatewayResponseCache responseCache,
+                             RequestCoalescer coalescer, LatencyMetrics latencyMetrics) {
+        super(API_PREFIX, transportFactory, responseCache, coalescer, latencyMetrics);
     }
 
-    public ResponseEntity<Object> findByUserId(Long userId) {
+    public Mono<ResponseEntity<byte[]>> findByUserId(Long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> findPageSortedByDate(Long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "from", from,
-                "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+    public Mono<ResponseEntity<byte[]>> findPageSortedByDate(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = PaginationParameters.of(from, size, cursor);
+        return get("/all" + PaginationParameters.query(parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> findById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<byte[]>> findById(Long userId, Long requestId) {
+        return getCached("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> add(Long userId, ItemRequestDto dto) {
+    public Mono<ResponseEntity<byte[]>> add(Long userId, ItemRequestDto dto) {
         return post("/", userId, dto);
     }
 
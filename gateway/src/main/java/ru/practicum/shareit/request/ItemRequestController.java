@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -38,7 +39,7 @@ public class ItemRequestController {
      * @return список запросов
      */
     @GetMapping
-    public ResponseEntity<Object> getAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public Mono<ResponseEntity<byte[]>> getAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("Request to get all by userId={}", userId);
         return itemRequestClient.findByUserId(userId);
     }
@@ -48,14 +49,17 @@ public class ItemRequestController {
      * @param userId id пользователя, запросы которого исключаются из поиска
      * @param from начальный индекс
      * @param size размер страницы
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return список найденных запросов на вещи
      */
     @GetMapping("/all")
-    public ResponseEntity<Object> getPageSortedByDate(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                    @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                    @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public Mono<ResponseEntity<byte[]>> getPageSortedByDate(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+            @Positive @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         log.info("Request to get {} requests from index={}", size, from);
-        return itemRequestClient.findPageSortedByDate(userId, from, size);
+        return itemRequestClient.findPageSortedByDate(userId, from, size, cursor);
     }
 
     /**
@@ -65,8 +69,8 @@ public class ItemRequestController {
      * @return Dto запроса
      */
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                  @PathVariable Long requestId) {
+    public Mono<ResponseEntity<byte[]>> getById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @PathVariable Long requestId) {
         log.info("Request to get item request by id={}", requestId);
         return itemRequestClient.findById(userId, requestId);
     }
@@ -78,8 +82,8 @@ public class ItemRequestController {
      * @return Dto созданного запроса
      */
     @PostMapping
-    public ResponseEntity<Object> add(@RequestHeader("X-Sharer-User-Id") Long userId,
-                              @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<byte[]>> add(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                            @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Request to add item request from userId={}", userId);
         return itemRequestClient.add(userId, itemRequestDto);
     }
@@ -1,13 +1,14 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.base.client.BaseClient;
+import ru.practicum.shareit.base.client.GatewayResponseCache;
+import ru.practicum.shareit.base.client.RequestCoalescer;
+import ru.practicum.shareit.base.client.ServerTransportFactory;
+import ru.practicum.shareit.base.metrics.LatencyMetrics;
 
 /**
  * Клиент для работы с эндпоинтами пользователей
@@ -17,32 +18,28 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(ServerTransportFactory transportFactory, GatewayResponseCache responseCache,
+                      RequestCoalescer coalescer, LatencyMetrics latencyMetrics) {
+        super(API_PREFIX, transportFactory, responseCache, coalescer, latencyMetrics);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<byte[]>> getUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> getById(long userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<byte[]>> getById(long userId) {
+        return getCached("/" + userId, null);
     }
 
-    public ResponseEntity<Object> add(UserDto dto) {
+    public Mono<ResponseEntity<byte[]>> add(UserDto dto) {
         return post("/", dto);
     }
 
-    public ResponseEntity<Object> update(long userId, UserDto dto) {
-        return patch("/" + userId, dto);
+    public Mono<ResponseEntity<byte[]>> update(long userId, UserDto dto) {
+        return evictOnSuccess(patch("/" + userId, dto), API_PREFIX + "/" + userId);
     }
 
-    public ResponseEntity<Object> delete(long userId) {
-        return delete("/" + userId);
+    public Mono<ResponseEntity<byte[]>> delete(long userId) {
+        return evictOnSuccess(delete("/" + userId), API_PREFIX + "/" + userId);
     }
 }
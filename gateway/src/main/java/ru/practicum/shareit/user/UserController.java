@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.base.groups.OnCreate;
 
 import javax.validation.Valid;
@@ -32,32 +33,32 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getById(@PathVariable Long userId) {
+    public Mono<ResponseEntity<byte[]>> getById(@PathVariable Long userId) {
         log.info("Request to get user with id={}", userId);
         return userClient.getById(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<byte[]>> getAll() {
         log.info("Request to get all users");
         return userClient.getUsers();
     }
 
     @PostMapping
     @Validated(value = OnCreate.class)
-    public ResponseEntity<Object> add(@RequestBody @Valid UserDto user) {
+    public Mono<ResponseEntity<byte[]>> add(@RequestBody @Valid UserDto user) {
         log.info("Request to add new user: {}", user);
         return userClient.add(user);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@PathVariable Long userId, @RequestBody @Valid UserDto user) {
+    public Mono<ResponseEntity<byte[]>> update(@PathVariable Long userId, @RequestBody @Valid UserDto user) {
         log.info("Request to update user: {}", user);
         return userClient.update(userId, user);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> delete(@PathVariable Long userId) {
+    public Mono<ResponseEntity<byte[]>> delete(@PathVariable Long userId) {
         log.info("Request to delete user with id={}", userId);
         return userClient.delete(userId);
     }
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.base.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Юнит тесты для GatewayResponseCache
+ */
+class GatewayResponseCacheTest {
+    SimpleMeterRegistry meterRegistry;
+    GatewayResponseCache cache;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new GatewayResponseCache(100, Duration.ofHours(1), Duration.ofHours(1), meterRegistry);
+    }
+
+    /**
+     * Ключ учитывает ресурс, параметры запроса независимо от порядка и пользователя
+     */
+    @Test
+    void shouldBuildKeyFromResourceParametersAndUser() {
+        assertThat(GatewayResponseCache.key("/items", Map.of("from", 0, "size", 10), 1L),
+                equalTo(GatewayResponseCache.key("/items", Map.of("size", 10, "from", 0), 1L)));
+        assertThat(GatewayResponseCache.key("/items", null, 1L)
+                                       .equals(GatewayResponseCache.key("/items", null, 2L)), equalTo(false));
+        assertThat(GatewayResponseCache.key("/items", Map.of("from", 0), 1L)
+                                       .equals(GatewayResponseCache.key("/items", Map.of("from", 10), 1L)),
+                equalTo(false));
+    }
+
+    /**
+     * Сохраняется только ответ 200 OK, другой ответ удаляет прежнюю запись
+     */
+    @Test
+    void shouldStoreOnlyOkResponses() {
+        GatewayResponseCache.CacheKey key = GatewayResponseCache.key("/items/1", null, 1L);
+
+        ResponseEntity<byte[]> response = cache.miss(key, ok("\"v1\"", "item"));
+
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), equalTo("item"));
+        GatewayResponseCache.CachedResponse cached = cache.get(key);
+        assertThat(cached, notNullValue());
+        assertThat(cached.getEtag(), equalTo("\"v1\""));
+        assertThat(new String(cache.hit(cached).getBody(), StandardCharsets.UTF_8), equalTo("item"));
+
+        cache.miss(key, ResponseEntity.status(HttpStatus.NOT_FOUND).body(new byte[0]));
+
+        assertThat(cache.get(key), nullValue());
+        assertThat(meterRegistry.counter("gateway.response.cache", "result", "miss").count(), equalTo(2.0));
+        assertThat(meterRegistry.counter("gateway.response.cache", "result", "hit").count(), equalTo(1.0));
+    }
+
+    /**
+     * Запись свежа в течение fresh-for, затем отдается только после перепроверки
+     */
+    @Test
+    void shouldExpireFreshness() {
+        GatewayResponseCache stale = new GatewayResponseCache(100, Duration.ZERO, Duration.ofHours(1),
+                new SimpleMeterRegistry());
+        GatewayResponseCache.CacheKey key = GatewayResponseCache.key("/items/1", null, 1L);
+        stale.miss(key, ok("\"v1\"", "item"));
+        cache.miss(key, ok("\"v1\"", "item"));
+
+        assertThat(stale.isFresh(stale.get(key)), equalTo(false));
+        assertThat(cache.isFresh(cache.get(key)), equalTo(true));
+    }
+
+    /**
+     * Запись удаляется по истечении expire-after
+     */
+    @Test
+    void shouldEvictExpiredEntries() throws InterruptedException {
+        GatewayResponseCache expiring = new GatewayResponseCache(100, Duration.ZERO, Duration.ofMillis(10),
+                new SimpleMeterRegistry());
+        GatewayResponseCache.CacheKey key = GatewayResponseCache.key("/items/1", null, 1L);
+        expiring.miss(key, ok("\"v1\"", "item"));
+
+        Thread.sleep(50);
+
+        assertThat(expiring.get(key), nullValue());
+    }
+
+    /**
+     * Ответ 304 обновляет время записи и отдает сохраненное тело
+     */
+    @Test
+    void shouldRenewEntryOnRevalidation() {
+        GatewayResponseCache.CacheKey key = GatewayResponseCache.key("/items/1", null, 1L);
+        cache.miss(key, ok("\"v1\"", "item"));
+        GatewayResponseCache.CachedResponse cached = cache.get(key);
+
+        ResponseEntity<byte[]> response = cache.revalidated(key, cached);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), equalTo("item"));
+        assertThat(response.getHeaders().getETag(), equalTo("\"v1\""));
+        assertThat(cache.get(key).getStoredAt(), greaterThanOrEqualTo(cached.getStoredAt()));
+        assertThat(meterRegistry.counter("gateway.response.cache", "result", "revalidated").count(),
+                equalTo(1.0));
+    }
+
+    /**
+     * Сброс ресурса удаляет записи всех пользователей и параметров, не затрагивая другие ресурсы,
+     * в том числе записи, сохраненные после предыдущего сброса
+     */
+    @Test
+    void shouldEvictAllVariantsOfResource() {
+        GatewayResponseCache.CacheKey first = GatewayResponseCache.key("/items", Map.of("from", 0), 1L);
+        GatewayResponseCache.CacheKey second = GatewayResponseCache.key("/items", Map.of("from", 10), 2L);
+        GatewayResponseCache.CacheKey other = GatewayResponseCache.key("/items/1", null, 1L);
+        cache.miss(first, ok("\"v1\"", "first"));
+        cache.miss(second, ok("\"v1\"", "second"));
+        cache.miss(other, ok("\"v1\"", "other"));
+
+        cache.evict("/items");
+
+        assertThat(cache.get(first), nullValue());
+        assertThat(cache.get(second), nullValue());
+        assertThat(cache.get(other), notNullValue());
+
+        cache.miss(first, ok("\"v2\"", "first"));
+        cache.evict("/items");
+
+        assertThat(cache.get(first), nullValue());
+        assertThat(cache.get(other), notNullValue());
+    }
+
+    private static ResponseEntity<byte[]> ok(String etag, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        return ResponseEntity.ok().headers(headers).body(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.base.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Юнит тесты для RequestCoalescer
+ */
+class RequestCoalescerTest {
+    final GatewayResponseCache.CacheKey key = GatewayResponseCache.key("/items/1", null, 1L);
+    final ResponseEntity<byte[]> item = ResponseEntity.ok("item".getBytes(StandardCharsets.UTF_8));
+
+    SimpleMeterRegistry meterRegistry;
+    AtomicInteger calls;
+    Sinks.One<ResponseEntity<byte[]>> server;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        calls = new AtomicInteger();
+        server = Sinks.one();
+    }
+
+    /**
+     * Одновременные запросы с одним ключом получают ответ одного обращения к server
+     */
+    @Test
+    void shouldFanOutSingleResponse() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(10, meterRegistry);
+
+        List<CompletableFuture<ResponseEntity<byte[]>>> responses = coalesce(coalescer, 5);
+        server.tryEmitValue(item);
+
+        for (CompletableFuture<ResponseEntity<byte[]>> response : responses) {
+            assertThat(response.get(), sameInstance(item));
+        }
+        assertThat(calls.get(), equalTo(1));
+        assertThat(coalescer.coalescingRatio(), closeTo(0.8, 1e-9));
+    }
+
+    /**
+     * Запросы сверх maxWaiters уходят в server отдельно
+     */
+    @Test
+    void shouldSendOverflowSeparately() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(1, meterRegistry);
+
+        List<CompletableFuture<ResponseEntity<byte[]>>> responses = coalesce(coalescer, 3);
+        server.tryEmitValue(item);
+
+        for (CompletableFuture<ResponseEntity<byte[]>> response : responses) {
+            assertThat(response.get(), sameInstance(item));
+        }
+        assertThat(calls.get(), equalTo(2));
+        assertThat(meterRegistry.counter("gateway.coalescing", "result", "overflow").count(), equalTo(1.0));
+    }
+
+    /**
+     * Ошибка обращения к server передается всем ожидающим, следующий запрос снова идет в server
+     */
+    @Test
+    void shouldPropagateErrorToAllWaiters() {
+        RequestCoalescer coalescer = new RequestCoalescer(10, meterRegistry);
+
+        List<CompletableFuture<ResponseEntity<byte[]>>> responses = coalesce(coalescer, 3);
+        server.tryEmitError(new IllegalStateException("server is unavailable"));
+
+        for (CompletableFuture<ResponseEntity<byte[]>> response : responses) {
+            ExecutionException exception = assertThrows(ExecutionException.class, response::get);
+            assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+        }
+        assertThat(calls.get(), equalTo(1));
+
+        server = Sinks.one();
+        CompletableFuture<ResponseEntity<byte[]>> retry = coalescer.coalesce(key, request()).toFuture();
+        server.tryEmitValue(item);
+
+        assertThat(retry.join(), sameInstance(item));
+        assertThat(calls.get(), equalTo(2));
+    }
+
+    /**
+     * Запросы с разными ключами не объединяются
+     */
+    @Test
+    void shouldNotCoalesceDifferentKeys() {
+        RequestCoalescer coalescer = new RequestCoalescer(10, meterRegistry);
+
+        CompletableFuture<ResponseEntity<byte[]>> first = coalescer.coalesce(key, request()).toFuture();
+        CompletableFuture<ResponseEntity<byte[]>> second = coalescer
+                .coalesce(GatewayResponseCache.key("/items/1", null, 2L), request())
+                .toFuture();
+        server.tryEmitValue(item);
+
+        assertThat(first.join(), sameInstance(item));
+        assertThat(second.join(), sameInstance(item));
+        assertThat(calls.get(), equalTo(2));
+    }
+
+    private List<CompletableFuture<ResponseEntity<byte[]>>> coalesce(RequestCoalescer coalescer, int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> coalescer.coalesce(key, request()).toFuture())
+                        .collect(Collectors.toList());
+    }
+
+    private Supplier<Mono<ResponseEntity<byte[]>>> request() {
+        Sinks.One<ResponseEntity<byte[]>> response = server;
+        return () -> response.asMono().doOnSubscribe(subscription -> calls.incrementAndGet());
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.base.client;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Http2;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Сравнение транспортов HTTP/1.1 и h2c при высокой конкурентности: пропускная способность, задержки
+ * и число открытых соединений. server заменен встроенным Tomcat с тем же коннектором, что у server
+ * (Http2Protocol с настройками Http2Config), и сервлетом с фиксированной задержкой ответа.
+ * Не входит в обычный прогон тестов, запуск: mvn -pl gateway test -Dtest=TransportBenchmark
+ */
+@Tag("benchmark")
+class TransportBenchmark {
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 1_000;
+    private static final int MAX_CONNECTIONS = 200;
+    private static final long MAX_CONCURRENT_STREAMS = 1_000;
+    private static final Duration SERVER_LATENCY = Duration.ofMillis(5);
+    private static final byte[] ITEM = "{\"id\":1,\"name\":\"Дрель\",\"available\":true}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final AtomicInteger connections = new AtomicInteger();
+    private static WebServer server;
+
+    @BeforeAll
+    static void startServer() {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        Http2 http2 = new Http2();
+        http2.setEnabled(true);
+        factory.setHttp2(http2);
+        factory.addConnectorCustomizers(connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol) {
+                    ((Http2Protocol) protocol).setMaxConcurrentStreams(MAX_CONCURRENT_STREAMS);
+                    ((Http2Protocol) protocol).setMaxConcurrentStreamExecution((int) MAX_CONCURRENT_STREAMS);
+                }
+            }
+        });
+        server = factory.getWebServer(context -> context.addServlet("items", new ItemServlet())
+                                                        .addMapping("/items/*"));
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void compareTransports() {
+        run(HttpProtocol.HTTP11, 2_000);
+        run(HttpProtocol.H2C, 2_000);
+
+        Result http1 = run(HttpProtocol.HTTP11, REQUESTS);
+        Result h2c = run(HttpProtocol.H2C, REQUESTS);
+
+        System.out.printf("%-8s %10s %10s %10s %10s %12s%n", "protocol", "req/s", "p50, ms", "p99, ms",
+                "p999, ms", "connections");
+        http1.print("http1");
+        h2c.print("h2c");
+    }
+
+    private Result run(HttpProtocol protocol, int requests) {
+        ConnectionProvider provider = ConnectionProvider.builder("benchmark-" + protocol)
+                                                        .maxConnections(MAX_CONNECTIONS)
+                                                        .pendingAcquireMaxCount(-1)
+                                                        .build();
+        HttpClient httpClient = HttpClient.create(provider)
+                                          .protocol(protocol)
+                                          .doOnConnected(connection -> connections.incrementAndGet());
+        ServerTransport transport = new WebClientTransport(WebClient.builder()
+                                                                    .baseUrl("http://localhost:" + server.getPort())
+                                                                    .clientConnector(
+                                                                            new ReactorClientHttpConnector(httpClient))
+                                                                    .build());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "1");
+        long[] latencies = new long[requests];
+        AtomicInteger ok = new AtomicInteger();
+        int connectionsBefore = connections.get();
+
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+            .flatMap(i -> {
+                long sent = System.nanoTime();
+                return transport.exchange(HttpMethod.GET, "/items/{id}", headers, Map.of("id", i % 100), null)
+                                .doOnNext(response -> {
+                                    latencies[i] = System.nanoTime() - sent;
+                                    if (response.getStatusCode() == HttpStatus.OK) {
+                                        ok.incrementAndGet();
+                                    }
+                                });
+            }, CONCURRENCY)
+            .blockLast();
+        long elapsed = System.nanoTime() - start;
+        provider.disposeLater().block();
+
+        assertThat(ok.get(), equalTo(requests));
+        Arrays.sort(latencies);
+        return new Result(requests * 1e9 / elapsed, latencies, connections.get() - connectionsBefore);
+    }
+
+    /**
+     * Ответ на GET /items/{id} после задержки, поток Tomcat занят на время ответа, как у server
+     */
+    private static final class ItemServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                Thread.sleep(SERVER_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.getOutputStream().write(ITEM);
+        }
+    }
+
+    private static final class Result {
+        private final double throughput;
+        private final long[] latencies;
+        private final int connections;
+
+        Result(double throughput, long[] latencies, int connections) {
+            this.throughput = throughput;
+            this.latencies = latencies;
+            this.connections = connections;
+        }
+
+        void print(String protocol) {
+            System.out.printf("%-8s %10.0f %10.2f %10.2f %10.2f %12d%n", protocol, throughput,
+                    percentile(0.5), percentile(0.99), percentile(0.999), connections);
+        }
+
+        private double percentile(double p) {
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1e6;
+        }
+    }
+}
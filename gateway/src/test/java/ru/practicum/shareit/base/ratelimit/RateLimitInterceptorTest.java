@@ -0,0 +1,64 @@
+package ru.practicum.shareit.base.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.exception.RateLimitExceededException;
+
+import javax.servlet.DispatcherType;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Юнит тесты для RateLimitInterceptor
+ */
+class RateLimitInterceptorTest {
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void init() {
+        interceptor = new RateLimitInterceptor("search",
+                new TokenBucketRateLimiter(1, 0.5, 100, Duration.ofHours(1)));
+    }
+
+    /**
+     * Запрос сверх бюджета отклоняется со временем ожидания, округленным вверх до секунд
+     */
+    @Test
+    void shouldRejectWithRetryAfter() {
+        assertThat(interceptor.preHandle(request("1"), response, new Object()), equalTo(true));
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> interceptor.preHandle(request("1"), response, new Object()));
+
+        assertThat(exception.getRetryAfterSeconds(), equalTo(2L));
+    }
+
+    /**
+     * Запросы без пользователя и повторные диспетчеризации не ограничиваются
+     */
+    @Test
+    void shouldSkipRequestsWithoutUserAndNestedDispatches() {
+        assertThat(interceptor.preHandle(request("1"), response, new Object()), equalTo(true));
+
+        assertThat(interceptor.preHandle(request(null), response, new Object()), equalTo(true));
+        assertThat(interceptor.preHandle(request("abc"), response, new Object()), equalTo(true));
+        MockHttpServletRequest error = request("1");
+        error.setDispatcherType(DispatcherType.ERROR);
+        assertThat(interceptor.preHandle(error, response, new Object()), equalTo(true));
+    }
+
+    private static MockHttpServletRequest request(String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items/search");
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.base.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Юнит тесты для TokenBucketRateLimiter
+ */
+class TokenBucketRateLimiterTest {
+    /**
+     * Всплеск до capacity запросов допускается без ожидания, следующий запрос ждет один интервал пополнения
+     */
+    @Test
+    void shouldAllowBurstUpToCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 100, Duration.ofHours(1));
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+
+        long waitNanos = limiter.tryAcquire(1L);
+        assertThat(waitNanos, greaterThan(0L));
+        assertThat(waitNanos, lessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Отказ не расходует токен, после интервала пополнения запрос снова разрешен
+     */
+    @Test
+    void shouldRefillOverTime() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 50, 100, Duration.ofHours(1));
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+        assertThat(limiter.tryAcquire(1L), greaterThan(0L));
+        assertThat(limiter.tryAcquire(1L), greaterThan(0L));
+
+        Thread.sleep(50);
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+    }
+
+    /**
+     * У каждого пользователя свой бюджет
+     */
+    @Test
+    void shouldLimitUsersIndependently() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100, Duration.ofHours(1));
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+        assertThat(limiter.tryAcquire(1L), greaterThan(0L));
+        assertThat(limiter.tryAcquire(2L), equalTo(0L));
+    }
+
+    /**
+     * Состояние простаивающего пользователя удаляется, после этого ему снова доступен полный всплеск
+     */
+    @Test
+    void shouldEvictIdleUsers() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 0.001, 100, Duration.ofMillis(10));
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+        assertThat(limiter.tryAcquire(1L), greaterThan(TimeUnit.SECONDS.toNanos(100)));
+
+        Thread.sleep(50);
+
+        assertThat(limiter.tryAcquire(1L), equalTo(0L));
+    }
+}
@@ -0,0 +1,255 @@
+package ru.practicum.shareit.batch;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.base.metrics.RouteLatencyFilter;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.item.ItemController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты BatchController и BatchDispatcher: запросы пакета проходят через ItemController так же,
+ * как отдельные запросы
+ */
+@WebMvcTest(controllers = {BatchController.class, ItemController.class},
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RouteLatencyFilter.class))
+@Import({BatchDispatcher.class, BatchControllerTest.RejectingInterceptorConfig.class})
+class BatchControllerTest {
+    static final AtomicInteger COMPLETED = new AtomicInteger();
+
+    @Autowired
+    MockMvc mvc;
+    @MockBean
+    ItemClient itemClient;
+
+    @BeforeEach
+    void init() {
+        COMPLETED.set(0);
+    }
+
+    @AfterEach
+    void verifyMocks() {
+        verifyNoMoreInteractions(itemClient);
+    }
+
+    /**
+     * Ответы возвращаются в порядке запросов со статусом каждого, заголовок пользователя берется из пакета
+     */
+    @Test
+    void shouldReturnStatusPerSubRequest() throws Exception {
+        when(itemClient.getById(1L, 1L)).thenReturn(Mono.just(json(HttpStatus.OK, "{\"id\":1}")));
+        when(itemClient.getById(2L, 2L)).thenReturn(Mono.just(json(HttpStatus.NOT_FOUND, "{\"status\":404}")));
+
+        execute("{\"requests\":["
+                + "{\"id\":\"first\",\"method\":\"GET\",\"path\":\"/items/1\"},"
+                + "{\"id\":\"second\",\"method\":\"GET\",\"path\":\"/items/2\","
+                + "\"headers\":{\"X-Sharer-User-Id\":\"2\"}}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value("first"))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body.id").value(1))
+                .andExpect(jsonPath("$[1].id").value("second"))
+                .andExpect(jsonPath("$[1].status").value(404));
+
+        verify(itemClient).getById(1L, 1L);
+        verify(itemClient).getById(2L, 2L);
+    }
+
+    /**
+     * Каждый запрос проверяется отдельно: ошибка валидации одного не мешает остальным
+     */
+    @Test
+    void shouldValidateEachSubRequest() throws Exception {
+        when(itemClient.getById(1L, 1L)).thenReturn(Mono.just(json(HttpStatus.OK, "{\"id\":1}")));
+
+        execute("{\"requests\":["
+                + "{\"id\":\"page\",\"method\":\"GET\",\"path\":\"/items?from=-1\"},"
+                + "{\"id\":\"body\",\"method\":\"POST\",\"path\":\"/items\",\"body\":{\"name\":\"\"}},"
+                + "{\"id\":\"item\",\"method\":\"GET\",\"path\":\"/items/1\"}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(400))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[2].status").value(200));
+
+        verify(itemClient).getById(1L, 1L);
+    }
+
+    /**
+     * Ошибка вызова server обрабатывается тем же методом ErrorHandler, что и для отдельного запроса
+     */
+    @Test
+    void shouldHandleServerCallErrorsLikeSingleRequest() throws Exception {
+        when(itemClient.getById(1L, 1L)).thenReturn(Mono.error(
+                BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("items"))));
+
+        execute("{\"requests\":[{\"id\":\"item\",\"method\":\"GET\",\"path\":\"/items/1\"}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(503))
+                .andExpect(jsonPath("$[0].body.statusCode").value(503));
+
+        verify(itemClient).getById(1L, 1L);
+    }
+
+    /**
+     * Тело не в JSON и неверный JSON встраиваются строкой, пустое тело - null
+     */
+    @Test
+    void shouldEmbedNonJsonBodiesAsStrings() throws Exception {
+        when(itemClient.getById(1L, 1L)).thenReturn(Mono.just(ResponseEntity.ok()
+                                                                     .contentType(MediaType.TEXT_PLAIN)
+                                                                     .body("ok".getBytes(StandardCharsets.UTF_8))));
+        when(itemClient.getById(1L, 2L)).thenReturn(Mono.just(json(HttpStatus.BAD_GATEWAY, "{\"id\":")));
+        when(itemClient.getById(1L, 3L)).thenReturn(Mono.just(ResponseEntity.noContent().build()));
+
+        execute("{\"requests\":["
+                + "{\"id\":\"text\",\"method\":\"GET\",\"path\":\"/items/1\"},"
+                + "{\"id\":\"broken\",\"method\":\"GET\",\"path\":\"/items/2\"},"
+                + "{\"id\":\"empty\",\"method\":\"GET\",\"path\":\"/items/3\"}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].body").value("ok"))
+                .andExpect(jsonPath("$[1].status").value(502))
+                .andExpect(jsonPath("$[1].body").value("{\"id\":"))
+                .andExpect(jsonPath("$[2].status").value(204))
+                .andExpect(jsonPath("$[2].body").value(nullValue()));
+
+        verify(itemClient).getById(1L, 1L);
+        verify(itemClient).getById(1L, 2L);
+        verify(itemClient).getById(1L, 3L);
+    }
+
+    /**
+     * Неизвестный путь - 404, неподдерживаемый метод - 405, вложенный пакет не выполняется
+     */
+    @Test
+    void shouldRejectUnknownRoutes() throws Exception {
+        execute("{\"requests\":["
+                + "{\"id\":\"unknown\",\"method\":\"GET\",\"path\":\"/unknown\"},"
+                + "{\"id\":\"method\",\"method\":\"DELETE\",\"path\":\"/items/1\"},"
+                + "{\"id\":\"nested\",\"method\":\"POST\",\"path\":\"/batch\",\"body\":{\"requests\":[]}}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(404))
+                .andExpect(jsonPath("$[1].status").value(405))
+                .andExpect(jsonPath("$[2].status").value(404));
+    }
+
+    /**
+     * Отказ перехватчика возвращается со статусом и заголовками, которые он записал, afterCompletion
+     * вызывается для каждого выполненного запроса
+     */
+    @Test
+    void shouldKeepInterceptorRejectionAndCompleteInterceptors() throws Exception {
+        when(itemClient.getById(1L, 1L)).thenReturn(Mono.just(json(HttpStatus.OK, "{\"id\":1}")));
+
+        execute("{\"requests\":["
+                + "{\"id\":\"rejected\",\"method\":\"GET\",\"path\":\"/items/1\","
+                + "\"headers\":{\"X-Reject\":\"true\"}},"
+                + "{\"id\":\"item\",\"method\":\"GET\",\"path\":\"/items/1\"}]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(401))
+                .andExpect(jsonPath("$[0].headers['WWW-Authenticate']").value("Sharer"))
+                .andExpect(jsonPath("$[1].status").value(200));
+
+        assertThat(COMPLETED.get(), equalTo(1));
+        verify(itemClient).getById(1L, 1L);
+    }
+
+    /**
+     * Пустой пакет, пакет больше 20 запросов и запрос с путем без / отклоняются целиком
+     */
+    @Test
+    void shouldRejectInvalidBatch() throws Exception {
+        String tooMany = IntStream.rangeClosed(1, 21)
+                                  .mapToObj(i -> "{\"method\":\"GET\",\"path\":\"/items/" + i + "\"}")
+                                  .collect(Collectors.joining(",", "{\"requests\":[", "]}"));
+
+        send(tooMany).andExpect(status().isBadRequest());
+        send("{\"requests\":[]}").andExpect(status().isBadRequest());
+        send("{\"requests\":[{\"method\":\"GET\",\"path\":\"items/1\"}]}").andExpect(status().isBadRequest());
+    }
+
+    private ResultActions execute(String batch) throws Exception {
+        MvcResult result = send(batch).andExpect(request().asyncStarted())
+                                      .andReturn();
+        return mvc.perform(asyncDispatch(result));
+    }
+
+    private ResultActions send(String batch) throws Exception {
+        return mvc.perform(post("/batch").header("X-Sharer-User-Id", 1)
+                                         .contentType(MediaType.APPLICATION_JSON)
+                                         .content(batch));
+    }
+
+    /**
+     * Перехватчик, отклоняющий запросы с заголовком X-Reject со статусом 401 и считающий вызовы afterCompletion
+     */
+    @TestConfiguration
+    static class RejectingInterceptorConfig implements WebMvcConfigurer {
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                    if (request.getHeader("X-Reject") == null) {
+                        return true;
+                    }
+                    response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Sharer");
+                    return false;
+                }
+
+                @Override
+                public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                            Exception ex) {
+                    COMPLETED.incrementAndGet();
+                }
+            }).addPathPatterns("/items/**");
+        }
+    }
+
+    private static ResponseEntity<byte[]> json(HttpStatus status, String body) {
+        return ResponseEntity.status(status)
+                             .contentType(MediaType.APPLICATION_JSON)
+                             .body(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
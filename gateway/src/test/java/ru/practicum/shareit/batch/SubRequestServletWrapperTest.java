@@ -0,0 +1,91 @@
+package ru.practicum.shareit.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Юнит тесты для SubRequestServletWrapper
+ */
+class SubRequestServletWrapperTest {
+    /**
+     * Неблокирующее чтение: слушатель получает все тело и затем onAllDataRead
+     */
+    @Test
+    void shouldNotifyReadListener() {
+        ServletInputStream stream = wrap("{\"name\":\"пила\"}").getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        stream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[4];
+                while (stream.isReady() && !stream.isFinished()) {
+                    int count = stream.read(buffer);
+                    read.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("end");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertThat(events, contains("data", "end"));
+        assertThat(read.toString(StandardCharsets.UTF_8), equalTo("{\"name\":\"пила\"}"));
+    }
+
+    /**
+     * Пустое тело: onDataAvailable не вызывается
+     */
+    @Test
+    void shouldNotifyReadListenerOfEmptyBody() {
+        List<String> events = new ArrayList<>();
+
+        wrap("").getInputStream().setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                events.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("end");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertThat(events, contains("end"));
+    }
+
+    private static SubRequestServletWrapper wrap(String body) {
+        return new SubRequestServletWrapper(new MockHttpServletRequest(), "POST",
+                UriComponentsBuilder.fromUriString("/items").build(), Map.of(),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
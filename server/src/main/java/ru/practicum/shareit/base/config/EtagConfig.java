@@ -0,0 +1,22 @@
+package ru.practicum.shareit.base.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETag для GET-ответов вещей, пользователей и запросов. При совпадении If-None-Match
+ * возвращается 304 Not Modified без тела - на этом основан кэш ответов в gateway
+ */
+@Configuration
+public class EtagConfig {
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/items/*", "/users/*", "/requests/*");
+        registration.setName("etagFilter");
+        return registration;
+    }
+}
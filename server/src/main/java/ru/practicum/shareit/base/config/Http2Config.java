@@ -0,0 +1,32 @@
+package ru.practicum.shareit.base.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 без TLS (h2c) на основном коннекторе Tomcat (server.http2.enabled=true).
+ * Gateway в режиме h2c мультиплексирует запросы в нескольких соединениях, поэтому число потоков
+ * на соединение увеличено
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.http2.enabled", havingValue = "true")
+public class Http2Config {
+    @Bean
+    public TomcatConnectorCustomizer http2ConnectorCustomizer(
+            @Value("${shareit.http2.max-concurrent-streams:1000}") long maxConcurrentStreams) {
+        return connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol) {
+                    Http2Protocol http2 = (Http2Protocol) protocol;
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setMaxConcurrentStreamExecution((int) Math.min(maxConcurrentStreams, Integer.MAX_VALUE));
+                }
+            }
+        };
+    }
+}
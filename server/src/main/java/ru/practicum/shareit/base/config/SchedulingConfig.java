@@ -0,0 +1,12 @@
+package ru.practicum.shareit.base.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Фоновые задачи по расписанию (@Scheduled)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
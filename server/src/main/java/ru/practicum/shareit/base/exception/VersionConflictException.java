@@ -0,0 +1,7 @@
+package ru.practicum.shareit.base.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(final String message) {
+        super(message);
+    }
+}
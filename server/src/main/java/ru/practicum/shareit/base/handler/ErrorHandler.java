@@ -2,17 +2,22 @@ package ru.practicum.shareit.base.handler;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
 import ru.practicum.shareit.base.exception.NotFoundException;
 import ru.practicum.shareit.base.exception.ResourceAccessException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
 import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.BookingCreationException;
 import ru.practicum.shareit.booking.exception.BookingStatusException;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.exception.CommentCreationException;
+import ru.practicum.shareit.item.exception.ItemSearchUnavailableException;
 import ru.practicum.shareit.item.exception.ItemUnavailableException;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.user.UserController;
@@ -103,6 +108,45 @@ public class ErrorHandler {
                 HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Обработчик исключений при пересечении бронирования с уже существующими
+     *
+     * @return описание ошибки. код 409
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> bookingConflictHandler(final BookingConflictException ex) {
+        String errorMessage = String.format("Booking conflict: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.CONFLICT.value()),
+                HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Обработчик исключений при несовпадении версии из If-Match с текущей версией сущности
+     *
+     * @return описание ошибки. код 409
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> versionConflictHandler(final VersionConflictException ex) {
+        String errorMessage = String.format("Version conflict: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.CONFLICT.value()),
+                HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Обработчик исключений при одновременном изменении сущности в другой транзакции
+     *
+     * @return описание ошибки. код 409
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> optimisticLockHandler(final OptimisticLockingFailureException ex) {
+        String errorMessage = String.format("Concurrent modification: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.CONFLICT.value()),
+                HttpStatus.CONFLICT);
+    }
+
     /**
      * Обработчик исключений при ошибках создания комментария
      *
@@ -116,6 +160,32 @@ public class ErrorHandler {
                 HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Обработчик исключения при поиске до построения поискового индекса
+     *
+     * @return описание ошибки. код 503
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> searchUnavailableHandler(final ItemSearchUnavailableException ex) {
+        String errorMessage = String.format("Service unavailable: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.SERVICE_UNAVAILABLE.value()),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Обработчик исключений при некорректных параметрах запроса
+     *
+     * @return описание ошибки. код 400
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> illegalRequestStateHandler(final IllegalRequestStateException ex) {
+        String errorMessage = String.format("Illegal request: %s", ex.getMessage());
+        log.error(errorMessage);
+        return new ResponseEntity<>(new ErrorResponse(errorMessage, HttpStatus.BAD_REQUEST.value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Обработчик остальных исключений
      *
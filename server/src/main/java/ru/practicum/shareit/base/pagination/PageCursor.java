@@ -0,0 +1,94 @@
+package ru.practicum.shareit.base.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Курсор keyset-пагинации: ключ сортировки и id последнего элемента страницы.
+ * Для клиента непрозрачен - передается строкой base64url. Если сортировка только по id, ключ времени пустой
+ */
+@Getter
+@EqualsAndHashCode
+public final class PageCursor {
+    /**
+     * Заголовок ответа с курсором следующей страницы. Отсутствует, если страница неполная
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "_";
+
+    @Nullable
+    private final LocalDateTime time;
+    private final long id;
+
+    private PageCursor(@Nullable LocalDateTime time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static PageCursor of(LocalDateTime time, long id) {
+        return new PageCursor(time, id);
+    }
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(null, id);
+    }
+
+    /**
+     * Ключ времени курсора для сортировки по времени и id
+     *
+     * @throws IllegalRequestStateException если курсор выдан для сортировки только по id
+     */
+    public LocalDateTime requireTime() {
+        if (time == null) {
+            throw new IllegalRequestStateException("Cursor has no time key for this endpoint");
+        }
+        return time;
+    }
+
+    public String encode() {
+        String key = time == null ? "" : String.valueOf(toMicros(time));
+        return Base64.getUrlEncoder().withoutPadding()
+                     .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(SEPARATOR);
+            long id = Long.parseLong(value.substring(separator + 1));
+            if (separator == 0) {
+                return ofId(id);
+            }
+            long micros = Long.parseLong(value.substring(0, separator));
+            return of(LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalRequestStateException(String.format("Invalid cursor: %s", cursor), e);
+        }
+    }
+
+    /**
+     * Ответ со страницей и курсором следующей страницы в заголовке X-Next-Cursor
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> page, int size, Function<T, PageCursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() >= size) {
+            response.header(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+}
@@ -1,20 +1,46 @@
 package ru.practicum.shareit.base.pagination;
 
 import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 
 /**
- * Класс для строки запроса на пагинацию
+ * Класс для строки запроса на пагинацию: смещение from или курсор (keyset), если он передан
  */
 @EqualsAndHashCode
 public final class PaginationRequest {
     private final Integer from;
     private final Integer size;
+    @Nullable
+    private final PageCursor cursor;
 
     public PaginationRequest(Integer from, Integer size) {
+        this(from, size, null);
+    }
+
+    public PaginationRequest(Integer from, Integer size, @Nullable String cursor) {
         this.from = from;
         this.size = size;
+        this.cursor = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+    }
+
+    public boolean isCursorBased() {
+        return cursor != null;
+    }
+
+    @Nullable
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    public Integer getFrom() {
+        return from;
+    }
+
+    public Integer getSize() {
+        return size;
     }
 
     public Pageable makePaginationByFieldDesc(String field) {
@@ -26,4 +52,18 @@ public final class PaginationRequest {
         Sort sortingByDateCreatedAsc = Sort.by(Sort.Direction.ASC, field);
         return OffsetBasedPageRequest.of(from, size, sortingByDateCreatedAsc);
     }
+
+    /**
+     * Первая страница размера size для запроса с условием по курсору. Порядок задается в самом запросе
+     */
+    public Pageable makeCursorPagination() {
+        return PageRequest.of(0, size);
+    }
+
+    /**
+     * Первая страница размера size для запроса с условием по курсору, сортировка по возрастанию поля
+     */
+    public Pageable makeCursorPaginationByFieldAsc(String field) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, field));
+    }
 }
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.base.pagination;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Слияние страниц из нескольких источников, каждая уже упорядочена в БД в одном и том же порядке
+ */
+public final class SortedPages {
+    private SortedPages() {
+    }
+
+    /**
+     * k-way слияние по order: в результате первые limit элементов общего порядка
+     */
+    public static <T> List<T> merge(List<List<T>> pages, Comparator<? super T> order, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, pages.size()),
+                (left, right) -> order.compare(left.value, right.value));
+        for (List<T> page : pages) {
+            Iterator<T> iterator = page.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> result = new ArrayList<>(Math.max(0, limit));
+        while (!heads.isEmpty() && result.size() < limit) {
+            Head<T> head = heads.poll();
+            result.add(head.value);
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return result;
+    }
+
+    private static final class Head<T> {
+        private final T value;
+        private final Iterator<T> rest;
+
+        private Head(T value, Iterator<T> rest) {
+            this.value = value;
+            this.rest = rest;
+        }
+    }
+}
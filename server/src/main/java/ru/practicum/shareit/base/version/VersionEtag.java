@@ -0,0 +1,60 @@
+package ru.practicum.shareit.base.version;
+
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+
+/**
+ * ETag из версии сущности (@Version) для PATCH-эндпоинтов: ответ содержит ETag "версия",
+ * запрос с If-Match применяется, только если версия не изменилась. ETag GET-ответов вещей строится
+ * по содержимому (EtagConfig) и для If-Match не подходит
+ */
+public final class VersionEtag {
+    private VersionEtag() {
+    }
+
+    /**
+     * Ответ 200 с ETag по версии, без ETag если версия неизвестна
+     */
+    public static <T> ResponseEntity<T> ok(T body, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version != null) {
+            builder.eTag(String.valueOf(version));
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * Ожидаемая версия из If-Match
+     *
+     * @return null если заголовка нет или он равен *
+     * @throws IllegalRequestStateException если значение не является ETag версии
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalRequestStateException(String.format("If-Match=%s is not a version ETag", ifMatch));
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalRequestStateException(String.format("If-Match=%s is not a version ETag", ifMatch), e);
+        }
+    }
+
+    /**
+     * Проверка версии сущности против If-Match
+     *
+     * @param expected ожидаемая версия, null - без проверки
+     * @throws VersionConflictException если версии различаются
+     */
+    public static void checkVersion(String entity, Long id, Long expected, Long actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new VersionConflictException(String.format("%s with id=%d has version %d, expected %d",
+                    entity, id, actual, expected));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий архива бронирований. Все бронирования архива завершились, поэтому для PAST условие по времени
+ * не нужно, а CURRENT, FUTURE и WAITING архив не читают. Страницы по смещению вместе с bookings читает
+ * BookingHistory, здесь - только страницы после курсора
+ */
+public interface BookingArchiveRepository extends JpaRepository<ArchivedBooking, Long> {
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<ArchivedBooking> findWithItemAndBookerById(Long bookingId);
+
+    String ROW = "SELECT new ru.practicum.shareit.booking.dto.BookingRow(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, u.id, u.name, u.email) " +
+            "FROM ArchivedBooking AS b JOIN b.item AS i JOIN b.booker AS u ";
+
+    String OF_BOOKER = ROW + "WHERE u.id = :bookerId ";
+
+    String OF_OWNER = ROW + "WHERE i.owner.id = :ownerId ";
+
+    @Query(OF_BOOKER + BookingRepository.AFTER_CURSOR)
+    List<BookingRow> findPageByBookerIdAfter(@Param("bookerId") Long bookerId, @Param("start") LocalDateTime start,
+                                             @Param("id") Long id, Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.status = :status " + BookingRepository.AFTER_CURSOR)
+    List<BookingRow> findPageByBookerIdAndStatusAfter(@Param("bookerId") Long bookerId,
+                                                      @Param("status") BookingStatus status,
+                                                      @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                      Pageable pageable);
+
+    @Query(OF_OWNER + BookingRepository.AFTER_CURSOR)
+    List<BookingRow> findPageByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("start") LocalDateTime start,
+                                            @Param("id") Long id, Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.status = :status " + BookingRepository.AFTER_CURSOR)
+    List<BookingRow> findPageByOwnerIdAndStatusAfter(@Param("ownerId") Long ownerId,
+                                                     @Param("status") BookingStatus status,
+                                                     @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                     Pageable pageable);
+
+    @Query("SELECT b FROM ArchivedBooking AS b " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' " +
+            "ORDER BY b.start DESC ")
+    List<ArchivedBooking> findPastByItemId(Long itemId, Pageable page);
+
+    @Query("SELECT b FROM ArchivedBooking AS b " +
+            "WHERE b.status = 'APPROVED' AND b.booker.id = ?1 AND b.item.id = ?2")
+    List<ArchivedBooking> findPastApprovedByBookerAndItem(Long bookerId, Long itemId, Pageable page);
+
+    /**
+     * Копирование строк из bookings в архив одним INSERT ... SELECT, без загрузки сущностей
+     *
+     * @return число скопированных строк
+     */
+    @Modifying
+    @Query(value = "INSERT INTO bookings_archive (id, start_time, end_time, item_id, booker_id, status, version) " +
+            "SELECT id, start_time, end_time, item_id, booker_id, status, version " +
+            "FROM bookings WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromBookings(@Param("ids") Collection<Long> ids);
+}
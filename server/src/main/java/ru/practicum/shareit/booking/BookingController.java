@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,9 +12,13 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.base.version.VersionEtag;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBulkDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.model.ApprovedState;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -37,17 +43,17 @@ public class BookingController {
      *
      * @param userId     id пользователя
      * @param bookingDto DTO бронирования
-     * @return DTO добавленной сущности
+     * @return DTO добавленной сущности, ETag - версия
      */
     @PostMapping
-    public BookingSendingDto add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                 @RequestBody BookingReceivingDto bookingDto) {
+    public ResponseEntity<BookingSendingDto> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                 @RequestBody BookingReceivingDto bookingDto) {
         log.info("Request to add new booking: {} from user: {}", bookingDto, userId);
         BookingSendingDto returnedBooking = bookingService.add(userId, bookingDto);
         if (returnedBooking != null) {
             log.info("Successfully added new booking: {}", returnedBooking);
         }
-        return returnedBooking;
+        return VersionEtag.ok(returnedBooking, returnedBooking == null ? null : returnedBooking.getVersion());
     }
 
     /**
@@ -56,19 +62,42 @@ public class BookingController {
      * @param userId    id пользователя
      * @param bookingId id бронирования
      * @param approved  подтверждение или отказ (true, false)
-     * @return DTO обновленной сущности
+     * @param ifMatch   ETag бронирования, при несовпадении версии - 409
+     * @return DTO обновленной сущности, ETag - новая версия
      */
     @PatchMapping("/{bookingId}")
-    public BookingSendingDto handleStatus(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                          @PathVariable Long bookingId,
-                                          @RequestParam String approved) {
+    public ResponseEntity<BookingSendingDto> handleStatus(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                          @PathVariable Long bookingId,
+                                                          @RequestParam String approved,
+                                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                          String ifMatch) {
         log.info("Request to handle booking with id={}", bookingId);
         ApprovedState state = ApprovedState.valueOf(approved);
-        BookingSendingDto handledBooking = bookingService.handleStatus(userId, bookingId, state);
+        BookingSendingDto handledBooking = bookingService.handleStatus(userId, bookingId, state,
+                VersionEtag.parseIfMatch(ifMatch));
         if (handledBooking != null) {
             log.info("Successfully handled booking: {}", handledBooking);
         }
-        return handledBooking;
+        return VersionEtag.ok(handledBooking, handledBooking == null ? null : handledBooking.getVersion());
+    }
+
+    /**
+     * Пакетное подтверждение/отказ бронирований
+     *
+     * @param userId   id владельца вещей
+     * @param approved подтверждение или отказ (true, false)
+     * @param bulkDto  id бронирований
+     * @return результат для каждого id
+     */
+    @PatchMapping
+    public List<BookingStatusResultDto> handleStatuses(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                       @RequestParam String approved,
+                                                       @RequestBody BookingStatusBulkDto bulkDto) {
+        log.info("Request to handle {} bookings from user: {}", bulkDto.getBookingIds().size(), userId);
+        ApprovedState state = ApprovedState.valueOf(approved);
+        List<BookingStatusResultDto> results = bookingService.handleStatuses(userId, bulkDto.getBookingIds(), state);
+        log.info("Successfully handled bookings: {}", results);
+        return results;
     }
 
     /**
@@ -76,17 +105,17 @@ public class BookingController {
      *
      * @param userId    id польователя, запрашивающего бронирование
      * @param bookingId id бронирования
-     * @return DTO полученной сущности
+     * @return DTO полученной сущности, ETag - версия
      */
     @GetMapping("/{bookingId}")
-    public BookingSendingDto findById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                                      @PathVariable Long bookingId) {
+    public ResponseEntity<BookingSendingDto> findById(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                                      @PathVariable Long bookingId) {
         log.info("Request to get booking with id={}", bookingId);
         BookingSendingDto returnedBooking = bookingService.findById(userId, bookingId);
         if (returnedBooking != null) {
             log.info("Successfully returned booking with id={}", bookingId);
         }
-        return returnedBooking;
+        return VersionEtag.ok(returnedBooking, returnedBooking == null ? null : returnedBooking.getVersion());
     }
 
     /**
@@ -96,18 +125,22 @@ public class BookingController {
      * @param state  параметр запроса (ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED)
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return список DTO найденных сущностей
      */
     @GetMapping
-    public List<BookingSendingDto> findAllCurrentUserBookingsByState(
+    public ResponseEntity<List<BookingSendingDto>> findAllCurrentUserBookingsByState(
             @RequestHeader(name = "X-Sharer-User-Id") Long userId,
             @RequestParam(required = false, defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         log.info("Request to get bookings with booker_id={}", userId);
-        PaginationRequest paginationRequest = new PaginationRequest(from, size);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
         BookingRequestState bookingRequestState = BookingRequestState.valueOf(state);
-        return bookingService.findByBookerIdAndStatus(userId, bookingRequestState, paginationRequest);
+        List<BookingSendingDto> bookings = bookingService.findByBookerIdAndStatus(userId, bookingRequestState,
+                paginationRequest);
+        return PageCursor.toResponse(bookings, size, booking -> PageCursor.of(booking.getStart(), booking.getId()));
     }
 
     /**
@@ -117,17 +150,21 @@ public class BookingController {
      * @param state  параметр запроса (ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED)
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return список DTO найденных сущностей
      */
     @GetMapping("/owner")
-    public List<BookingSendingDto> findAllOwnerBookingsByState(
+    public ResponseEntity<List<BookingSendingDto>> findAllOwnerBookingsByState(
             @RequestHeader(name = "X-Sharer-User-Id") Long userId,
             @RequestParam(required = false, defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         log.info("Request to get bookings with owner_id={}", userId);
-        PaginationRequest paginationRequest = new PaginationRequest(from, size);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
         BookingRequestState bookingRequestState = BookingRequestState.valueOf(state);
-        return bookingService.findByOwnerIdAndStatus(userId, bookingRequestState, paginationRequest);
+        List<BookingSendingDto> bookings = bookingService.findByOwnerIdAndStatus(userId, bookingRequestState,
+                paginationRequest);
+        return PageCursor.toResponse(bookings, size, booking -> PageCursor.of(booking.getStart(), booking.getId()));
     }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
@@ -25,6 +26,20 @@ public class BookingMapper {
                                 .end(booking.getEnd())
                                 .status(booking.getStatus())
                                 .booker(BookingSendingDto.BookingUser.toBookingUser(booking.getBooker()))
+                                .version(booking.getVersion())
+                                .build();
+    }
+
+    public static BookingSendingDto toSendingDto(BookingRow row) {
+        return BookingSendingDto.builder()
+                                .id(row.getId())
+                                .item(new BookingSendingDto.BookingItem(row.getItemId(), row.getItemName(),
+                                        row.getItemDescription(), row.getItemAvailable()))
+                                .start(row.getStart())
+                                .end(row.getEnd())
+                                .status(row.getStatus())
+                                .booker(new BookingSendingDto.BookingUser(row.getBookerId(), row.getBookerName(),
+                                        row.getBookerEmail()))
                                 .build();
     }
 }
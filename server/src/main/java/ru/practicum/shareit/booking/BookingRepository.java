@@ -1,60 +1,209 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.dto.BookingStatusRow;
+import ru.practicum.shareit.booking.index.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий бронирований
  */
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    List<Booking> findAllByBookerId(Long bookerId, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStartAfter(Long bookerId, LocalDateTime time, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndEndBefore(Long bookerId, LocalDateTime time, Pageable pageable);
-
-    @Query("SELECT new Booking(b.id, b.start, b.end, b.item, b.booker, b.status) " +
-            "FROM Booking AS b " +
-            "WHERE b.start <= ?2 AND b.end >= ?2 AND b.booker.id = ?1")
-    List<Booking> findAllByBookerWhereTimeIsInside(Long bookerId, LocalDateTime time, Pageable pageable);
-
-    List<Booking> findAllByItemIdIn(Collection<Long> itemIds, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndStatus(Collection<Long> itemIds, BookingStatus status, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndStartAfter(Collection<Long> itemIds, LocalDateTime time, Pageable pageable);
-
-    List<Booking> findAllByItemIdInAndEndBefore(Collection<Long> itemIds, LocalDateTime time, Pageable pageable);
-
-    @Query("SELECT new Booking(b.id, b.start, b.end, b.item, b.booker, b.status) " +
-            "FROM Booking AS b " +
-            "WHERE b.start <= ?2 AND b.end >= ?2 AND b.item.id IN (?1)")
-    List<Booking> findAllByItemIdInWhereTimeIsInside(Collection<Long> itemIds, LocalDateTime time, Pageable pageable);
-
-    @Query("SELECT new Booking(b.id, b.start, b.end, b.item, b.booker, b.status) " +
-            "FROM Booking AS b " +
+    /**
+     * Бронирование с вещью и арендатором одним запросом: просмотр и подтверждение бронирования
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findWithItemAndBookerById(Long bookingId);
+
+    /**
+     * Списки бронирований читаются проекцией BookingRow: один запрос на страницу, без загрузки сущностей
+     */
+    String ROW = "SELECT new ru.practicum.shareit.booking.dto.BookingRow(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, u.id, u.name, u.email) " +
+            "FROM Booking AS b JOIN b.item AS i JOIN b.booker AS u ";
+
+    String OF_BOOKER = ROW + "WHERE u.id = :bookerId ";
+
+    @Query(OF_BOOKER + "AND b.status = :status")
+    List<BookingRow> findAllByBookerIdAndStatus(@Param("bookerId") Long bookerId,
+                                                @Param("status") BookingStatus status, Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.start > :now")
+    List<BookingRow> findAllByBookerIdAndStartAfter(@Param("bookerId") Long bookerId,
+                                                    @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.start <= :now AND b.end >= :now")
+    List<BookingRow> findAllByBookerWhereTimeIsInside(@Param("bookerId") Long bookerId,
+                                                      @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Бронирования вещей владельца: соединение с items по owner_id вместо списка id вещей в IN (...)
+     */
+    String OF_OWNER = ROW + "WHERE i.owner.id = :ownerId ";
+
+    @Query(OF_OWNER + "AND b.status = :status")
+    List<BookingRow> findAllByOwnerIdAndStatus(@Param("ownerId") Long ownerId, @Param("status") BookingStatus status,
+                                               Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.start <= :now AND b.end >= :now")
+    List<BookingRow> findAllByOwnerWhereTimeIsInside(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                                     Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.start > :now")
+    List<BookingRow> findAllByOwnerIdAndStartAfter(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                                   Pageable pageable);
+
+    @Query("SELECT b FROM Booking AS b " +
             "WHERE b.start < current_timestamp AND b.item.id = ?1 AND b.status = 'APPROVED' " +
             "ORDER BY b.start DESC ")
     List<Booking> findPastByItemId(Long itemId, Pageable page);
 
-    @Query("SELECT new Booking(b.id, b.start, b.end, b.item, b.booker, b.status) " +
-            "FROM Booking AS b " +
+    @Query("SELECT b FROM Booking AS b " +
             "WHERE b.start > current_timestamp AND b.item.id = ?1 AND b.status = 'APPROVED' " +
             "ORDER BY b.start ASC ")
     List<Booking> findFutureByItemId(Long itemId, Pageable page);
 
-    @Query("SELECT new Booking(b.id, b.start, b.end, b.item, b.booker, b.status) " +
-            "FROM Booking AS b " +
+    @Query("SELECT b FROM Booking AS b " +
             "WHERE b.end < current_timestamp  AND b.status = 'APPROVED' AND b.booker.id = ?1 AND b.item.id = ?2")
     List<Booking> findPastApprovedByBookerAndItem(Long bookerId, Long itemId, Pageable page);
+
+    /**
+     * Keyset-пагинация: страница после курсора (start, id) в порядке start DESC, id DESC
+     */
+    String AFTER_CURSOR = "AND (b.start < :start OR (b.start = :start AND b.id < :id)) " +
+            "ORDER BY b.start DESC, b.id DESC";
+
+    @Query(OF_BOOKER + AFTER_CURSOR)
+    List<BookingRow> findPageByBookerIdAfter(@Param("bookerId") Long bookerId, @Param("start") LocalDateTime start,
+                                             @Param("id") Long id, Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.status = :status " + AFTER_CURSOR)
+    List<BookingRow> findPageByBookerIdAndStatusAfter(@Param("bookerId") Long bookerId,
+                                                      @Param("status") BookingStatus status,
+                                                      @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                      Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.start <= :now AND b.end >= :now " + AFTER_CURSOR)
+    List<BookingRow> findCurrentPageByBookerIdAfter(@Param("bookerId") Long bookerId, @Param("now") LocalDateTime now,
+                                                    @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                    Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.end < :now " + AFTER_CURSOR)
+    List<BookingRow> findPastPageByBookerIdAfter(@Param("bookerId") Long bookerId, @Param("now") LocalDateTime now,
+                                                 @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                 Pageable pageable);
+
+    @Query(OF_BOOKER + "AND b.start > :now " + AFTER_CURSOR)
+    List<BookingRow> findFuturePageByBookerIdAfter(@Param("bookerId") Long bookerId, @Param("now") LocalDateTime now,
+                                                   @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                   Pageable pageable);
+
+    @Query(OF_OWNER + AFTER_CURSOR)
+    List<BookingRow> findPageByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("start") LocalDateTime start,
+                                            @Param("id") Long id, Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.status = :status " + AFTER_CURSOR)
+    List<BookingRow> findPageByOwnerIdAndStatusAfter(@Param("ownerId") Long ownerId,
+                                                     @Param("status") BookingStatus status,
+                                                     @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                     Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.start <= :now AND b.end >= :now " + AFTER_CURSOR)
+    List<BookingRow> findCurrentPageByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                                   @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                   Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.end < :now " + AFTER_CURSOR)
+    List<BookingRow> findPastPageByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                                @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query(OF_OWNER + "AND b.start > :now " + AFTER_CURSOR)
+    List<BookingRow> findFuturePageByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                                  @Param("start") LocalDateTime start, @Param("id") Long id,
+                                                  Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusRow(b.id, i.id, i.owner.id, b.booker.id, " +
+            "b.start, b.end, b.status) " +
+            "FROM Booking AS b JOIN b.item AS i " +
+            "WHERE b.id IN (:ids)")
+    List<BookingStatusRow> findStatusRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Бронирования в статусе status с началом раньше cutoff, по возрастанию начала (idx_bookings_status_start_time)
+     */
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusRow(b.id, i.id, i.owner.id, b.booker.id, " +
+            "b.start, b.end, b.status) " +
+            "FROM Booking AS b JOIN b.item AS i " +
+            "WHERE b.status = :status AND b.start < :cutoff " +
+            "ORDER BY b.start")
+    List<BookingStatusRow> findStatusRowsByStatusAndStartBefore(@Param("status") BookingStatus status,
+                                                                @Param("cutoff") LocalDateTime cutoff,
+                                                                Pageable pageable);
+
+    /**
+     * Смена статуса набора бронирований одним UPDATE, только для бронирований в статусе expected.
+     * Версия увеличивается так же, как при изменении сущности, чтобы ETag загруженных ранее бронирований устарел
+     *
+     * @return число измененных строк
+     */
+    @Modifying
+    @Query("UPDATE Booking AS b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id IN (:ids) AND b.status = :expected")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("expected") BookingStatus expected,
+                           @Param("status") BookingStatus status);
+
+    /**
+     * Бронирования, завершившиеся раньше cutoff, по возрастанию окончания (idx_bookings_end_time).
+     * Строки блокируются до конца транзакции: узел, выбравший тот же пакет параллельно, дождется переноса
+     * и не увидит удаленные строки
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking AS b " +
+            "WHERE b.end < :cutoff " +
+            "ORDER BY b.end")
+    List<Booking> findEndedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Контекст сохранения очищается: загруженные ранее удаленные бронирования не должны находиться через findById
+     *
+     * @return число удаленных строк
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Booking AS b WHERE b.id IN (:ids)")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.start, b.end, b.status) " +
+            "FROM Booking AS b " +
+            "WHERE b.item.id = ?1 AND b.status IN (?2)")
+    List<BookingInterval> findIntervalsByItemId(Long itemId, Collection<BookingStatus> statuses);
+
+    @Query("SELECT new ru.practicum.shareit.booking.index.BookingInterval(b.id, b.start, b.end, b.status) " +
+            "FROM Booking AS b " +
+            "WHERE b.item.id = ?1 AND b.status IN (?2) AND b.end > ?3")
+    List<BookingInterval> findIntervalsByItemIdEndingAfter(Long itemId, Collection<BookingStatus> statuses,
+                                                           LocalDateTime after);
+
+    /**
+     * Есть ли бронирование вещи в одном из статусов, пересекающееся с [start, end)
+     */
+    @Query("SELECT COUNT(b) > 0 " +
+            "FROM Booking AS b " +
+            "WHERE b.item.id = ?1 AND b.status IN (?2) AND b.start < ?4 AND b.end > ?3")
+    boolean existsOverlapping(Long itemId, Collection<BookingStatus> statuses, LocalDateTime start,
+                              LocalDateTime end);
 }
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Перенос бронирований, завершившихся больше retention-days дней назад, из bookings в bookings_archive.
+ * За запуск - не больше max-batches пакетов по batch-size строк, каждый пакет в своей транзакции.
+ * Пакет выбирается с блокировкой строк, поэтому одновременный запуск на нескольких узлах переносит каждое
+ * бронирование один раз. Метрика shareit.booking.archive.rows - число перенесенных бронирований за запуск
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingArchiveJob {
+    public static final String ROWS_METRIC = "shareit.booking.archive.rows";
+
+    private final BookingService bookingService;
+    private final int retentionDays;
+    private final int batchSize;
+    private final int maxBatches;
+    private final DistributionSummary archivedRows;
+
+    public BookingArchiveJob(BookingService bookingService, MeterRegistry registry,
+                             @Value("${shareit.booking.archive.retention-days:180}") int retentionDays,
+                             @Value("${shareit.booking.archive.batch-size:500}") int batchSize,
+                             @Value("${shareit.booking.archive.max-batches:20}") int maxBatches) {
+        this.bookingService = bookingService;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.archivedRows = DistributionSummary.builder(ROWS_METRIC)
+                                               .description("Ended bookings moved to bookings_archive per run")
+                                               .baseUnit("rows")
+                                               .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.delay:PT1H}",
+            initialDelayString = "${shareit.booking.archive.delay:PT1H}")
+    public void run() {
+        archive(LocalDateTime.now());
+    }
+
+    /**
+     * Пакеты обрабатываются, пока пакет заполнен полностью и не превышен max-batches
+     *
+     * @return число перенесенных бронирований
+     */
+    public int archive(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusDays(retentionDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int archived = bookingService.archiveEnded(cutoff, batchSize);
+            total += archived;
+            if (archived < batchSize) {
+                break;
+            }
+        }
+        archivedRows.record(total);
+        if (total > 0) {
+            log.info("Archived {} bookings ended before {}", total, cutoff);
+        }
+        return total;
+    }
+}
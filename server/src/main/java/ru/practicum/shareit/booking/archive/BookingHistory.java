@@ -0,0 +1,84 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingRow;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRequestState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Страницы по смещению для ALL, PAST и REJECTED из bookings и bookings_archive: обе таблицы объединяются
+ * одним UNION ALL, порядок start DESC, id DESC и смещение применяет БД, поэтому читается только страница,
+ * а не from + size строк из каждой таблицы. Все бронирования архива завершились, поэтому для PAST условие
+ * по времени есть только у bookings
+ */
+@Component
+public class BookingHistory {
+    private static final String COLUMNS = "SELECT b.id, b.start_time, b.end_time, b.status, i.id AS item_id, " +
+            "i.item_name, i.description AS item_description, i.available AS item_available, " +
+            "u.id AS booker_id, u.username AS booker_name, u.email AS booker_email FROM ";
+    private static final String JOINS = " AS b JOIN items AS i ON i.id = b.item_id " +
+            "JOIN users AS u ON u.id = b.booker_id ";
+    private static final String OF_BOOKER = "WHERE b.booker_id = :userId ";
+    private static final String OF_OWNER = "WHERE i.owner_id = :userId ";
+    private static final String PAGE = "ORDER BY start_time DESC, id DESC LIMIT :size OFFSET :from";
+
+    private final EntityManager entityManager;
+
+    public BookingHistory(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public List<BookingRow> findByBooker(Long bookerId, BookingRequestState state, LocalDateTime now,
+                                         int from, int size) {
+        return find(OF_BOOKER, bookerId, state, now, from, size);
+    }
+
+    public List<BookingRow> findByOwner(Long ownerId, BookingRequestState state, LocalDateTime now,
+                                        int from, int size) {
+        return find(OF_OWNER, ownerId, state, now, from, size);
+    }
+
+    private List<BookingRow> find(String ofUser, Long userId, BookingRequestState state, LocalDateTime now,
+                                  int from, int size) {
+        String sql = COLUMNS + "bookings" + JOINS + ofUser + filter(state, false) +
+                "UNION ALL " +
+                COLUMNS + "bookings_archive" + JOINS + ofUser + filter(state, true) +
+                PAGE;
+        Query query = entityManager.createNativeQuery(sql, Booking.BOOKING_ROW)
+                                   .setParameter("userId", userId)
+                                   .setParameter("from", from)
+                                   .setParameter("size", size);
+        if (state == BookingRequestState.REJECTED) {
+            query.setParameter("status", BookingStatus.REJECTED.name());
+        } else if (state == BookingRequestState.PAST) {
+            query.setParameter("now", now);
+        }
+        List<?> rows = query.getResultList();
+        return rows.stream()
+                   .map(Object[].class::cast)
+                   .map(row -> new BookingRow((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2],
+                           BookingStatus.valueOf((String) row[3]), (Long) row[4], (String) row[5],
+                           (String) row[6], (Boolean) row[7], (Long) row[8], (String) row[9], (String) row[10]))
+                   .collect(Collectors.toList());
+    }
+
+    private static String filter(BookingRequestState state, boolean archived) {
+        switch (state) {
+            case ALL:
+                return "";
+            case REJECTED:
+                return "AND b.status = :status ";
+            case PAST:
+                return archived ? "" : "AND b.end_time < :now ";
+            default:
+                throw new IllegalArgumentException("State " + state + " is not read from the archive");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция бронирования для списков: только поля BookingSendingDto, без загрузки сущностей
+ */
+@Getter
+@AllArgsConstructor
+public class BookingRow {
+    private final Long id;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+    private final Long itemId;
+    private final String itemName;
+    private final String itemDescription;
+    private final Boolean itemAvailable;
+    private final Long bookerId;
+    private final String bookerName;
+    private final String bookerEmail;
+}
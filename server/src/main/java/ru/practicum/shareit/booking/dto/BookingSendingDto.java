@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,6 +25,12 @@ public class BookingSendingDto {
     private BookingItem item;
     private BookingUser booker;
     private BookingStatus status;
+    /**
+     * Версия сущности, передается в заголовке ETag
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
 
     @Getter
     @Setter
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * Результат пакетного подтверждения/отказа для одного бронирования
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusResultDto {
+    private Long bookingId;
+    private Outcome outcome;
+    /**
+     * id вещи, только для бронирований вещей пользователя
+     */
+    private Long itemId;
+    /**
+     * Новый статус для UPDATED, текущий для NOT_WAITING
+     */
+    private BookingStatus status;
+
+    public enum Outcome {
+        UPDATED, NOT_FOUND, NOT_OWNER, NOT_WAITING
+    }
+}
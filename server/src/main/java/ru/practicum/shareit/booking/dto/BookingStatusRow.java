@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция бронирования для проверки владельца и статуса при пакетной смене статуса и обновления сводки вещи
+ */
+@Getter
+@AllArgsConstructor
+public class BookingStatusRow {
+    private final Long id;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.exception;
+
+public class BookingConflictException extends RuntimeException {
+    public BookingConflictException(final String message) {
+        super(message);
+    }
+}
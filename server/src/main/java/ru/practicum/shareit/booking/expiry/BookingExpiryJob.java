@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Перевод бронирований WAITING, начало которых уже прошло, в EXPIRED. За запуск - не больше max-batches
+ * пакетов по batch-size строк, каждый пакет в своей транзакции, граница - время начала запуска.
+ * Одновременный запуск на нескольких узлах безопасен: UPDATE меняет только строки, которые еще в WAITING,
+ * поэтому каждое бронирование истекает один раз и учитывается в метрике одним узлом.
+ * Метрика shareit.booking.expiry.rows - число истекших бронирований за запуск
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpiryJob {
+    public static final String ROWS_METRIC = "shareit.booking.expiry.rows";
+
+    private final BookingService bookingService;
+    private final int batchSize;
+    private final int maxBatches;
+    private final DistributionSummary expiredRows;
+
+    public BookingExpiryJob(BookingService bookingService, MeterRegistry registry,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.booking.expiry.max-batches:20}") int maxBatches) {
+        this.bookingService = bookingService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.expiredRows = DistributionSummary.builder(ROWS_METRIC)
+                                              .description("WAITING bookings moved to EXPIRED per run")
+                                              .baseUnit("rows")
+                                              .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.delay:PT1M}",
+            initialDelayString = "${shareit.booking.expiry.delay:PT1M}")
+    public void run() {
+        expire(LocalDateTime.now());
+    }
+
+    /**
+     * Пакеты обрабатываются, пока пакет заполнен полностью и не превышен max-batches
+     *
+     * @return число истекших бронирований
+     */
+    public int expire(LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int updated = bookingService.expireWaiting(cutoff, batchSize);
+            total += updated;
+            if (updated < batchSize) {
+                break;
+            }
+        }
+        expiredRows.record(total);
+        if (total > 0) {
+            log.info("Expired {} WAITING bookings started before {}", total, cutoff);
+        }
+        return total;
+    }
+}
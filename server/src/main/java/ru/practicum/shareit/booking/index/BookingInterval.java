@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция бронирования для построения интервального индекса
+ */
+@Getter
+@AllArgsConstructor
+public class BookingInterval {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+}
@@ -0,0 +1,287 @@
+package ru.practicum.shareit.booking.index;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Интервальный индекс бронирований в памяти для чтения занятости: для каждой вещи дерево интервалов бронирований
+ * в статусах WAITING и APPROVED. Пересечения при создании бронирования исключает только проверка в БД
+ * (BookingServiceImpl.add), индекс бронирования не отклоняет.
+ * Дерево вещи загружается из БД при первом обращении, изменения этого экземпляра server применяются после
+ * фиксации транзакции. Изменения других экземпляров дерево получает при перезагрузке из БД: при обращении
+ * позже refresh после загрузки дерево перечитывается в фоне, до замены отдается прежнее. Дерево, загруженное
+ * раньше чем max-staleness назад, не отдается, а загружается заново, поэтому занятость отстает от
+ * зафиксированного в БД не больше чем на max-staleness. Расхождения прежнего дерева с БД считаются метрикой
+ * shareit.booking.index.mismatches. Хранятся деревья не более max-items вещей.
+ * Бронирования, закончившиеся раньше чем retention назад, в дереве не хранятся: новое бронирование начинается
+ * в будущем и с ними не пересекается, а окна, начинающиеся раньше, читаются из БД
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex implements MeterBinder {
+    public static final String MISMATCHES_METRIC = "shareit.booking.index.mismatches";
+
+    /**
+     * Статусы, занимающие вещь на время бронирования
+     */
+    public static final Set<BookingStatus> BLOCKING_STATUSES = Set.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final LoadingCache<Long, IntervalTree> trees;
+    private final Duration retention;
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public BookingIntervalIndex(@Lazy BookingRepository bookingRepository,
+                                @Value("${shareit.booking.index.max-items:10000}") long maxItems,
+                                @Value("${shareit.booking.index.refresh:PT1M}") Duration refresh,
+                                @Value("${shareit.booking.index.max-staleness:PT5M}") Duration maxStaleness,
+                                @Value("${shareit.booking.index.retention:P1D}") Duration retention) {
+        this.bookingRepository = bookingRepository;
+        this.retention = retention;
+        this.trees = Caffeine.newBuilder()
+                             .maximumSize(maxItems)
+                             .expireAfterWrite(maxStaleness)
+                             .refreshAfterWrite(refresh)
+                             .build(new CacheLoader<>() {
+                                 @Override
+                                 public IntervalTree load(Long itemId) {
+                                     return toTree(bookingRepository.findIntervalsByItemIdEndingAfter(itemId,
+                                             BLOCKING_STATUSES, horizon()));
+                                 }
+
+                                 @Override
+                                 public IntervalTree reload(Long itemId, IntervalTree previous) {
+                                     LocalDateTime horizon = horizon();
+                                     List<BookingInterval> stored = bookingRepository
+                                             .findIntervalsByItemIdEndingAfter(itemId, BLOCKING_STATUSES, horizon);
+                                     List<String> found = compare(previous, stored, horizon);
+                                     if (!found.isEmpty()) {
+                                         mismatches.addAndGet(found.size());
+                                         log.debug("Booking index for item id={} is reloaded: {}", itemId, found);
+                                     }
+                                     return toTree(stored);
+                                 }
+                             });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(MISMATCHES_METRIC, mismatches, AtomicLong::get)
+                       .description("Bookings that differed from the database when item trees were reloaded")
+                       .register(registry);
+    }
+
+    /**
+     * Добавление бронирования WAITING в индекс после фиксации транзакции.
+     * Заодно из дерева удаляются бронирования, закончившиеся раньше горизонта хранения
+     */
+    public void add(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        afterCommit(() -> {
+            IntervalTree tree = trees.get(itemId);
+            synchronized (tree) {
+                if (tree.find(toMicros(start), bookingId) == null) {
+                    tree.insert(bookingId, toMicros(start), toMicros(end), BookingStatus.WAITING);
+                }
+                prune(tree, toMicros(horizon()));
+            }
+        });
+    }
+
+    /**
+     * Обновление статуса бронирования в индексе после фиксации транзакции. Бронирование в неблокирующем статусе
+     * удаляется из индекса
+     */
+    public void updateStatus(Long itemId, Long bookingId, LocalDateTime start, BookingStatus status) {
+        afterCommit(() -> {
+            IntervalTree tree = trees.get(itemId);
+            long from = toMicros(start);
+            synchronized (tree) {
+                IntervalTree.Node node = tree.find(from, bookingId);
+                if (node == null) {
+                    return;
+                }
+                if (BLOCKING_STATUSES.contains(status)) {
+                    node.setStatus(status);
+                } else {
+                    tree.remove(from, bookingId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Удаление бронирования из индекса после фиксации транзакции, если индекс вещи загружен. Незагруженный
+     * индекс не читается из БД: он загрузится уже без удаленного бронирования
+     */
+    public void remove(Long itemId, Long bookingId, LocalDateTime start) {
+        afterCommit(() -> {
+            IntervalTree tree = trees.getIfPresent(itemId);
+            if (tree == null) {
+                return;
+            }
+            synchronized (tree) {
+                tree.remove(toMicros(start), bookingId);
+            }
+        });
+    }
+
+    /**
+     * Свободна ли вещь на полуинтервале [start, end)
+     */
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = tree(itemId, start);
+        synchronized (tree) {
+            return tree.findOverlapping(toMicros(start), toMicros(end)) == null;
+        }
+    }
+
+    /**
+     * Свободные периоды вещи в окне [from, to): проход по бронированиям окна в порядке начала
+     */
+    public List<ItemAvailabilityDto.TimeSlot> findFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        IntervalTree tree = tree(itemId, from);
+        long windowStart = toMicros(from);
+        long windowEnd = toMicros(to);
+        List<ItemAvailabilityDto.TimeSlot> slots = new ArrayList<>();
+        long[] cursor = {windowStart};
+        synchronized (tree) {
+            tree.forEachOverlapping(windowStart, windowEnd, node -> {
+                if (node.getStart() > cursor[0]) {
+                    slots.add(new ItemAvailabilityDto.TimeSlot(fromMicros(cursor[0]), fromMicros(node.getStart())));
+                }
+                cursor[0] = Math.max(cursor[0], node.getEnd());
+            });
+        }
+        if (cursor[0] < windowEnd) {
+            slots.add(new ItemAvailabilityDto.TimeSlot(fromMicros(cursor[0]), to));
+        }
+        return slots;
+    }
+
+    /**
+     * Загружен ли индекс вещи в память
+     */
+    public boolean isLoaded(Long itemId) {
+        return trees.asMap().containsKey(itemId);
+    }
+
+    /**
+     * Сброс индекса вещи, следующее обращение загрузит его из БД заново
+     */
+    public void evict(Long itemId) {
+        trees.invalidate(itemId);
+    }
+
+    /**
+     * Дерево для окна, начинающегося в from. Для окна раньше горизонта хранения дерево строится из всех
+     * бронирований вещи в БД и не сохраняется
+     */
+    private IntervalTree tree(Long itemId, LocalDateTime from) {
+        if (from.isBefore(horizon())) {
+            return toTree(bookingRepository.findIntervalsByItemId(itemId, BLOCKING_STATUSES));
+        }
+        return trees.get(itemId);
+    }
+
+    /**
+     * Сверка дерева с бронированиями из БД в пределах горизонта хранения
+     *
+     * @return список расхождений, пустой если дерево согласовано
+     */
+    static List<String> compare(IntervalTree tree, List<BookingInterval> stored, LocalDateTime horizon) {
+        List<String> mismatches = new ArrayList<>();
+        Set<Long> indexed = new HashSet<>();
+        synchronized (tree) {
+            tree.forEach(node -> {
+                if (node.getEnd() > toMicros(horizon)) {
+                    indexed.add(node.getId());
+                }
+            });
+            for (BookingInterval interval : stored) {
+                IntervalTree.Node node = tree.find(toMicros(interval.getStart()), interval.getId());
+                if (node == null) {
+                    mismatches.add(String.format("Booking id=%d is missing in index", interval.getId()));
+                } else if (node.getEnd() != toMicros(interval.getEnd()) || node.getStatus() != interval.getStatus()) {
+                    mismatches.add(String.format("Booking id=%d differs from index", interval.getId()));
+                }
+                indexed.remove(interval.getId());
+            }
+        }
+        indexed.forEach(id -> mismatches.add(String.format("Booking id=%d is absent in DB", id)));
+        return mismatches;
+    }
+
+    private static IntervalTree toTree(List<BookingInterval> intervals) {
+        IntervalTree tree = new IntervalTree();
+        for (BookingInterval interval : intervals) {
+            tree.insert(interval.getId(), toMicros(interval.getStart()), toMicros(interval.getEnd()),
+                    interval.getStatus());
+        }
+        return tree;
+    }
+
+    /**
+     * Удаление бронирований, закончившихся до horizon: обходятся только начавшиеся раньше него.
+     * Вызывается под блокировкой дерева
+     */
+    private static void prune(IntervalTree tree, long horizon) {
+        List<IntervalTree.Node> ended = new ArrayList<>();
+        tree.forEachOverlapping(Long.MIN_VALUE, horizon, node -> {
+            if (node.getEnd() <= horizon) {
+                ended.add(node);
+            }
+        });
+        ended.forEach(node -> tree.remove(node.getStart(), node.getId()));
+    }
+
+    private LocalDateTime horizon() {
+        return LocalDateTime.now().minus(retention);
+    }
+
+    /**
+     * Изменение применяется после фиксации транзакции, вне транзакции - сразу
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
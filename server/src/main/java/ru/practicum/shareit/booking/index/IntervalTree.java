@@ -0,0 +1,244 @@
+package ru.practicum.shareit.booking.index;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.function.Consumer;
+
+/**
+ * Интервальное дерево бронирований одной вещи: AVL-дерево по (start, id) с максимальным end в поддереве.
+ * Интервалы полуоткрытые [start, end) в микросекундах от эпохи. Поиск пересечения, вставка и удаление - O(log n).
+ * Не потокобезопасно, синхронизация - в BookingIntervalIndex
+ */
+public class IntervalTree {
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Любой интервал, пересекающийся с [start, end), или null
+     */
+    public Node findOverlapping(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return node;
+            }
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Все интервалы, пересекающиеся с [start, end), в порядке возрастания start
+     */
+    public void forEachOverlapping(long start, long end, Consumer<Node> action) {
+        forEachOverlapping(root, start, end, action);
+    }
+
+    private static void forEachOverlapping(Node node, long start, long end, Consumer<Node> action) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        forEachOverlapping(node.left, start, end, action);
+        if (node.start < end && node.end > start) {
+            action.accept(node);
+        }
+        if (node.start < end) {
+            forEachOverlapping(node.right, start, end, action);
+        }
+    }
+
+    public void forEach(Consumer<Node> action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, Consumer<Node> action) {
+        if (node == null) {
+            return;
+        }
+        forEach(node.left, action);
+        action.accept(node);
+        forEach(node.right, action);
+    }
+
+    public Node find(long start, long id) {
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(start, id, node);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public void insert(long id, long start, long end, BookingStatus status) {
+        root = insert(root, new Node(id, start, end, status));
+    }
+
+    public boolean remove(long start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            size++;
+            return added;
+        }
+        int cmp = compare(added.start, added.id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, added);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, added);
+        } else {
+            node.end = added.end;
+            node.status = added.status;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Узел дерева - одно бронирование
+     */
+    public static final class Node {
+        private final long id;
+        private final long start;
+        private long end;
+        private BookingStatus status;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long id, long start, long end, BookingStatus status) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.status = status;
+            this.maxEnd = end;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public BookingStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(BookingStatus status) {
+            this.status = status;
+        }
+    }
+}
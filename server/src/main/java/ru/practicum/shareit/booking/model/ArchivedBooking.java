@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование, перенесенное в архив bookings_archive. Id и версия сохраняются из bookings, строка не изменяется
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Entity
+@Immutable
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @Id
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "start_time")
+    private LocalDateTime start;
+    @Column(name = "end_time")
+    private LocalDateTime end;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id")
+    private User booker;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private BookingStatus status;
+    @Column(name = "version")
+    private Long version;
+
+    /**
+     * Бронирование с теми же полями для маппинга в DTO, в контекст сохранения не попадает
+     */
+    public Booking toBooking() {
+        return new Booking(id, start, end, item, booker, status, version);
+    }
+}
@@ -5,19 +5,24 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 
 import javax.persistence.Column;
+import javax.persistence.ColumnResult;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SqlResultSetMapping;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 /**
- * Класс бронирования для работы с БД
+ * Класс бронирования для работы с БД.
+ * BOOKING_ROW - строка нативного запроса списков из bookings и архива: поля BookingRow, статус строкой
  */
 @Getter
 @Setter
@@ -27,7 +32,21 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode
 @Entity
 @Table(name = "bookings")
+@SqlResultSetMapping(name = Booking.BOOKING_ROW, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "start_time", type = LocalDateTime.class),
+        @ColumnResult(name = "end_time", type = LocalDateTime.class),
+        @ColumnResult(name = "status", type = String.class),
+        @ColumnResult(name = "item_id", type = Long.class),
+        @ColumnResult(name = "item_name", type = String.class),
+        @ColumnResult(name = "item_description", type = String.class),
+        @ColumnResult(name = "item_available", type = Boolean.class),
+        @ColumnResult(name = "booker_id", type = Long.class),
+        @ColumnResult(name = "booker_name", type = String.class),
+        @ColumnResult(name = "booker_email", type = String.class)})
 public class Booking {
+    public static final String BOOKING_ROW = "BookingRow";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -36,13 +55,16 @@ public class Booking {
     private LocalDateTime start;
     @Column(name = "end_time")
     private LocalDateTime end;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private BookingStatus status;
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
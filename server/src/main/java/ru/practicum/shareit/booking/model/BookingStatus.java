@@ -1,8 +1,8 @@
 package ru.practicum.shareit.booking.model;
 
 /**
- * Статусы бронирования
+ * Статусы бронирования. EXPIRED - бронирование не подтверждено до начала, выставляется BookingExpiryJob
  */
 public enum BookingStatus {
-    WAITING, APPROVED, REJECTED, CANCELLED
+    WAITING, APPROVED, REJECTED, CANCELLED, EXPIRED
 }
@@ -2,10 +2,12 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.model.ApprovedState;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,7 +16,33 @@ import java.util.List;
 public interface BookingService {
     BookingSendingDto add(Long bookerId, BookingReceivingDto bookingDto);
 
-    BookingSendingDto handleStatus(Long userId, Long bookingId, ApprovedState approved);
+    /**
+     * Подтверждение/отказ бронирования владельцем вещи
+     *
+     * @param expectedVersion версия из If-Match, null - без проверки
+     */
+    BookingSendingDto handleStatus(Long userId, Long bookingId, ApprovedState approved, Long expectedVersion);
+
+    /**
+     * Пакетное подтверждение/отказ бронирований владельцем вещей
+     *
+     * @return результат для каждого id в порядке запроса, повторяющиеся id учитываются один раз
+     */
+    List<BookingStatusResultDto> handleStatuses(Long userId, List<Long> bookingIds, ApprovedState approved);
+
+    /**
+     * Перевод в EXPIRED не больше limit бронирований WAITING с началом раньше cutoff
+     *
+     * @return число измененных бронирований
+     */
+    int expireWaiting(LocalDateTime cutoff, int limit);
+
+    /**
+     * Перенос в архив не больше limit бронирований, завершившихся раньше cutoff
+     *
+     * @return число перенесенных бронирований
+     */
+    int archiveEnded(LocalDateTime cutoff, int limit);
 
     BookingSendingDto findById(Long userId, Long bookingId);
 
@@ -1,16 +1,29 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.base.pagination.SortedPages;
 import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+import ru.practicum.shareit.base.version.VersionEtag;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.BookingCreationException;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.archive.BookingHistory;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto.Outcome;
+import ru.practicum.shareit.booking.dto.BookingStatusRow;
 import ru.practicum.shareit.booking.exception.BookingStatusException;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.ApprovedState;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.BookingMapper;
@@ -21,14 +34,21 @@ import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.exception.ItemUnavailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -37,23 +57,47 @@ import java.util.stream.Collectors;
 @Service
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
+    /**
+     * Порядок страниц после курсора при слиянии с архивом: как в AFTER_CURSOR, start DESC, id DESC
+     */
+    private static final Comparator<BookingRow> NEWEST_FIRST = Comparator.comparing(BookingRow::getStart)
+                                                                          .thenComparing(BookingRow::getId)
+                                                                          .reversed();
+
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final BookingHistory bookingHistory;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingSummaries itemBookingSummaries;
 
     public BookingServiceImpl(BookingRepository bookingRepository,
+                              BookingArchiveRepository bookingArchiveRepository,
+                              BookingHistory bookingHistory,
                               ItemRepository itemRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              BookingIntervalIndex bookingIntervalIndex,
+                              ItemBookingSummaries itemBookingSummaries) {
         this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.bookingHistory = bookingHistory;
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemBookingSummaries = itemBookingSummaries;
     }
 
+    /**
+     * Строка вещи блокируется до конца транзакции и пересечение проверяется в БД: бронирования одной вещи
+     * не пересекаются и при нескольких экземплярах server. Интервальный индекс получает бронирование после
+     * фиксации и служит только для чтения занятости
+     */
     @Override
     @Transactional
     public BookingSendingDto add(Long bookerId, BookingReceivingDto bookingDto) {
         User booker = findUserByIdOrThrow(bookerId);
-        Optional<Item> item = itemRepository.findById(bookingDto.getItemId());
+        Optional<Item> item = itemRepository.findWithLockById(bookingDto.getItemId());
         if (item.isEmpty()) {
             throw new ItemNotFoundException(String.format("Item with id=%d is not found",
                     bookingDto.getItemId()));
@@ -64,18 +108,30 @@ public class BookingServiceImpl implements BookingService {
         if (!item.get().getAvailable()) {
             throw new ItemUnavailableException(String.format("Item with id=%d is unavailable", item.get().getId()));
         }
+        if (bookingRepository.existsOverlapping(item.get().getId(), BookingIntervalIndex.BLOCKING_STATUSES,
+                bookingDto.getStart(), bookingDto.getEnd())) {
+            throw new BookingConflictException(String.format("Item with id=%d is already booked for the period " +
+                    "%s - %s", item.get().getId(), bookingDto.getStart(), bookingDto.getEnd()));
+        }
         Booking newBooking = BookingMapper.toBooking(bookingDto);
         newBooking.setBooker(booker);
         newBooking.setItem(item.get());
         newBooking.setStatus(BookingStatus.WAITING);
-        return BookingMapper.toSendingDto(bookingRepository.save(newBooking));
+        Booking saved = bookingRepository.save(newBooking);
+        bookingIntervalIndex.add(item.get().getId(), saved.getId(), saved.getStart(), saved.getEnd());
+        return BookingMapper.toSendingDto(saved);
     }
 
+    /**
+     * Изменение сбрасывается в БД сразу: ответ получает новую версию, а проигравшая гонку транзакция -
+     * OptimisticLockingFailureException до обновления индекса. Подтверждение сразу предлагается в сводку вещи
+     */
     @Override
     @Transactional
-    public BookingSendingDto handleStatus(Long userId, Long bookingId, ApprovedState approved) {
+    public BookingSendingDto handleStatus(Long userId, Long bookingId, ApprovedState approved,
+                                          Long expectedVersion) {
         findUserByIdOrThrow(userId);
-        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        Optional<Booking> booking = bookingRepository.findWithItemAndBookerById(bookingId);
         if (booking.isEmpty()) {
             throw new BookingNotFoundException(String.format("Booking with id=%d is not found", bookingId));
         }
@@ -83,121 +139,340 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingStatusException("Can't change status for non-WAITING booking");
         }
         Long itemId = booking.get().getItem().getId();
-        Optional<Item> item = itemRepository.findById(itemId);
-        Long ownerId = item.get().getOwner().getId();
+        Long ownerId = booking.get().getItem().getOwner().getId();
         if (!userId.equals(ownerId)) {
             throw new InvalidItemOwnerException(String.format("User id=%d and owner id=%d is not the same!",
                     userId, ownerId));
         }
-        BookingStatus status;
-        switch (approved) {
-            case TRUE:
-                status = BookingStatus.APPROVED;
-                break;
-            case FALSE:
-                status = BookingStatus.REJECTED;
-                break;
-            default:
-                throw new IllegalRequestStateException(String.format("Status=%s can be only 'true' or 'false'",
-                        approved));
-        }
+        VersionEtag.checkVersion("Booking", bookingId, expectedVersion, booking.get().getVersion());
+        BookingStatus status = toStatus(approved);
         booking.get().setStatus(status);
+        bookingRepository.flush();
+        bookingIntervalIndex.updateStatus(itemId, bookingId, booking.get().getStart(), status);
+        if (status == BookingStatus.APPROVED) {
+            itemBookingSummaries.approved(itemId, bookingId, booking.get().getBooker().getId(),
+                    booking.get().getStart(), booking.get().getEnd());
+        }
         return BookingMapper.toSendingDto(booking.get());
     }
 
+    /**
+     * Владелец и статус проверяются одним запросом по всему набору, статус меняется одним UPDATE.
+     * Бронирования, статус которых изменился между проверкой и UPDATE, получают NOT_WAITING
+     */
+    @Override
+    @Transactional
+    public List<BookingStatusResultDto> handleStatuses(Long userId, List<Long> bookingIds, ApprovedState approved) {
+        findUserByIdOrThrow(userId);
+        BookingStatus status = toStatus(approved);
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        Map<Long, BookingStatusRow> rows = bookingRepository.findStatusRowsByIdIn(ids)
+                                                            .stream()
+                                                            .collect(Collectors.toMap(BookingStatusRow::getId,
+                                                                    Function.identity()));
+        Map<Long, BookingStatusResultDto> results = new LinkedHashMap<>();
+        List<Long> waiting = new ArrayList<>();
+        for (Long id : ids) {
+            BookingStatusRow row = rows.get(id);
+            if (row == null) {
+                results.put(id, new BookingStatusResultDto(id, Outcome.NOT_FOUND, null, null));
+            } else if (!userId.equals(row.getOwnerId())) {
+                results.put(id, new BookingStatusResultDto(id, Outcome.NOT_OWNER, null, null));
+            } else if (row.getStatus() != BookingStatus.WAITING) {
+                results.put(id, new BookingStatusResultDto(id, Outcome.NOT_WAITING, row.getItemId(),
+                        row.getStatus()));
+            } else {
+                results.put(id, new BookingStatusResultDto(id, Outcome.UPDATED, row.getItemId(), status));
+                waiting.add(id);
+            }
+        }
+        if (waiting.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+        int updated = bookingRepository.updateStatusByIdIn(waiting, BookingStatus.WAITING, status);
+        if (updated < waiting.size()) {
+            for (BookingStatusRow row : bookingRepository.findStatusRowsByIdIn(waiting)) {
+                if (row.getStatus() != status) {
+                    results.put(row.getId(), new BookingStatusResultDto(row.getId(), Outcome.NOT_WAITING,
+                            row.getItemId(), row.getStatus()));
+                }
+            }
+        }
+        for (Long id : waiting) {
+            if (results.get(id).getOutcome() == Outcome.UPDATED) {
+                BookingStatusRow row = rows.get(id);
+                bookingIntervalIndex.updateStatus(row.getItemId(), id, row.getStart(), status);
+                if (status == BookingStatus.APPROVED) {
+                    itemBookingSummaries.approved(row.getItemId(), id, row.getBookerId(), row.getStart(),
+                            row.getEnd());
+                }
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Пакет выбирается по (status, start_time) и меняется тем же UPDATE с условием status = WAITING, что и в
+     * handleStatuses: бронирование, подтвержденное владельцем или уже истекшее на другом узле, не изменяется.
+     * Истекшие бронирования удаляются после фиксации из загруженных на этом узле индексов вещей, остальные
+     * загрузятся из БД уже без них. Индексы других узлов увидят истечение при перезагрузке дерева из БД
+     * (shareit.booking.index.refresh)
+     */
+    @Override
+    @Transactional
+    public int expireWaiting(LocalDateTime cutoff, int limit) {
+        List<BookingStatusRow> rows = bookingRepository.findStatusRowsByStatusAndStartBefore(BookingStatus.WAITING,
+                cutoff, PageRequest.of(0, limit));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream()
+                             .map(BookingStatusRow::getId)
+                             .collect(Collectors.toList());
+        int updated = bookingRepository.updateStatusByIdIn(ids, BookingStatus.WAITING, BookingStatus.EXPIRED);
+        if (updated < ids.size()) {
+            rows = bookingRepository.findStatusRowsByIdIn(ids)
+                                    .stream()
+                                    .filter(row -> row.getStatus() == BookingStatus.EXPIRED)
+                                    .collect(Collectors.toList());
+        }
+        for (BookingStatusRow row : rows) {
+            bookingIntervalIndex.remove(row.getItemId(), row.getId(), row.getStart());
+        }
+        return updated;
+    }
+
+    /**
+     * Пакет выбирается с блокировкой строк, копируется в bookings_archive одним INSERT ... SELECT и удаляется
+     * одним DELETE в той же транзакции. Из загруженных индексов вещей бронирования удаляются после фиксации
+     */
+    @Override
+    @Transactional
+    public int archiveEnded(LocalDateTime cutoff, int limit) {
+        List<Booking> ended = bookingRepository.findEndedBefore(cutoff, PageRequest.of(0, limit));
+        if (ended.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = ended.stream()
+                              .map(Booking::getId)
+                              .collect(Collectors.toList());
+        for (Booking booking : ended) {
+            bookingIntervalIndex.remove(booking.getItem().getId(), booking.getId(), booking.getStart());
+        }
+        bookingArchiveRepository.copyFromBookings(ids);
+        return bookingRepository.deleteByIdIn(ids);
+    }
+
+    /**
+     * Бронирования нет в bookings - ищется в архиве
+     */
     @Override
     public BookingSendingDto findById(Long userId, Long bookingId) {
         findUserByIdOrThrow(userId);
-        Optional<Booking> booking = bookingRepository.findById(bookingId);
+        Optional<Booking> booking = bookingRepository.findWithItemAndBookerById(bookingId)
+                                                     .or(() -> bookingArchiveRepository
+                                                             .findWithItemAndBookerById(bookingId)
+                                                             .map(ArchivedBooking::toBooking));
         if (booking.isEmpty()) {
             throw new BookingNotFoundException(String.format("Booking with id=%d is not found", bookingId));
         }
         if (!userId.equals(booking.get().getBooker().getId())) {
-            Optional<Item> item = itemRepository.findById(booking.get().getItem().getId());
-            if (!userId.equals(item.get().getOwner().getId())) {
+            Long ownerId = booking.get().getItem().getOwner().getId();
+            if (!userId.equals(ownerId)) {
                 throw new InvalidItemOwnerException(String.format("User id=%d must be equal to owner id=%d " +
                                 "or booker id=%d",
-                        userId, item.get().getOwner().getId(), booking.get().getBooker().getId()));
+                        userId, ownerId, booking.get().getBooker().getId()));
             }
         }
         return BookingMapper.toSendingDto(booking.get());
     }
 
+    /**
+     * CURRENT, FUTURE и WAITING читаются только из bookings. ALL, PAST и REJECTED - из bookings и архива:
+     * страница по смещению - одним запросом BookingHistory, страницы после курсора сливаются в порядке
+     * start DESC, id DESC
+     */
     @Override
     public List<BookingSendingDto> findByBookerIdAndStatus(Long bookerId, BookingRequestState state,
                                                            PaginationRequest paginationRequest) {
         findUserByIdOrThrow(bookerId);
+        if (paginationRequest.isCursorBased()) {
+            return toDtos(findBookerPageAfter(bookerId, state, paginationRequest));
+        }
         Pageable pageable = paginationRequest.makePaginationByFieldDesc("start");
-        List<Booking> resultBookings = null;
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingRow> resultBookings = null;
         switch (state) {
             case ALL:
-                resultBookings = bookingRepository.findAllByBookerId(bookerId, pageable);
+                resultBookings = bookingHistory.findByBooker(bookerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case WAITING:
                 resultBookings = bookingRepository.findAllByBookerIdAndStatus(bookerId, BookingStatus.WAITING,
                         pageable);
                 break;
             case REJECTED:
-                resultBookings = bookingRepository.findAllByBookerIdAndStatus(bookerId, BookingStatus.REJECTED,
-                        pageable);
+                resultBookings = bookingHistory.findByBooker(bookerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case CURRENT:
-                resultBookings = bookingRepository.findAllByBookerWhereTimeIsInside(bookerId, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingRepository.findAllByBookerWhereTimeIsInside(bookerId, now, pageable);
                 break;
             case PAST:
-                resultBookings = bookingRepository.findAllByBookerIdAndEndBefore(bookerId, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingHistory.findByBooker(bookerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case FUTURE:
-                resultBookings = bookingRepository.findAllByBookerIdAndStartAfter(bookerId, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingRepository.findAllByBookerIdAndStartAfter(bookerId, now, pageable);
                 break;
         }
-        return resultBookings.stream()
-                             .map(BookingMapper::toSendingDto)
-                             .sorted(Comparator.comparing(BookingSendingDto::getStart).reversed())
-                             .collect(Collectors.toList());
+        return toDtos(resultBookings);
     }
 
+    /**
+     * Источники те же, что и в findByBookerIdAndStatus
+     */
     @Override
     public List<BookingSendingDto> findByOwnerIdAndStatus(Long ownerId, BookingRequestState state,
                                                           PaginationRequest paginationRequest) {
         findUserByIdOrThrow(ownerId);
-        List<Long> itemIds = itemRepository.findAllByOwnerId(ownerId)
-                                           .stream()
-                                           .map(Item::getId)
-                                           .collect(Collectors.toList());
+        if (paginationRequest.isCursorBased()) {
+            return toDtos(findOwnerPageAfter(ownerId, state, paginationRequest));
+        }
         Pageable pageable = paginationRequest.makePaginationByFieldDesc("start");
-        List<Booking> resultBookings = null;
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingRow> resultBookings = null;
         switch (state) {
             case ALL:
-                resultBookings = bookingRepository.findAllByItemIdIn(itemIds, pageable);
+                resultBookings = bookingHistory.findByOwner(ownerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case WAITING:
-                resultBookings = bookingRepository.findAllByItemIdInAndStatus(itemIds, BookingStatus.WAITING, pageable);
+                resultBookings = bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable);
                 break;
             case REJECTED:
-                resultBookings = bookingRepository.findAllByItemIdInAndStatus(itemIds, BookingStatus.REJECTED,
-                        pageable);
+                resultBookings = bookingHistory.findByOwner(ownerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case CURRENT:
-                resultBookings = bookingRepository.findAllByItemIdInWhereTimeIsInside(itemIds, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingRepository.findAllByOwnerWhereTimeIsInside(ownerId, now, pageable);
                 break;
             case PAST:
-                resultBookings = bookingRepository.findAllByItemIdInAndEndBefore(itemIds, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingHistory.findByOwner(ownerId, state, now, paginationRequest.getFrom(),
+                        paginationRequest.getSize());
                 break;
             case FUTURE:
-                resultBookings = bookingRepository.findAllByItemIdInAndStartAfter(itemIds, LocalDateTime.now(),
-                        pageable);
+                resultBookings = bookingRepository.findAllByOwnerIdAndStartAfter(ownerId, now, pageable);
                 break;
         }
-        return resultBookings.stream()
-                             .map(BookingMapper::toSendingDto)
-                             .sorted(Comparator.comparing(BookingSendingDto::getStart).reversed())
-                             .collect(Collectors.toList());
+        return toDtos(resultBookings);
+    }
+
+    /**
+     * Страница бронирований пользователя после курсора (start, id)
+     */
+    private List<BookingRow> findBookerPageAfter(Long bookerId, BookingRequestState state,
+                                                 PaginationRequest paginationRequest) {
+        PageCursor cursor = paginationRequest.getCursor();
+        Pageable pageable = paginationRequest.makeCursorPagination();
+        LocalDateTime now = LocalDateTime.now();
+        switch (state) {
+            case WAITING:
+                return bookingRepository.findPageByBookerIdAndStatusAfter(bookerId, BookingStatus.WAITING,
+                        cursor.requireTime(), cursor.getId(), pageable);
+            case REJECTED:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPageByBookerIdAndStatusAfter(bookerId, BookingStatus.REJECTED,
+                                cursor.requireTime(), cursor.getId(), pageable),
+                        bookingArchiveRepository.findPageByBookerIdAndStatusAfter(bookerId, BookingStatus.REJECTED,
+                                cursor.requireTime(), cursor.getId(), pageable));
+            case CURRENT:
+                return bookingRepository.findCurrentPageByBookerIdAfter(bookerId, now, cursor.requireTime(),
+                        cursor.getId(), pageable);
+            case PAST:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPastPageByBookerIdAfter(bookerId, now, cursor.requireTime(),
+                                cursor.getId(), pageable),
+                        bookingArchiveRepository.findPageByBookerIdAfter(bookerId, cursor.requireTime(),
+                                cursor.getId(), pageable));
+            case FUTURE:
+                return bookingRepository.findFuturePageByBookerIdAfter(bookerId, now, cursor.requireTime(),
+                        cursor.getId(), pageable);
+            default:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPageByBookerIdAfter(bookerId, cursor.requireTime(), cursor.getId(),
+                                pageable),
+                        bookingArchiveRepository.findPageByBookerIdAfter(bookerId, cursor.requireTime(),
+                                cursor.getId(), pageable));
+        }
+    }
+
+    /**
+     * Страница бронирований вещей владельца после курсора (start, id)
+     */
+    private List<BookingRow> findOwnerPageAfter(Long ownerId, BookingRequestState state,
+                                                PaginationRequest paginationRequest) {
+        PageCursor cursor = paginationRequest.getCursor();
+        Pageable pageable = paginationRequest.makeCursorPagination();
+        LocalDateTime now = LocalDateTime.now();
+        switch (state) {
+            case WAITING:
+                return bookingRepository.findPageByOwnerIdAndStatusAfter(ownerId, BookingStatus.WAITING,
+                        cursor.requireTime(), cursor.getId(), pageable);
+            case REJECTED:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPageByOwnerIdAndStatusAfter(ownerId, BookingStatus.REJECTED,
+                                cursor.requireTime(), cursor.getId(), pageable),
+                        bookingArchiveRepository.findPageByOwnerIdAndStatusAfter(ownerId, BookingStatus.REJECTED,
+                                cursor.requireTime(), cursor.getId(), pageable));
+            case CURRENT:
+                return bookingRepository.findCurrentPageByOwnerIdAfter(ownerId, now, cursor.requireTime(),
+                        cursor.getId(), pageable);
+            case PAST:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPastPageByOwnerIdAfter(ownerId, now, cursor.requireTime(),
+                                cursor.getId(), pageable),
+                        bookingArchiveRepository.findPageByOwnerIdAfter(ownerId, cursor.requireTime(),
+                                cursor.getId(), pageable));
+            case FUTURE:
+                return bookingRepository.findFuturePageByOwnerIdAfter(ownerId, now, cursor.requireTime(),
+                        cursor.getId(), pageable);
+            default:
+                return mergePages(paginationRequest,
+                        bookingRepository.findPageByOwnerIdAfter(ownerId, cursor.requireTime(), cursor.getId(),
+                                pageable),
+                        bookingArchiveRepository.findPageByOwnerIdAfter(ownerId, cursor.requireTime(),
+                                cursor.getId(), pageable));
+        }
+    }
+
+    /**
+     * Страница после курсора из bookings и архива: каждая таблица отдает size строк после курсора
+     */
+    private static List<BookingRow> mergePages(PaginationRequest paginationRequest, List<BookingRow> hot,
+                                               List<BookingRow> archived) {
+        return SortedPages.merge(List.of(hot, archived), NEWEST_FIRST, paginationRequest.getSize());
+    }
+
+    /**
+     * Страница уже упорядочена в БД по start DESC, повторная сортировка не нужна
+     */
+    private static List<BookingSendingDto> toDtos(List<BookingRow> rows) {
+        return rows.stream()
+                   .map(BookingMapper::toSendingDto)
+                   .collect(Collectors.toList());
+    }
+
+    private static BookingStatus toStatus(ApprovedState approved) {
+        switch (approved) {
+            case TRUE:
+                return BookingStatus.APPROVED;
+            case FALSE:
+                return BookingStatus.REJECTED;
+            default:
+                throw new IllegalRequestStateException(String.format("Status=%s can be only 'true' or 'false'",
+                        approved));
+        }
     }
 
     private User findUserByIdOrThrow(Long userId) {
@@ -1,12 +1,18 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.base.version.VersionEtag;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.service.ItemService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,6 +23,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -39,16 +46,17 @@ public class ItemController {
      *
      * @param userId  id пользователя
      * @param itemDto DTO вещи
-     * @return DTO созданной вещи
+     * @return DTO созданной вещи, ETag - версия
      */
     @PostMapping
-    public ItemDto add(@RequestHeader(name = "X-Sharer-User-Id") Long userId, @RequestBody ItemDto itemDto) {
+    public ResponseEntity<ItemDto> add(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                       @RequestBody ItemDto itemDto) {
         log.info("Request to add new item with ownerId={} and item: {}", userId, itemDto);
         ItemDto returnedItem = itemService.add(userId, itemDto);
         if (returnedItem != null) {
             log.info("Successfully added new item with ownerId={}", userId);
         }
-        return returnedItem;
+        return VersionEtag.ok(returnedItem, returnedItem == null ? null : returnedItem.getVersion());
     }
 
     /**
@@ -57,17 +65,21 @@ public class ItemController {
      * @param userId  id пользователя
      * @param itemId  id вещи
      * @param itemDto DTO вещи
-     * @return DTO обновленной вещи
+     * @param ifMatch ETag вещи из ответа POST/PATCH, при несовпадении версии - 409
+     * @return DTO обновленной вещи, ETag - новая версия
      */
     @PatchMapping("/{itemId}")
-    public ItemDto update(@RequestHeader(name = "X-Sharer-User-Id") Long userId, @PathVariable Long itemId,
-                          @RequestBody ItemDto itemDto) {
+    public ResponseEntity<ItemDto> update(@RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                          @PathVariable Long itemId,
+                                          @RequestBody ItemDto itemDto,
+                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                          String ifMatch) {
         log.info("Request to update item with ownerId={} and itemId={}", userId, itemId);
-        ItemDto returnedItem = itemService.update(userId, itemId, itemDto);
+        ItemDto returnedItem = itemService.update(userId, itemId, itemDto, VersionEtag.parseIfMatch(ifMatch));
         if (returnedItem != null) {
             log.info("Successfully updated item with ownerId={} and itemId={}", userId, itemId);
         }
-        return returnedItem;
+        return VersionEtag.ok(returnedItem, returnedItem == null ? null : returnedItem.getVersion());
     }
 
     /**
@@ -93,17 +105,20 @@ public class ItemController {
      * @param ownerId id пользователя
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return Список DTO вещей
      */
     @GetMapping
-    public List<ItemDtoWithBookings> getAllByOwnerId(@RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
-                                                     @RequestParam(defaultValue = "0") Integer from,
-                                                     @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<ItemDtoWithBookings>> getAllByOwnerId(
+            @RequestHeader(name = "X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
         log.info("Request to get all items by ownerId={}", ownerId);
-        PaginationRequest paginationRequest = new PaginationRequest(from, size);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
         List<ItemDtoWithBookings> items = itemService.findAllByOwnerId(ownerId, paginationRequest);
         log.info("Successfully get all items by ownerId={}", ownerId);
-        return items;
+        return PageCursor.toResponse(items, size, item -> PageCursor.ofId(item.getId()));
     }
 
     /**
@@ -112,17 +127,19 @@ public class ItemController {
      * @param text строка поиска
      * @param from начальный индекс для пагинации
      * @param size размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return Список DTO вещей
      */
     @GetMapping("/search")
-    public List<ItemDto> searchBy(@RequestParam String text,
-                                  @RequestParam(defaultValue = "0") Integer from,
-                                  @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<ItemDto>> searchBy(@RequestParam String text,
+                                                  @RequestParam(defaultValue = "0") Integer from,
+                                                  @RequestParam(defaultValue = "10") Integer size,
+                                                  @RequestParam(required = false) String cursor) {
         log.info("Request to get all available items by text={}", text);
-        PaginationRequest paginationRequest = new PaginationRequest(from, size);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
         List<ItemDto> items = itemService.searchAvailableBy(text, paginationRequest);
         log.info("Successfully got all available items by text={}", text);
-        return items;
+        return PageCursor.toResponse(items, size, item -> PageCursor.ofId(item.getId()));
     }
 
     /**
@@ -142,4 +159,43 @@ public class ItemController {
         log.info("Successfully added comment to item with id = {} from user with id = {}", itemId, userId);
         return result;
     }
+
+    /**
+     * Комментарии вещи, новые первыми. В DTO вещи встраиваются только последние из них
+     *
+     * @param itemId id вещи
+     * @param from   начальный индекс для пагинации
+     * @param size   размер страницы для пагинации
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
+     * @return Список DTO комментариев
+     */
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable Long itemId,
+                                                        @RequestParam(defaultValue = "0") Integer from,
+                                                        @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor) {
+        log.info("Request to get comments of item with id={}", itemId);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
+        List<CommentDto> comments = itemService.findComments(itemId, paginationRequest);
+        log.info("Successfully got comments of item with id={}", itemId);
+        return PageCursor.toResponse(comments, size, comment -> PageCursor.ofId(comment.getId()));
+    }
+
+    /**
+     * Свободные периоды вещи в окне [from, to)
+     *
+     * @param itemId id вещи
+     * @param from   начало окна
+     * @param to     конец окна
+     * @return DTO свободных периодов
+     */
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        log.info("Request to get availability of item with id={} from {} to {}", itemId, from, to);
+        return itemService.findAvailability(itemId, from, to);
+    }
 }
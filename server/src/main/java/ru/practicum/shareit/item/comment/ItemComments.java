@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.comment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Комментарии, встраиваемые в DTO вещей: не больше embedded-limit последних комментариев на вещь, остальные -
+ * через GET /items/{id}/comments. Комментарии всей страницы вещей читаются одним запросом с ROW_NUMBER()
+ * по item_id вместе с именами авторов, вместо ленивой загрузки Item.comments для каждой вещи
+ */
+@Component
+public class ItemComments {
+    private static final String LATEST = "SELECT r.item_id, r.id, r.text, u.username AS author_name, r.created " +
+            "FROM (SELECT c.id, c.item_id, c.author_id, c.text, c.created, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.id DESC) AS rn " +
+            "FROM comments AS c WHERE c.item_id IN (:itemIds)) AS r " +
+            "JOIN users AS u ON u.id = r.author_id " +
+            "WHERE r.rn <= :limit " +
+            "ORDER BY r.item_id, r.id DESC";
+
+    private final EntityManager entityManager;
+    private final int embeddedLimit;
+
+    public ItemComments(EntityManager entityManager,
+                        @Value("${shareit.item.comments.embedded-limit:10}") int embeddedLimit) {
+        this.entityManager = entityManager;
+        this.embeddedLimit = embeddedLimit;
+    }
+
+    public List<ItemDto.ItemComment> findLatest(Long itemId) {
+        return findLatest(List.of(itemId)).getOrDefault(itemId, List.of());
+    }
+
+    /**
+     * Последние комментарии вещей, новые первыми. Вещи без комментариев в результат не входят
+     */
+    public Map<Long, List<ItemDto.ItemComment>> findLatest(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        List<?> rows = entityManager.createNativeQuery(LATEST, Comment.ITEM_COMMENT_ROW)
+                                    .setParameter("itemIds", itemIds)
+                                    .setParameter("limit", embeddedLimit)
+                                    .getResultList();
+        return rows.stream()
+                   .map(Object[].class::cast)
+                   .collect(Collectors.groupingBy(row -> (Long) row[0],
+                           Collectors.mapping(row -> new ItemDto.ItemComment((Long) row[1], (String) row[2],
+                                   (String) row[3], (LocalDateTime) row[4]), Collectors.toList())));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO свободных периодов вещи в заданном окне
+ */
+@Data
+@Builder
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeSlot> freeSlots;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Builder
+    public static class TimeSlot {
+        private LocalDateTime start;
+        private LocalDateTime end;
+    }
+}
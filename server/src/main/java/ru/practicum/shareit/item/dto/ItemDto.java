@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,6 +29,12 @@ public class ItemDto {
     @Builder.Default
     private List<ItemComment> comments = new ArrayList<>();
     private Long requestId;
+    /**
+     * Версия сущности, передается в заголовке ETag
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
 
     @Getter
     @Setter
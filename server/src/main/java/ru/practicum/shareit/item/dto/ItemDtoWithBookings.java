@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,13 +39,29 @@ public class ItemDtoWithBookings extends ItemDto {
                                .bookerId(booking.getBooker().getId())
                                .build();
         }
+
+        public static BookingShort toLastBooking(ItemBookingSummary summary) {
+            if (summary.getLastBookingId() == null) {
+                return null;
+            }
+            return new BookingShort(summary.getLastBookingId(), summary.getLastStart(), summary.getLastEnd(),
+                    summary.getLastBookerId());
+        }
+
+        public static BookingShort toNextBooking(ItemBookingSummary summary) {
+            if (summary.getNextBookingId() == null) {
+                return null;
+            }
+            return new BookingShort(summary.getNextBookingId(), summary.getNextStart(), summary.getNextEnd(),
+                    summary.getNextBookerId());
+        }
     }
 
     @Builder(builderMethodName = "builderWithBookings")
     public ItemDtoWithBookings(Long id, String name, String description, Boolean available,
                                List<ItemDto.ItemComment> comments, BookingShort lastBooking,
-                               BookingShort nextBooking, Long requestId) {
-        super(id, name, description, available, comments, requestId);
+                               BookingShort nextBooking, Long requestId, Long version) {
+        super(id, name, description, available, comments, requestId, version);
         this.lastBooking = lastBooking;
         this.nextBooking = nextBooking;
     }
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.exception;
+
+public class ItemSearchUnavailableException extends RuntimeException {
+    public ItemSearchUnavailableException(final String message) {
+        super(message);
+    }
+}
@@ -7,7 +7,6 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Маппер Item - ItemDto
@@ -24,10 +23,10 @@ public class ItemMapper {
                    .build();
     }
 
-    public static ItemDto toDto(Item item) {
-        List<ItemDto.ItemComment> comments = item.getComments().stream()
-                                                 .map(ItemDto.ItemComment::toItemComment)
-                                                 .collect(Collectors.toList());
+    /**
+     * Комментарии передаются отдельно, Item.comments не загружается
+     */
+    public static ItemDto toDto(Item item, List<ItemDto.ItemComment> comments) {
         return ItemDto.builder()
                       .id(item.getId())
                       .name(item.getName())
@@ -35,14 +34,16 @@ public class ItemMapper {
                       .available(item.getAvailable())
                       .comments(comments)
                       .requestId(item.getRequest() == null ? null : item.getRequest().getId())
+                      .version(item.getVersion())
                       .build();
     }
 
-    public static ItemDtoWithBookings toDtoWithBookings(Item item, ItemDtoWithBookings.BookingShort lastBooking,
+    /**
+     * Комментарии передаются отдельно, Item.comments не загружается
+     */
+    public static ItemDtoWithBookings toDtoWithBookings(Item item, List<ItemDto.ItemComment> comments,
+                                                        ItemDtoWithBookings.BookingShort lastBooking,
                                                         ItemDtoWithBookings.BookingShort nextBooking) {
-        List<ItemDto.ItemComment> comments = item.getComments().stream()
-                                                 .map(ItemDto.ItemComment::toItemComment)
-                                                 .collect(Collectors.toList());
         return ItemDtoWithBookings.builderWithBookings()
                                   .id(item.getId())
                                   .name(item.getName())
@@ -52,6 +53,7 @@ public class ItemMapper {
                                   .lastBooking(lastBooking)
                                   .nextBooking(nextBooking)
                                   .requestId(item.getRequest() == null ? null : item.getRequest().getId())
+                                  .version(item.getVersion())
                                   .build();
     }
 }
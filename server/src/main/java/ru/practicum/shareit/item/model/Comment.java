@@ -9,17 +9,21 @@ import lombok.Setter;
 import ru.practicum.shareit.user.User;
 
 import javax.persistence.Column;
+import javax.persistence.ColumnResult;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SqlResultSetMapping;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 /**
- * Класс комментариев для работы с БД
+ * Класс комментариев для работы с БД.
+ * ITEM_COMMENT_ROW - строка нативного запроса последних комментариев: item_id и поля ItemDto.ItemComment
  */
 @Getter
 @Setter
@@ -29,7 +33,15 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode
 @Entity
 @Table(name = "comments")
+@SqlResultSetMapping(name = Comment.ITEM_COMMENT_ROW, columns = {
+        @ColumnResult(name = "item_id", type = Long.class),
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "text", type = String.class),
+        @ColumnResult(name = "author_name", type = String.class),
+        @ColumnResult(name = "created", type = LocalDateTime.class)})
 public class Comment {
+    public static final String ITEM_COMMENT_ROW = "ItemCommentRow";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -37,10 +49,10 @@ public class Comment {
     private String text;
     @Column(name = "created")
     private LocalDateTime created;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
     private Item item;
 }
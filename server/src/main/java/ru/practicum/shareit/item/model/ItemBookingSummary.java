@@ -0,0 +1,89 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.*;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.Column;
+import javax.persistence.ColumnResult;
+import javax.persistence.ConstructorResult;
+import javax.persistence.Entity;
+import javax.persistence.EntityResult;
+import javax.persistence.Id;
+import javax.persistence.SqlResultSetMapping;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Сводка бронирований вещи: последнее и следующее подтвержденные бронирования. Поля бронирований хранятся
+ * в строке, поэтому сводка не зависит от переноса бронирований в архив.
+ * refreshed - время последнего полного пересчета, null - сводка еще не рассчитана.
+ * ITEM_WITH_SUMMARY - строка нативного запроса: вещь и несохраняемая сводка, рассчитанная тем же запросом
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Entity
+@Table(name = "item_booking_summary")
+@SqlResultSetMapping(name = ItemBookingSummary.ITEM_WITH_SUMMARY,
+        entities = @EntityResult(entityClass = Item.class),
+        classes = @ConstructorResult(targetClass = ItemBookingSummary.class, columns = {
+                @ColumnResult(name = "item_id", type = Long.class),
+                @ColumnResult(name = "last_booking_id", type = Long.class),
+                @ColumnResult(name = "last_booker_id", type = Long.class),
+                @ColumnResult(name = "last_start", type = LocalDateTime.class),
+                @ColumnResult(name = "last_end", type = LocalDateTime.class),
+                @ColumnResult(name = "next_booking_id", type = Long.class),
+                @ColumnResult(name = "next_booker_id", type = Long.class),
+                @ColumnResult(name = "next_start", type = LocalDateTime.class),
+                @ColumnResult(name = "next_end", type = LocalDateTime.class),
+                @ColumnResult(name = "refreshed", type = LocalDateTime.class)}))
+public class ItemBookingSummary {
+    public static final String ITEM_WITH_SUMMARY = "ItemWithSummary";
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+    @Column(name = "last_start")
+    private LocalDateTime lastStart;
+    @Column(name = "last_end")
+    private LocalDateTime lastEnd;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+    @Column(name = "next_start")
+    private LocalDateTime nextStart;
+    @Column(name = "next_end")
+    private LocalDateTime nextEnd;
+    @Column(name = "refreshed")
+    private LocalDateTime refreshed;
+
+    /**
+     * Сводка рассчитана и начало следующего бронирования еще не наступило. Иначе следующее бронирование уже
+     * должно быть последним, но roll еще не перенес его, и сводку нужно вычислить заново
+     */
+    public boolean isFreshAt(LocalDateTime now) {
+        return refreshed != null && (nextStart == null || nextStart.isAfter(now));
+    }
+
+    public void setLast(Booking booking) {
+        lastBookingId = booking == null ? null : booking.getId();
+        lastBookerId = booking == null ? null : booking.getBooker().getId();
+        lastStart = booking == null ? null : booking.getStart();
+        lastEnd = booking == null ? null : booking.getEnd();
+    }
+
+    public void setNext(Booking booking) {
+        nextBookingId = booking == null ? null : booking.getId();
+        nextBookerId = booking == null ? null : booking.getBooker().getId();
+        nextStart = booking == null ? null : booking.getStart();
+        nextEnd = booking == null ? null : booking.getEnd();
+    }
+}
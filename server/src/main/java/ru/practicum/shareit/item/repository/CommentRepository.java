@@ -1,10 +1,24 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.List;
+
 /**
  * Интерфейс-репозиторий для комментариев
  */
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @Query("SELECT c FROM Comment AS c JOIN FETCH c.author WHERE c.item.id = :itemId")
+    List<Comment> findAllByItemId(@Param("itemId") Long itemId, Pageable pageable);
+
+    /**
+     * Keyset-пагинация: страница после курсора id в порядке id DESC
+     */
+    @Query("SELECT c FROM Comment AS c JOIN FETCH c.author WHERE c.item.id = :itemId AND c.id < :id " +
+            "ORDER BY c.id DESC")
+    List<Comment> findAllByItemIdAfter(@Param("itemId") Long itemId, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий сводок бронирований вещей
+ */
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+    /**
+     * Подтвержденное бронирование становится следующим, если начинается раньше текущего следующего.
+     * Условие проверяется в самом UPDATE, поэтому одновременные подтверждения не затирают друг друга
+     *
+     * @return 1, если сводка изменилась
+     */
+    @Modifying
+    @Query("UPDATE ItemBookingSummary AS s SET s.nextBookingId = :id, s.nextBookerId = :bookerId, " +
+            "s.nextStart = :start, s.nextEnd = :end " +
+            "WHERE s.itemId = :itemId AND (s.nextStart IS NULL OR s.nextStart > :start " +
+            "OR (s.nextStart = :start AND s.nextBookingId > :id))")
+    int offerNext(@Param("itemId") Long itemId, @Param("id") Long bookingId, @Param("bookerId") Long bookerId,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Подтвержденное бронирование, начало которого уже прошло, становится последним, если начинается позже
+     * текущего последнего
+     *
+     * @return 1, если сводка изменилась
+     */
+    @Modifying
+    @Query("UPDATE ItemBookingSummary AS s SET s.lastBookingId = :id, s.lastBookerId = :bookerId, " +
+            "s.lastStart = :start, s.lastEnd = :end " +
+            "WHERE s.itemId = :itemId AND (s.lastStart IS NULL OR s.lastStart < :start " +
+            "OR (s.lastStart = :start AND s.lastBookingId < :id))")
+    int offerLast(@Param("itemId") Long itemId, @Param("id") Long bookingId, @Param("bookerId") Long bookerId,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Сводки, требующие пересчета: еще не рассчитанные и со следующим бронированием, начало которого прошло
+     * (idx_item_booking_summary_next_start). Строки блокируются до конца транзакции, подтверждение бронирования
+     * той же вещи дождется пересчета
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ItemBookingSummary AS s " +
+            "WHERE s.refreshed IS NULL OR s.nextStart <= :now " +
+            "ORDER BY s.itemId")
+    List<ItemBookingSummary> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Пустые нерассчитанные сводки для вещей, у которых сводки еще нет
+     *
+     * @return число добавленных строк
+     */
+    @Modifying
+    @Query(value = "INSERT INTO item_booking_summary (item_id) " +
+            "SELECT i.id FROM items AS i " +
+            "WHERE NOT EXISTS (SELECT 1 FROM item_booking_summary AS s WHERE s.item_id = i.id)", nativeQuery = true)
+    int insertMissing();
+}
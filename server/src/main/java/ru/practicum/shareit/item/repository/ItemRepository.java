@@ -2,11 +2,16 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.IndexedItem;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс-репозиторий для вещей
@@ -14,14 +19,45 @@ import java.util.List;
 public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryWithBookings {
     List<Item> findAllByOwnerId(Long ownerId);
 
+    /**
+     * Вещь с блокировкой строки до конца транзакции: бронирования одной вещи создаются по очереди
+     * на всех экземплярах server
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT it FROM Item AS it WHERE it.id = :id")
+    Optional<Item> findWithLockById(@Param("id") Long id);
+
     List<Item> findAllByOwnerId(Long ownerId, Pageable pageable);
 
-    List<Item> findAllByRequestId(Long requestId);
+    List<Item> findAllByOwnerIdAndIdGreaterThan(Long ownerId, Long id, Pageable pageable);
+
+    /**
+     * Вещи владельца со сводкой бронирований одним запросом: строка - [Item, ItemBookingSummary или null]
+     */
+    String WITH_SUMMARY = "SELECT i, s FROM Item AS i LEFT JOIN ItemBookingSummary AS s ON s.itemId = i.id " +
+            "WHERE i.owner.id = :ownerId ";
+
+    @Query(WITH_SUMMARY)
+    List<Object[]> findAllByOwnerIdWithSummary(@Param("ownerId") Long ownerId, Pageable pageable);
 
-    @Query("SELECT new Item(it.id, it.owner, it.name, it.description, it.available) " +
+    @Query(WITH_SUMMARY + "AND i.id > :id")
+    List<Object[]> findAllByOwnerIdWithSummaryAfter(@Param("ownerId") Long ownerId, @Param("id") Long id,
+                                                    Pageable pageable);
+
+    /**
+     * Пакет вещей для построения поискового индекса: keyset по id
+     */
+    @Query("SELECT new ru.practicum.shareit.item.search.IndexedItem(it.id, it.name, it.description, it.available, " +
+            "it.version) " +
             "FROM Item AS it " +
-            "WHERE it.available=true " +
-            "AND (UPPER(it.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
-            "     OR UPPER(it.description) LIKE UPPER(CONCAT('%', :text, '%')))")
-    List<Item> searchAvailableBy(@Param(value = "text") String text, Pageable pageable);
+            "WHERE it.id > :id " +
+            "ORDER BY it.id")
+    List<IndexedItem> findIndexedAfter(@Param("id") Long id, Pageable pageable);
+
+    List<Item> findAllByRequestId(Long requestId);
+
+    /**
+     * Вещи, предложенные в ответ на страницу запросов, одним запросом
+     */
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
 }
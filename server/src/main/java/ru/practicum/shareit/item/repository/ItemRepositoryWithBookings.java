@@ -10,4 +10,6 @@ import java.util.List;
  */
 public interface ItemRepositoryWithBookings {
     List<ItemDtoWithBookings> findAllByOwnerIdWithBookings(Long ownerId, Pageable pageable);
+
+    List<ItemDtoWithBookings> findAllByOwnerIdWithBookingsAfter(Long ownerId, Long id, Pageable pageable);
 }
@@ -1,47 +1,145 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.shareit.booking.BookingRepository;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.comment.ItemComments;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Реализация кастомного интерфейса - добавление полей Booking в ItemDTO
+ * Реализация кастомного интерфейса - добавление полей Booking в ItemDTO.
+ * Пока сводки бронирований поддерживаются (shareit.item.booking-summary.enabled), страница вещей читается
+ * вместе со сводками. Иначе, как и для вещей без актуальной сводки, последнее и следующее бронирования
+ * выбираются одним нативным запросом: ROW_NUMBER() по item_id среди подтвержденных бронирований вещей страницы
  */
 public class ItemRepositoryWithBookingsImpl implements ItemRepositoryWithBookings {
+    private static final String OWNER_PAGE = "SELECT i.* FROM items AS i WHERE i.owner_id = :ownerId " +
+            "ORDER BY i.id LIMIT :limit OFFSET :offset";
+    private static final String OWNER_PAGE_AFTER = "SELECT i.* FROM items AS i " +
+            "WHERE i.owner_id = :ownerId AND i.id > :id " +
+            "ORDER BY i.id LIMIT :limit OFFSET :offset";
+    private static final String ITEMS_BY_IDS = "SELECT i.* FROM items AS i WHERE i.id IN (:ids)";
+
+    /**
+     * Последнее бронирование - самое позднее из начавшихся в bookings и bookings_archive, следующее - самое
+     * раннее из будущих в bookings. Порядок и граница now те же, что у findPastByItemId/findFutureByItemId
+     */
+    private static final String WITH_WINDOW_BOOKINGS = "WITH item_page AS (%s), " +
+            "last_bookings AS (SELECT b.item_id, b.id, b.booker_id, b.start_time, b.end_time, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_time DESC, b.id DESC) AS rn " +
+            "FROM (SELECT item_id, id, booker_id, start_time, end_time FROM bookings " +
+            "WHERE status = 'APPROVED' AND start_time < :now AND item_id IN (SELECT id FROM item_page) " +
+            "UNION ALL " +
+            "SELECT item_id, id, booker_id, start_time, end_time FROM bookings_archive " +
+            "WHERE status = 'APPROVED' AND start_time < :now AND item_id IN (SELECT id FROM item_page)) AS b), " +
+            "next_bookings AS (SELECT b.item_id, b.id, b.booker_id, b.start_time, b.end_time, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_time, b.id) AS rn " +
+            "FROM bookings AS b " +
+            "WHERE b.status = 'APPROVED' AND b.start_time > :now AND b.item_id IN (SELECT id FROM item_page)) " +
+            "SELECT p.*, p.id AS item_id, " +
+            "l.id AS last_booking_id, l.booker_id AS last_booker_id, l.start_time AS last_start, " +
+            "l.end_time AS last_end, " +
+            "n.id AS next_booking_id, n.booker_id AS next_booker_id, n.start_time AS next_start, " +
+            "n.end_time AS next_end, " +
+            ":now AS refreshed " +
+            "FROM item_page AS p " +
+            "LEFT JOIN last_bookings AS l ON l.item_id = p.id AND l.rn = 1 " +
+            "LEFT JOIN next_bookings AS n ON n.item_id = p.id AND n.rn = 1 " +
+            "ORDER BY p.id";
+
     private final ItemRepository itemRepository;
-    private final BookingRepository bookingRepository;
+    private final ItemComments itemComments;
+    private final EntityManager entityManager;
+    private final boolean summaryEnabled;
 
-    public ItemRepositoryWithBookingsImpl(@Lazy ItemRepository itemRepository,
-                                          @Lazy BookingRepository bookingRepository) {
+    public ItemRepositoryWithBookingsImpl(@Lazy ItemRepository itemRepository, @Lazy ItemComments itemComments,
+                                          EntityManager entityManager,
+                                          @Value("${shareit.item.booking-summary.enabled:true}")
+                                          boolean summaryEnabled) {
         this.itemRepository = itemRepository;
-        this.bookingRepository = bookingRepository;
+        this.itemComments = itemComments;
+        this.entityManager = entityManager;
+        this.summaryEnabled = summaryEnabled;
     }
 
     @Override
     public List<ItemDtoWithBookings> findAllByOwnerIdWithBookings(Long ownerId, Pageable pageable) {
-        List<Item> itemsByOwner = itemRepository.findAllByOwnerId(ownerId, pageable);
-        return itemsByOwner.stream()
-                           .map(item -> {
-                               List<Booking> lastBooking = bookingRepository.findPastByItemId(item.getId(),
-                                       PageRequest.of(0, 1));
-                               List<Booking> nextBooking = bookingRepository.findFutureByItemId(item.getId(),
-                                       PageRequest.of(0, 1));
-                               return ItemMapper.toDtoWithBookings(item,
-                                       lastBooking.size() != 1 ? null : ItemDtoWithBookings.BookingShort
-                                               .toBookingShort(lastBooking.get(0)),
-                                       nextBooking.size() != 1 ? null : ItemDtoWithBookings.BookingShort
-                                               .toBookingShort(nextBooking.get(0)));
-                           })
-                           .sorted(Comparator.comparing(ItemDtoWithBookings::getId))
-                           .collect(Collectors.toList());
+        if (summaryEnabled) {
+            return withBookings(itemRepository.findAllByOwnerIdWithSummary(ownerId, pageable));
+        }
+        return withBookings(withWindowBookings(OWNER_PAGE).setParameter("ownerId", ownerId)
+                                                          .setParameter("limit", pageable.getPageSize())
+                                                          .setParameter("offset", pageable.getOffset())
+                                                          .getResultList());
+    }
+
+    @Override
+    public List<ItemDtoWithBookings> findAllByOwnerIdWithBookingsAfter(Long ownerId, Long id, Pageable pageable) {
+        if (summaryEnabled) {
+            return withBookings(itemRepository.findAllByOwnerIdWithSummaryAfter(ownerId, id, pageable));
+        }
+        return withBookings(withWindowBookings(OWNER_PAGE_AFTER).setParameter("ownerId", ownerId)
+                                                                .setParameter("id", id)
+                                                                .setParameter("limit", pageable.getPageSize())
+                                                                .setParameter("offset", pageable.getOffset())
+                                                                .getResultList());
+    }
+
+    /**
+     * Сводки вещей, для которых они еще не рассчитаны или устарели (начало следующего бронирования прошло),
+     * вычисляются одним запросом на всю страницу, последние комментарии всей страницы - еще одним
+     */
+    private List<ItemDtoWithBookings> withBookings(List<?> itemsWithSummaries) {
+        List<Object[]> rows = toRows(itemsWithSummaries);
+        Map<Long, List<ItemDto.ItemComment>> comments = itemComments.findLatest(rows.stream()
+                                                                                    .map(row -> ((Item) row[0]).getId())
+                                                                                    .collect(Collectors.toList()));
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> notFresh = rows.stream()
+                                  .filter(row -> row[1] == null || !((ItemBookingSummary) row[1]).isFreshAt(now))
+                                  .map(row -> ((Item) row[0]).getId())
+                                  .collect(Collectors.toList());
+        Map<Long, ItemBookingSummary> computed = notFresh.isEmpty() ? Map.of() :
+                toRows(withWindowBookings(ITEMS_BY_IDS).setParameter("ids", notFresh)
+                                                       .getResultList())
+                        .stream()
+                        .map(row -> (ItemBookingSummary) row[1])
+                        .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+        return rows.stream()
+                   .map(row -> {
+                       Item item = (Item) row[0];
+                       ItemBookingSummary summary = computed.getOrDefault(item.getId(),
+                               (ItemBookingSummary) row[1]);
+                       return ItemMapper.toDtoWithBookings(item, comments.getOrDefault(item.getId(), List.of()),
+                               ItemDtoWithBookings.BookingShort.toLastBooking(summary),
+                               ItemDtoWithBookings.BookingShort.toNextBooking(summary));
+                   })
+                   .sorted(Comparator.comparing(ItemDtoWithBookings::getId))
+                   .collect(Collectors.toList());
+    }
+
+    private Query withWindowBookings(String itemPage) {
+        return entityManager.createNativeQuery(String.format(WITH_WINDOW_BOOKINGS, itemPage),
+                                    ItemBookingSummary.ITEM_WITH_SUMMARY)
+                            .setParameter("now", LocalDateTime.now());
+    }
+
+    private static List<Object[]> toRows(List<?> result) {
+        return result.stream()
+                     .map(Object[].class::cast)
+                     .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Проекция вещи для построения поискового индекса
+ */
+@Getter
+@AllArgsConstructor
+public class IndexedItem {
+    private Long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long version;
+}
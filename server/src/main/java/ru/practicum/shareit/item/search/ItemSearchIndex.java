@@ -0,0 +1,388 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс поиска вещей в памяти: токены названия и описания (буквы и цифры в нижнем регистре)
+ * с вещами, в которых они встречаются. Слово запроса находит токены, содержащие его как подстроку, по словарю
+ * суффиксов токенов, как прежний LIKE '%text%'. Слова запроса объединяются по И, результат - доступные вещи
+ * по убыванию релевантности, при равной - по id.
+ * Индекс строится при старте приложения и обновляется при добавлении и изменении вещи после фиксации транзакции.
+ * Документ хранит версию вещи, более старая версия не заменяет более новую. Индекс локален для экземпляра
+ * server: изменения, сделанные другими экземплярами, применяет догоняющее сканирование версий (ItemSearchIndexJob),
+ * до него поиск на этом экземпляре их не видит. Пока индекс не построен, поиск идет по БД
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    /**
+     * Вес совпадения в названии относительно описания
+     */
+    static final int NAME_WEIGHT = 2;
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::getScore).reversed()
+                                                             .thenComparingLong(Hit::getId);
+
+    private final ItemRepository itemRepository;
+    private final int rebuildBatchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final NavigableMap<String, Set<String>> suffixes = new TreeMap<>();
+    private volatile boolean ready;
+
+    public ItemSearchIndex(@Lazy ItemRepository itemRepository,
+                           @Value("${shareit.item.search-index.rebuild-batch-size:1000}") int rebuildBatchSize) {
+        this.itemRepository = itemRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    /**
+     * Построение индекса по всем вещам пакетами по id
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ready = false;
+        write(() -> {
+            documents.clear();
+            postings.clear();
+            suffixes.clear();
+        });
+        int total = catchUp();
+        ready = true;
+        log.info("Item search index is built: {} items", total);
+    }
+
+    /**
+     * Сканирование всех вещей пакетами по id: вещи, которых нет в индексе или версия которых в БД новее,
+     * заменяются. Вещи, добавленные в индекс во время сканирования, не перезаписываются более старыми версиями
+     *
+     * @return число добавленных и замененных вещей
+     */
+    public int catchUp() {
+        long afterId = 0;
+        int total = 0;
+        List<IndexedItem> batch;
+        do {
+            batch = itemRepository.findIndexedAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            List<IndexedItem> loaded = batch;
+            int[] applied = new int[1];
+            write(() -> loaded.forEach(item -> {
+                if (applyIfNewer(new Document(item.getId(), item.getName(), item.getDescription(),
+                        Boolean.TRUE.equals(item.getAvailable()), item.getVersion()))) {
+                    applied[0]++;
+                }
+            }));
+            total += applied[0];
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == rebuildBatchSize);
+        return total;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Добавление или замена вещи в индексе, в том числе смена доступности. В транзакции вещь применяется
+     * после фиксации по состоянию сущности на этот момент, откаченная транзакция индекс не меняет
+     */
+    public void put(Item item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(() -> applyIfNewer(toDocument(item)));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write(() -> applyIfNewer(toDocument(item)));
+            }
+        });
+    }
+
+    /**
+     * Страница id доступных вещей по релевантности
+     */
+    public List<Long> search(String text, int from, int size) {
+        return rank(tokenize(text), null, from + size).stream()
+                                                      .skip(from)
+                                                      .map(Hit::getId)
+                                                      .collect(Collectors.toList());
+    }
+
+    /**
+     * Страница id доступных вещей, следующих по релевантности за вещью afterId. Релевантность вещи курсора
+     * пересчитывается по текущему индексу
+     */
+    public List<Long> searchAfter(String text, Long afterId, int size) {
+        List<String> terms = tokenize(text);
+        lock.readLock().lock();
+        try {
+            Document document = documents.get(afterId);
+            if (document == null) {
+                return List.of();
+            }
+            return rank(terms, new Hit(afterId, score(document, terms)), size).stream()
+                                                                              .map(Hit::getId)
+                                                                              .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Первые limit доступных вещей по релевантности, следующих за after (null - с начала). Кандидаты
+     * отбираются кучей размера limit, сортируется только результат
+     */
+    private List<Hit> rank(List<String> terms, Hit after, int limit) {
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String term : terms) {
+                Set<Long> matched = new HashSet<>();
+                suffixes.subMap(term, true, term + Character.MAX_VALUE, true)
+                        .values()
+                        .forEach(tokens -> tokens.forEach(token -> matched.addAll(postings.get(token))));
+                if (candidates == null) {
+                    candidates = matched;
+                } else {
+                    candidates.retainAll(matched);
+                }
+            }
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, Math.min(limit, candidates.size())),
+                    RANKING.reversed());
+            for (Long id : candidates) {
+                Document document = documents.get(id);
+                if (!document.isAvailable()) {
+                    continue;
+                }
+                Hit hit = new Hit(id, score(document, terms));
+                if (after != null && RANKING.compare(hit, after) <= 0) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (RANKING.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Сумма по словам запроса и содержащим их токенам: токен целиком - 3, начало токена - 2, середина - 1,
+     * умноженные на число вхождений токена и вес поля
+     */
+    static int score(Document document, List<String> terms) {
+        int score = 0;
+        for (String term : terms) {
+            score += NAME_WEIGHT * score(document.getName(), term) + score(document.getDescription(), term);
+        }
+        return score;
+    }
+
+    private static int score(Map<String, Integer> tokens, String term) {
+        int score = 0;
+        for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+            if (token.getKey().equals(term)) {
+                score += 3 * token.getValue();
+            } else if (token.getKey().startsWith(term)) {
+                score += 2 * token.getValue();
+            } else if (token.getKey().contains(term)) {
+                score += token.getValue();
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Слова текста: последовательности букв и цифр в нижнем регистре, без повторов
+     */
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                     .filter(token -> !token.isEmpty())
+                     .distinct()
+                     .collect(Collectors.toList());
+    }
+
+    private static Document toDocument(Item item) {
+        return new Document(item.getId(), item.getName(), item.getDescription(),
+                Boolean.TRUE.equals(item.getAvailable()), item.getVersion());
+    }
+
+    /**
+     * Замена документа вещи, если в индексе ее нет или версия документа новее. Вызывается под блокировкой записи
+     *
+     * @return true, если документ заменен
+     */
+    private boolean applyIfNewer(Document document) {
+        Document current = documents.get(document.getId());
+        if (current != null && current.getVersion() >= document.getVersion()) {
+            return false;
+        }
+        remove(document.getId());
+        documents.put(document.getId(), document);
+        document.tokens().forEach(token -> postings.computeIfAbsent(token, this::addSuffixes).add(document.getId()));
+        return true;
+    }
+
+    private void remove(Long itemId) {
+        Document previous = documents.remove(itemId);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous.tokens()) {
+            Set<Long> items = postings.get(token);
+            items.remove(itemId);
+            if (items.isEmpty()) {
+                postings.remove(token);
+                removeSuffixes(token);
+            }
+        }
+    }
+
+    private Set<Long> addSuffixes(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            suffixes.computeIfAbsent(token.substring(i), suffix -> new HashSet<>()).add(token);
+        }
+        return new HashSet<>();
+    }
+
+    private void removeSuffixes(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            String suffix = token.substring(i);
+            Set<String> tokens = suffixes.get(suffix);
+            tokens.remove(token);
+            if (tokens.isEmpty()) {
+                suffixes.remove(suffix);
+            }
+        }
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Документ вещи: число вхождений токенов в название и описание, версия вещи (null - 0)
+     */
+    static final class Document {
+        private final Long id;
+        private final Map<String, Integer> name;
+        private final Map<String, Integer> description;
+        private final boolean available;
+        private final long version;
+
+        Document(Long id, String name, String description, boolean available, Long version) {
+            this.id = id;
+            this.name = count(name);
+            this.description = count(description);
+            this.available = available;
+            this.version = version == null ? 0 : version;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        Map<String, Integer> getName() {
+            return name;
+        }
+
+        Map<String, Integer> getDescription() {
+            return description;
+        }
+
+        boolean isAvailable() {
+            return available;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(name.keySet());
+            tokens.addAll(description.keySet());
+            return tokens;
+        }
+
+        private static Map<String, Integer> count(String text) {
+            Map<String, Integer> counts = new HashMap<>();
+            if (text == null) {
+                return counts;
+            }
+            for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    counts.merge(token, 1, Integer::sum);
+                }
+            }
+            return counts;
+        }
+    }
+
+    private static final class Hit {
+        private final long id;
+        private final int score;
+
+        private Hit(long id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        int getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Догоняющее сканирование поискового индекса: применяет изменения вещей, зафиксированные другими экземплярами
+ * server. Читает id, поля индекса и версии всех вещей пакетами по rebuild-batch-size, поэтому задержка
+ * выбирается по числу вещей. Метрика shareit.item.search-index.rows - число замененных вещей за запуск
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item.search-index.catch-up.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ItemSearchIndexJob {
+    public static final String ROWS_METRIC = "shareit.item.search-index.rows";
+
+    private final ItemSearchIndex index;
+    private final DistributionSummary updatedRows;
+
+    public ItemSearchIndexJob(ItemSearchIndex index, MeterRegistry registry) {
+        this.index = index;
+        this.updatedRows = DistributionSummary.builder(ROWS_METRIC)
+                                              .description("Items updated in the search index per catch-up run")
+                                              .baseUnit("rows")
+                                              .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item.search-index.catch-up.delay:PT5M}",
+            initialDelayString = "${shareit.item.search-index.catch-up.delay:PT5M}")
+    public void run() {
+        catchUp();
+    }
+
+    /**
+     * Пока индекс не построен, сканирование не нужно: построение читает все вещи
+     *
+     * @return число замененных вещей
+     */
+    public int catchUp() {
+        if (!index.isReady()) {
+            return 0;
+        }
+        int updated = index.catchUp();
+        updatedRows.record(updated);
+        if (updated > 0) {
+            log.info("Item search index caught up: {} items updated", updated);
+        }
+        return updated;
+    }
+}
@@ -2,9 +2,11 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,9 +19,21 @@ public interface ItemService {
 
     ItemDto add(Long ownerId, ItemDto item);
 
-    ItemDto update(Long userId, Long itemId, ItemDto item);
+    /**
+     * Обновление вещи владельцем
+     *
+     * @param expectedVersion версия из If-Match, null - без проверки
+     */
+    ItemDto update(Long userId, Long itemId, ItemDto item, Long expectedVersion);
 
     List<ItemDto> searchAvailableBy(String text, PaginationRequest paginationRequest);
 
     CommentDto addComment(Long userId, Long itemId, CommentDto commentDto);
+
+    /**
+     * Комментарии вещи, новые первыми
+     */
+    List<CommentDto> findComments(Long itemId, PaginationRequest paginationRequest);
+
+    ItemAvailabilityDto findAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
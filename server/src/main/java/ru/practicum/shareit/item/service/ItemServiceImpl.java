@@ -2,19 +2,31 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.base.version.VersionEtag;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.comment.ItemComments;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.exception.CommentCreationException;
 import ru.practicum.shareit.item.exception.InvalidItemOwnerException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.exception.ItemSearchUnavailableException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -30,6 +42,9 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -42,30 +57,45 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingSummaryRepository itemBookingSummaryRepository;
+    private final ItemBookingSummaries itemBookingSummaries;
+    private final ItemComments itemComments;
+    private final ItemSearchIndex itemSearchIndex;
 
+    /**
+     * Бронирования владельцу берутся из сводки вещи одним запросом по ключу. Пока сводка не рассчитана или
+     * начало следующего бронирования уже прошло, они вычисляются по bookings и bookings_archive.
+     * Встраиваются только последние комментарии
+     */
     @Override
     public ItemDtoWithBookings findById(Long userId, Long itemId) {
         findUserByIdOrThrow(userId);
         Item item = findByIdOrThrow(itemId);
+        List<ItemDto.ItemComment> comments = itemComments.findLatest(itemId);
         if (userId.equals(item.getOwner().getId())) {
-            List<Booking> lastBooking = bookingRepository.findPastByItemId(itemId,
-                    PageRequest.of(0, 1));
-            List<Booking> nextBooking = bookingRepository.findFutureByItemId(itemId,
-                    PageRequest.of(0, 1));
-            return ItemMapper.toDtoWithBookings(item,
-                    lastBooking.size() != 1 ? null : ItemDtoWithBookings.BookingShort
-                            .toBookingShort(lastBooking.get(0)),
-                    nextBooking.size() != 1 ? null : ItemDtoWithBookings.BookingShort
-                            .toBookingShort(nextBooking.get(0)));
+            LocalDateTime now = LocalDateTime.now();
+            ItemBookingSummary summary = itemBookingSummaryRepository.findById(itemId)
+                                                                     .filter(found -> found.isFreshAt(now))
+                                                                     .orElseGet(() -> itemBookingSummaries
+                                                                             .compute(itemId));
+            return ItemMapper.toDtoWithBookings(item, comments,
+                    ItemDtoWithBookings.BookingShort.toLastBooking(summary),
+                    ItemDtoWithBookings.BookingShort.toNextBooking(summary));
         }
-        return ItemMapper.toDtoWithBookings(item, null, null);
+        return ItemMapper.toDtoWithBookings(item, comments, null, null);
     }
 
     @Override
     public List<ItemDtoWithBookings> findAllByOwnerId(Long ownerId, PaginationRequest paginationRequest) {
         findUserByIdOrThrow(ownerId);
+        if (paginationRequest.isCursorBased()) {
+            return itemRepository.findAllByOwnerIdWithBookingsAfter(ownerId, paginationRequest.getCursor().getId(),
+                    paginationRequest.makeCursorPaginationByFieldAsc("id"));
+        }
         return itemRepository.findAllByOwnerIdWithBookings(ownerId, paginationRequest.makePaginationByFieldAsc("id"));
     }
 
@@ -81,12 +111,17 @@ public class ItemServiceImpl implements ItemService {
         }
         Item newItem = ItemMapper.toItem(itemDto, owner, request);
         Item returnedItem = itemRepository.save(newItem);
-        return ItemMapper.toDto(returnedItem);
+        itemBookingSummaries.created(returnedItem.getId());
+        itemSearchIndex.put(returnedItem);
+        return ItemMapper.toDto(returnedItem, List.of());
     }
 
+    /**
+     * Изменение сбрасывается в БД сразу, чтобы ответ содержал новую версию
+     */
     @Override
     @Transactional
-    public ItemDto update(Long userId, Long itemId, ItemDto itemDto) {
+    public ItemDto update(Long userId, Long itemId, ItemDto itemDto, Long expectedVersion) {
         findUserByIdOrThrow(userId);
         Item item = findByIdOrThrow(itemId);
         Long ownerId = item.getOwner().getId();
@@ -94,8 +129,11 @@ public class ItemServiceImpl implements ItemService {
             throw new InvalidItemOwnerException(String.format("Owner in http header(%d) and in repository(%d) " +
                     "is not the same! Item id=%d", userId, ownerId, itemId));
         }
+        VersionEtag.checkVersion("Item", itemId, expectedVersion, item.getVersion());
         Item returnedItem = updateRequiredFields(item, itemDto);
-        return ItemMapper.toDto(returnedItem);
+        itemRepository.flush();
+        itemSearchIndex.put(returnedItem);
+        return ItemMapper.toDto(returnedItem, itemComments.findLatest(itemId));
     }
 
     private Item updateRequiredFields(Item item, ItemDto itemDto) {
@@ -111,35 +149,109 @@ public class ItemServiceImpl implements ItemService {
         return item;
     }
 
+    /**
+     * Поиск по индексу в памяти с ранжированием по релевантности. Пока индекс не построен, поиск недоступен (503):
+     * поиск по БД дал бы другие результаты и порядок, а его курсоры не подходили бы к поиску по индексу.
+     * Найденные вещи и их последние комментарии читаются двумя запросами на страницу
+     */
     @Override
     public List<ItemDto> searchAvailableBy(String text, PaginationRequest paginationRequest) {
         if (text == null || text.length() == 0) {
             return new ArrayList<>();
         }
-        return itemRepository.searchAvailableBy(text, paginationRequest.makePaginationByFieldAsc("id"))
-                             .stream()
-                             .map(ItemMapper::toDto)
-                             .collect(Collectors.toList());
+        if (!itemSearchIndex.isReady()) {
+            throw new ItemSearchUnavailableException("Item search index is being built");
+        }
+        List<Item> items = findAllByIdInOrder(searchIndex(text, paginationRequest));
+        Map<Long, List<ItemDto.ItemComment>> comments = itemComments.findLatest(items.stream()
+                                                                                     .map(Item::getId)
+                                                                                     .collect(Collectors.toList()));
+        return items.stream()
+                    .map(item -> ItemMapper.toDto(item, comments.getOrDefault(item.getId(), List.of())))
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * Комментарии вещи, новые первыми: продолжение встроенных в DTO вещи последних комментариев
+     */
+    @Override
+    public List<CommentDto> findComments(Long itemId, PaginationRequest paginationRequest) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException(String.format("Item with id=%d is not found", itemId));
+        }
+        List<Comment> comments;
+        if (paginationRequest.isCursorBased()) {
+            comments = commentRepository.findAllByItemIdAfter(itemId, paginationRequest.getCursor().getId(),
+                    paginationRequest.makeCursorPagination());
+        } else {
+            comments = commentRepository.findAllByItemId(itemId, paginationRequest.makePaginationByFieldDesc("id"));
+        }
+        return comments.stream()
+                       .map(CommentMapper::toDto)
+                       .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
     public CommentDto addComment(Long userId, Long itemId, CommentDto commentDto) {
-        findUserByIdOrThrow(userId);
-        findByIdOrThrow(itemId);
+        User author = findUserByIdOrThrow(userId);
+        Item item = findByIdOrThrow(itemId);
         List<Booking> booking = bookingRepository.findPastApprovedByBookerAndItem(userId, itemId,
                 PageRequest.of(0, 1));
-        if (booking.isEmpty()) {
+        if (booking.isEmpty() && bookingArchiveRepository.findPastApprovedByBookerAndItem(userId, itemId,
+                PageRequest.of(0, 1)).isEmpty()) {
             throw new CommentCreationException(String.format("User never booked an item with id=%d", itemId));
         }
         Comment newComment = CommentMapper.toComment(commentDto);
-        newComment.setAuthor(booking.get(0).getBooker());
-        newComment.setItem(booking.get(0).getItem());
+        newComment.setAuthor(author);
+        newComment.setItem(item);
         newComment.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
 
         return CommentMapper.toDto(commentRepository.save(newComment));
     }
 
+    /**
+     * Считается по интервальному индексу бронирований без транзакции: если индекс вещи уже в памяти,
+     * обращения к БД нет. Бронирования, измененные другими экземплярами server, видны после перезагрузки
+     * дерева, то есть не позже shareit.booking.index.max-staleness
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ItemAvailabilityDto findAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalRequestStateException(String.format("Window start %s must be before end %s", from, to));
+        }
+        if (!bookingIntervalIndex.isLoaded(itemId) && !itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException(String.format("Item with id=%d is not found", itemId));
+        }
+        return ItemAvailabilityDto.builder()
+                                  .itemId(itemId)
+                                  .from(from)
+                                  .to(to)
+                                  .freeSlots(bookingIntervalIndex.findFreeSlots(itemId, from, to))
+                                  .build();
+    }
+
+    private List<Long> searchIndex(String text, PaginationRequest paginationRequest) {
+        if (paginationRequest.isCursorBased()) {
+            return itemSearchIndex.searchAfter(text, paginationRequest.getCursor().getId(),
+                    paginationRequest.getSize());
+        }
+        return itemSearchIndex.search(text, paginationRequest.getFrom(), paginationRequest.getSize());
+    }
+
+    /**
+     * Вещи в порядке ids, вещи, которых уже нет в БД, пропускаются
+     */
+    private List<Item> findAllByIdInOrder(List<Long> ids) {
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                                              .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                  .map(items::get)
+                  .filter(Objects::nonNull)
+                  .collect(Collectors.toList());
+    }
+
     private User findUserByIdOrThrow(Long userId) {
         return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(String.format("User with " +
                 "id=%d is not found", userId)));
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item.summary;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сводки бронирований вещей (item_booking_summary): последнее и следующее подтвержденные бронирования.
+ * Новая вещь получает пустую рассчитанную сводку, подтверждение бронирования сразу предлагает его в сводку
+ * условным UPDATE. Создание бронирования (WAITING) и отказ (возможен только из WAITING) подтвержденные
+ * бронирования не меняют. Следующее бронирование, начало которого прошло, переходит в последние при пересчете
+ * в roll
+ */
+@Component
+public class ItemBookingSummaries {
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+
+    public ItemBookingSummaries(ItemBookingSummaryRepository summaryRepository,
+                                @Lazy BookingRepository bookingRepository,
+                                @Lazy BookingArchiveRepository bookingArchiveRepository) {
+        this.summaryRepository = summaryRepository;
+        this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+    }
+
+    @Transactional
+    public void created(Long itemId) {
+        summaryRepository.save(ItemBookingSummary.builder()
+                                                 .itemId(itemId)
+                                                 .refreshed(LocalDateTime.now())
+                                                 .build());
+    }
+
+    /**
+     * Подтвержденное бронирование с будущим началом претендует на следующее, с прошедшим - на последнее
+     */
+    @Transactional
+    public void approved(Long itemId, Long bookingId, Long bookerId, LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(LocalDateTime.now())) {
+            summaryRepository.offerNext(itemId, bookingId, bookerId, start, end);
+        } else {
+            summaryRepository.offerLast(itemId, bookingId, bookerId, start, end);
+        }
+    }
+
+    /**
+     * Пересчет не больше limit сводок: нерассчитанных и со следующим бронированием, начало которого прошло
+     *
+     * @return число пересчитанных сводок
+     */
+    @Transactional
+    public int roll(LocalDateTime now, int limit) {
+        List<ItemBookingSummary> due = summaryRepository.findDue(now, PageRequest.of(0, limit));
+        for (ItemBookingSummary summary : due) {
+            ItemBookingSummary computed = compute(summary.getItemId());
+            summary.setLast(computed);
+            summary.setNext(computed);
+            summary.setRefreshed(now);
+        }
+        return due.size();
+    }
+
+    /**
+     * Пустые нерассчитанные сводки для вещей без сводки, их рассчитает roll
+     *
+     * @return число добавленных сводок
+     */
+    @Transactional
+    public int insertMissing() {
+        return summaryRepository.insertMissing();
+    }
+
+    /**
+     * Сводка вещи, рассчитанная по бронированиям без сохранения: для пересчета и для вещей, сводка которых
+     * еще не рассчитана. Последнее бронирование ищется в архиве, только если в bookings его нет
+     */
+    public ItemBookingSummary compute(Long itemId) {
+        ItemBookingSummary summary = ItemBookingSummary.builder()
+                                                       .itemId(itemId)
+                                                       .build();
+        List<Booking> last = bookingRepository.findPastByItemId(itemId, PageRequest.of(0, 1));
+        if (last.isEmpty()) {
+            bookingArchiveRepository.findPastByItemId(itemId, PageRequest.of(0, 1))
+                                    .stream()
+                                    .findFirst()
+                                    .map(ArchivedBooking::toBooking)
+                                    .ifPresent(summary::setLast);
+        } else {
+            summary.setLast(last.get(0));
+        }
+        bookingRepository.findFutureByItemId(itemId, PageRequest.of(0, 1))
+                         .stream()
+                         .findFirst()
+                         .ifPresent(summary::setNext);
+        return summary;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item.summary;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Пересчет сводок бронирований вещей: следующее бронирование, начало которого прошло, становится последним.
+ * Запуск сначала добавляет сводки вещам, у которых их нет, затем пересчитывает не больше max-batches пакетов
+ * по batch-size сводок, каждый пакет в своей транзакции. Метрика shareit.item.booking-summary.rows - число
+ * пересчитанных сводок за запуск
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item.booking-summary.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemBookingSummaryJob {
+    public static final String ROWS_METRIC = "shareit.item.booking-summary.rows";
+
+    private final ItemBookingSummaries summaries;
+    private final int batchSize;
+    private final int maxBatches;
+    private final DistributionSummary rolledRows;
+
+    public ItemBookingSummaryJob(ItemBookingSummaries summaries, MeterRegistry registry,
+                                 @Value("${shareit.item.booking-summary.batch-size:500}") int batchSize,
+                                 @Value("${shareit.item.booking-summary.max-batches:20}") int maxBatches) {
+        this.summaries = summaries;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.rolledRows = DistributionSummary.builder(ROWS_METRIC)
+                                             .description("Item booking summaries recomputed per run")
+                                             .baseUnit("rows")
+                                             .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item.booking-summary.delay:PT1M}",
+            initialDelayString = "${shareit.item.booking-summary.delay:PT1M}")
+    public void run() {
+        roll(LocalDateTime.now());
+    }
+
+    /**
+     * Пакеты обрабатываются, пока пакет заполнен полностью и не превышен max-batches
+     *
+     * @return число пересчитанных сводок
+     */
+    public int roll(LocalDateTime now) {
+        int inserted = summaries.insertMissing();
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int rolled = summaries.roll(now, batchSize);
+            total += rolled;
+            if (rolled < batchSize) {
+                break;
+            }
+        }
+        rolledRows.record(total);
+        if (inserted > 0 || total > 0) {
+            log.info("Inserted {} and recomputed {} item booking summaries", inserted, total);
+        }
+        return total;
+    }
+}
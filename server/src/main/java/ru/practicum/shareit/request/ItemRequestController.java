@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -50,17 +52,19 @@ public class ItemRequestController {
      * @param userId id пользователя, запросы которого исключаются из поиска
      * @param from начальный индекс
      * @param size размер страницы
+     * @param cursor курсор следующей страницы из заголовка X-Next-Cursor, при наличии from не используется
      * @return список найденных запросов на вещи
      */
     @GetMapping("/all")
-    public List<ItemRequestDto> getPageSortedByDate(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                    @RequestParam(defaultValue = "0") Integer from,
-                                                    @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<ItemRequestDto>> getPageSortedByDate(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                    @RequestParam(defaultValue = "0") Integer from,
+                                                                    @RequestParam(defaultValue = "10") Integer size,
+                                                                    @RequestParam(required = false) String cursor) {
         log.info("Request to get {} requests from index={}", size, from);
-        PaginationRequest paginationRequest = new PaginationRequest(from, size);
+        PaginationRequest paginationRequest = new PaginationRequest(from, size, cursor);
         List<ItemRequestDto> requests = itemRequestService.findPageSortedByDate(userId, paginationRequest);
         log.info("Successfully returned {} requests from index={}", size, from);
-        return requests;
+        return PageCursor.toResponse(requests, size, request -> PageCursor.of(request.getCreated(), request.getId()));
     }
 
     /**
@@ -2,12 +2,23 @@ package ru.practicum.shareit.request;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
     List<ItemRequest> findAllByRequesterId(Long requesterId);
 
     List<ItemRequest> findAllByRequesterIdNot(Long requesterId, Pageable pageable);
+
+    @Query("SELECT r FROM ItemRequest AS r " +
+            "WHERE r.requester.id <> :requesterId " +
+            "AND (r.created < :created OR (r.created = :created AND r.id < :id)) " +
+            "ORDER BY r.created DESC, r.id DESC")
+    List<ItemRequest> findPageByRequesterIdNotAfter(@Param("requesterId") Long requesterId,
+                                                    @Param("created") LocalDateTime created,
+                                                    @Param("id") Long id, Pageable pageable);
 }
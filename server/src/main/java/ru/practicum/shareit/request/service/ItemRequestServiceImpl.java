@@ -3,7 +3,9 @@ package ru.practicum.shareit.request.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.ItemRequestNotFoundException;
 import ru.practicum.shareit.request.ItemRequestRepository;
@@ -16,7 +18,9 @@ import ru.practicum.shareit.user.exception.UserNotFoundException;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -34,21 +38,22 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public List<ItemRequestDto> findByUserId(Long userId) {
         getUserByIdOrThrow(userId);
-        return itemRequestRepository.findAllByRequesterId(userId).stream()
-                                        .map(request -> ItemRequestMapper.toItemRequestDto(request,
-                                            itemRepository.findAllByRequestId(request.getId())))
-                                        .collect(Collectors.toList());
+        return withItems(itemRequestRepository.findAllByRequesterId(userId));
     }
 
     @Override
     public List<ItemRequestDto> findPageSortedByDate(Long userId, PaginationRequest paginationRequest) {
         getUserByIdOrThrow(userId);
-        return itemRequestRepository.findAllByRequesterIdNot(userId,
-                                            paginationRequest.makePaginationByFieldDesc("created"))
-                                        .stream()
-                                        .map(request -> ItemRequestMapper.toItemRequestDto(request,
-                                            itemRepository.findAllByRequestId(request.getId())))
-                                        .collect(Collectors.toList());
+        List<ItemRequest> requests;
+        if (paginationRequest.isCursorBased()) {
+            PageCursor cursor = paginationRequest.getCursor();
+            requests = itemRequestRepository.findPageByRequesterIdNotAfter(userId, cursor.requireTime(), cursor.getId(),
+                    paginationRequest.makeCursorPagination());
+        } else {
+            requests = itemRequestRepository.findAllByRequesterIdNot(userId,
+                    paginationRequest.makePaginationByFieldDesc("created"));
+        }
+        return withItems(requests);
     }
 
     @Override
@@ -70,6 +75,24 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(itemRequest));
     }
 
+    /**
+     * Вещи всех запросов страницы загружаются одним запросом и группируются по request_id
+     */
+    private List<ItemRequestDto> withItems(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, List<Item>> items = itemRepository.findAllByRequestIdIn(requests.stream()
+                                                                                  .map(ItemRequest::getId)
+                                                                                  .collect(Collectors.toList()))
+                                                    .stream()
+                                                    .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        return requests.stream()
+                       .map(request -> ItemRequestMapper.toItemRequestDto(request,
+                               items.getOrDefault(request.getId(), List.of())))
+                       .collect(Collectors.toList());
+    }
+
     private User getUserByIdOrThrow(Long userId) {
         return userRepository.findById(userId).orElseThrow(() ->
                 new UserNotFoundException(String.format("User with id=%d is not found", userId)));
@@ -31,8 +31,8 @@ public class User {
     private String email;
 
     public User(User user) {
-        this.id = user.id;
-        this.name = user.name;
-        this.email = user.email;
+        this.id = user.getId();
+        this.name = user.getName();
+        this.email = user.getEmail();
     }
 }
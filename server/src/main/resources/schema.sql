@@ -22,6 +22,7 @@ CREATE TABLE IF NOT EXISTS items (
     item_name VARCHAR(100) NOT NULL,
     description VARCHAR(300),
     available BOOLEAN NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_items PRIMARY KEY(id),
     CONSTRAINT fk_users_items FOREIGN KEY(owner_id) REFERENCES users(id),
     CONSTRAINT fk_item_requests_items FOREIGN KEY(request_id) REFERENCES item_requests(id)
@@ -34,11 +35,40 @@ CREATE TABLE IF NOT EXISTS bookings (
     item_id BIGINT NOT NULL,
     booker_id BIGINT NOT NULL,
     status VARCHAR(20) NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_bookings PRIMARY KEY(id),
     CONSTRAINT fk_bookings_items FOREIGN KEY(item_id) REFERENCES items(id),
     CONSTRAINT fk_bookings_users FOREIGN KEY(booker_id) REFERENCES users(id)
 );
 
+CREATE TABLE IF NOT EXISTS bookings_archive (
+    id BIGINT NOT NULL,
+    start_time TIMESTAMP,
+    end_time TIMESTAMP,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_bookings_archive PRIMARY KEY(id),
+    CONSTRAINT fk_bookings_archive_items FOREIGN KEY(item_id) REFERENCES items(id),
+    CONSTRAINT fk_bookings_archive_users FOREIGN KEY(booker_id) REFERENCES users(id)
+);
+
+CREATE TABLE IF NOT EXISTS item_booking_summary (
+    item_id BIGINT NOT NULL,
+    last_booking_id BIGINT,
+    last_booker_id BIGINT,
+    last_start TIMESTAMP,
+    last_end TIMESTAMP,
+    next_booking_id BIGINT,
+    next_booker_id BIGINT,
+    next_start TIMESTAMP,
+    next_end TIMESTAMP,
+    refreshed TIMESTAMP,
+    CONSTRAINT pk_item_booking_summary PRIMARY KEY(item_id),
+    CONSTRAINT fk_item_booking_summary_items FOREIGN KEY(item_id) REFERENCES items(id)
+);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     author_id BIGINT NOT NULL,
@@ -49,3 +79,25 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT fk_comments_users FOREIGN KEY(author_id) REFERENCES users(id),
     CONSTRAINT fk_comments_items FOREIGN KEY(item_id) REFERENCES items(id)
 );
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items(owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items(request_id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_id_start_time ON bookings(item_id, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start_time ON bookings(status, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_end_time ON bookings(end_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_id_start_time ON bookings_archive(booker_id, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_id_start_time ON bookings_archive(item_id, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_item_booking_summary_next_start ON item_booking_summary(next_start);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_id_id ON comments(item_id, id);
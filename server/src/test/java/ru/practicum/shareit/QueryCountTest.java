@@ -0,0 +1,298 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.archive.BookingHistory;
+import ru.practicum.shareit.booking.dto.BookingReceivingDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.ApprovedState;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRequestState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.comment.ItemComments;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Число SQL-запросов на сценарий эндпоинта. Контекст сохранения очищается перед вызовом,
+ * изменения сбрасываются в БД после него, так что в счет входят и UPDATE/INSERT
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookingServiceImpl.class, ItemServiceImpl.class, ItemRequestServiceImpl.class, BookingIntervalIndex.class,
+        ItemBookingSummaries.class, ItemComments.class, ItemSearchIndex.class, BookingHistory.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryCountTest {
+    final TestEntityManager entityManager;
+    final UserRepository userRepository;
+    final ItemRepository itemRepository;
+    final BookingRepository bookingRepository;
+    final CommentRepository commentRepository;
+    final ItemRequestRepository itemRequestRepository;
+    final BookingIntervalIndex bookingIntervalIndex;
+    final ItemBookingSummaries itemBookingSummaries;
+    final ItemSearchIndex itemSearchIndex;
+    final BookingService bookingService;
+    final ItemService itemService;
+    final ItemRequestService itemRequestService;
+
+    User owner, booker;
+    Item item, requestedItem;
+    ItemRequest request;
+    Booking past, waiting;
+    Statistics statistics;
+
+    @BeforeEach
+    void init() {
+        owner = userRepository.save(new User(null, "Owner", "owner@yandex.mail"));
+        booker = userRepository.save(new User(null, "Booker", "booker@yandex.mail"));
+        request = itemRequestRepository.save(ItemRequest.builder()
+                                                        .requester(booker)
+                                                        .description("Request description")
+                                                        .created(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+                                                        .build());
+        item = itemRepository.save(Item.builder()
+                                       .name("Item")
+                                       .description("Item description")
+                                       .owner(owner)
+                                       .available(true)
+                                       .build());
+        requestedItem = itemRepository.save(Item.builder()
+                                                .name("Requested item")
+                                                .description("Requested item description")
+                                                .owner(owner)
+                                                .available(true)
+                                                .request(request)
+                                                .build());
+        past = bookingRepository.save(Booking.builder()
+                                             .item(item)
+                                             .booker(booker)
+                                             .start(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS))
+                                             .end(LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS))
+                                             .status(BookingStatus.APPROVED)
+                                             .build());
+        waiting = bookingRepository.save(Booking.builder()
+                                                .item(item)
+                                                .booker(booker)
+                                                .start(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS))
+                                                .end(LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS))
+                                                .status(BookingStatus.WAITING)
+                                                .build());
+        commentRepository.save(Comment.builder()
+                                      .text("Comment")
+                                      .author(booker)
+                                      .item(item)
+                                      .created(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+                                      .build());
+        bookingIntervalIndex.isFree(item.getId(), LocalDateTime.now(), LocalDateTime.now().plusDays(1));
+        itemBookingSummaries.insertMissing();
+        itemBookingSummaries.roll(LocalDateTime.now(), 10);
+        itemSearchIndex.rebuild();
+        statistics = entityManager.getEntityManager()
+                                  .getEntityManagerFactory()
+                                  .unwrap(SessionFactory.class)
+                                  .getStatistics();
+    }
+
+    /**
+     * GET /bookings/{id}: пользователь и бронирование с вещью и арендатором
+     */
+    @Test
+    void shouldFindBookingByIdInTwoQueries() {
+        assertThat(countQueries(() -> bookingService.findById(booker.getId(), waiting.getId())), equalTo(2L));
+        assertThat(countQueries(() -> bookingService.findById(owner.getId(), waiting.getId())), equalTo(2L));
+    }
+
+    /**
+     * PATCH /bookings/{id}: пользователь, бронирование с вещью и арендатором, UPDATE, UPDATE сводки вещи
+     */
+    @Test
+    void shouldHandleStatusInFourQueries() {
+        assertThat(countQueries(() -> bookingService.handleStatus(owner.getId(), waiting.getId(),
+                ApprovedState.TRUE, null)), equalTo(4L));
+    }
+
+    /**
+     * PATCH /bookings/{id} с отказом: сводка вещи не меняется
+     */
+    @Test
+    void shouldRejectInThreeQueries() {
+        assertThat(countQueries(() -> bookingService.handleStatus(owner.getId(), waiting.getId(),
+                ApprovedState.FALSE, null)), equalTo(3L));
+    }
+
+    /**
+     * PATCH /bookings: пользователь, владелец и статусы всего набора, один UPDATE, UPDATE сводки для каждого
+     * подтвержденного бронирования
+     */
+    @Test
+    void shouldHandleStatusesInFourQueries() {
+        assertThat(countQueries(() -> bookingService.handleStatuses(owner.getId(), List.of(waiting.getId(),
+                past.getId()), ApprovedState.TRUE)), equalTo(4L));
+    }
+
+    /**
+     * POST /bookings: пользователь, вещь с блокировкой, проверка пересечения, INSERT
+     */
+    @Test
+    void shouldAddBookingInFourQueries() {
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                                       .itemId(item.getId())
+                                                       .start(LocalDateTime.now().plusDays(5))
+                                                       .end(LocalDateTime.now().plusDays(6))
+                                                       .build();
+
+        assertThat(countQueries(() -> bookingService.add(booker.getId(), toAdd)), equalTo(4L));
+    }
+
+    /**
+     * GET /bookings и GET /bookings/owner: пользователь и одна страница проекции - из bookings и архива
+     * одним UNION ALL для ALL, только из bookings для FUTURE
+     */
+    @Test
+    void shouldFindBookingListsInTwoQueries() {
+        assertThat(countQueries(() -> bookingService.findByBookerIdAndStatus(booker.getId(), BookingRequestState.ALL,
+                new PaginationRequest(0, 10))), equalTo(2L));
+        assertThat(countQueries(() -> bookingService.findByOwnerIdAndStatus(owner.getId(), BookingRequestState.ALL,
+                new PaginationRequest(0, 10))), equalTo(2L));
+        assertThat(countQueries(() -> bookingService.findByOwnerIdAndStatus(owner.getId(),
+                BookingRequestState.FUTURE, new PaginationRequest(0, 10))), equalTo(2L));
+    }
+
+    /**
+     * GET /items/{id}: пользователь, вещь, последние комментарии с авторами, для владельца - сводка бронирований
+     */
+    @Test
+    void shouldFindItemByIdWithoutLoadingAssociations() {
+        assertThat(countQueries(() -> itemService.findById(owner.getId(), item.getId())), equalTo(4L));
+        assertThat(countQueries(() -> itemService.findById(booker.getId(), item.getId())), equalTo(3L));
+    }
+
+    /**
+     * GET /items: пользователь, вещи со сводками бронирований одним запросом, последние комментарии всех вещей
+     * страницы с авторами - еще одним; ни бронирования, ни комментарии по вещам не запрашиваются
+     */
+    @Test
+    void shouldFindItemsByOwnerWithSummariesInOneJoin() {
+        assertThat(countQueries(() -> itemService.findAllByOwnerId(owner.getId(), new PaginationRequest(0, 10))),
+                equalTo(3L));
+    }
+
+    /**
+     * GET /items/search: id по поисковому индексу, вещи и последние комментарии всей страницы
+     */
+    @Test
+    void shouldSearchItemsInTwoQueries() {
+        assertThat(countQueries(() -> itemService.searchAvailableBy("Item", new PaginationRequest(0, 10))),
+                equalTo(2L));
+    }
+
+    /**
+     * GET /items/{id}/comments: проверка вещи, комментарии с авторами
+     */
+    @Test
+    void shouldFindCommentsInTwoQueries() {
+        assertThat(countQueries(() -> itemService.findComments(item.getId(), new PaginationRequest(0, 10))),
+                equalTo(2L));
+    }
+
+    /**
+     * PATCH /items/{id}: пользователь, вещь, UPDATE, последние комментарии
+     */
+    @Test
+    void shouldUpdateItemInFourQueries() {
+        ItemDto update = ItemDto.builder()
+                                .name("Updated")
+                                .build();
+
+        assertThat(countQueries(() -> itemService.update(owner.getId(), item.getId(), update, null)), equalTo(4L));
+    }
+
+    /**
+     * POST /items/{id}/comment: пользователь, вещь, проверка бронирования, INSERT
+     */
+    @Test
+    void shouldAddCommentInFourQueries() {
+        CommentDto toAdd = CommentDto.builder()
+                                     .text("New comment")
+                                     .build();
+
+        assertThat(countQueries(() -> itemService.addComment(booker.getId(), item.getId(), toAdd)), equalTo(4L));
+    }
+
+    /**
+     * GET /requests/{id}: пользователь, запрос, вещи по запросу
+     */
+    @Test
+    void shouldFindRequestByIdInThreeQueries() {
+        assertThat(countQueries(() -> itemRequestService.findById(owner.getId(), request.getId())), equalTo(3L));
+    }
+
+    /**
+     * GET /requests и GET /requests/all: пользователь, страница запросов, вещи всех запросов страницы одним
+     * запросом. Число запросов не зависит от числа запросов на странице
+     */
+    @Test
+    void shouldFindRequestPagesInThreeQueries() {
+        for (int i = 1; i <= 3; i++) {
+            ItemRequest more = itemRequestRepository.save(ItemRequest.builder()
+                                                                     .requester(booker)
+                                                                     .description("Request " + i)
+                                                                     .created(request.getCreated().minusDays(i))
+                                                                     .build());
+            itemRepository.save(Item.builder()
+                                    .name("Item for request " + i)
+                                    .description("Item for request description")
+                                    .owner(owner)
+                                    .available(true)
+                                    .request(more)
+                                    .build());
+        }
+
+        assertThat(countQueries(() -> itemRequestService.findByUserId(booker.getId())), equalTo(3L));
+        assertThat(countQueries(() -> itemRequestService.findPageSortedByDate(owner.getId(),
+                new PaginationRequest(0, 1))), equalTo(3L));
+        assertThat(countQueries(() -> itemRequestService.findPageSortedByDate(owner.getId(),
+                new PaginationRequest(0, 10))), equalTo(3L));
+    }
+
+    private long countQueries(Runnable call) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.base.config;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.UserController;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты ETag для GET-ответов
+ */
+@WebMvcTest(UserController.class)
+@AutoConfigureMockMvc
+@Import(EtagConfig.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EtagConfigTest {
+    final MockMvc mvc;
+    @MockBean
+    final UserService userService;
+
+    @BeforeEach
+    void init() {
+        when(userService.findById(1L)).thenReturn(UserDto.builder()
+                                                         .id(1L)
+                                                         .name("username1")
+                                                         .email("email1@yandex.com")
+                                                         .build());
+    }
+
+    /**
+     * Ответ на GET содержит ETag
+     */
+    @Test
+    void shouldAddEtag() throws Exception {
+        mvc.perform(get("/users/1"))
+           .andExpect(status().isOk())
+           .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    /**
+     * При совпадении If-None-Match возвращается 304 без тела
+     */
+    @Test
+    void shouldReturnNotModifiedForMatchingEtag() throws Exception {
+        String etag = mvc.perform(get("/users/1"))
+                         .andReturn()
+                         .getResponse()
+                         .getHeader(HttpHeaders.ETAG);
+        assertThat(etag, notNullValue());
+
+        mvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+           .andExpect(status().isNotModified())
+           .andExpect(content().string(""));
+    }
+}
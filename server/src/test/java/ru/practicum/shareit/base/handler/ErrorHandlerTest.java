@@ -7,10 +7,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.base.exception.NotFoundException;
 import ru.practicum.shareit.base.exception.ResourceAccessException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.BookingStatusException;
+import ru.practicum.shareit.item.exception.ItemSearchUnavailableException;
 import ru.practicum.shareit.item.exception.ItemUnavailableException;
 import ru.practicum.shareit.user.UserController;
 import ru.practicum.shareit.user.service.UserService;
@@ -123,4 +127,76 @@ class ErrorHandlerTest {
 
         verify(userService, times(1)).findById(incorrectId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Тест BookingConflictException
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturn409WhenBookingConflicts() throws Exception {
+        Long incorrectId = 10L;
+        String test = "test";
+        when(userService.findById(incorrectId)).thenThrow(new BookingConflictException(test));
+
+        mvc.perform(get("/users/" + incorrectId))
+           .andExpect(jsonPath("$.error", is("Booking conflict: " + test)))
+           .andExpect(jsonPath("$.statusCode", is(409)));
+
+        verify(userService, times(1)).findById(incorrectId);
+    }
+
+    /**
+     * Тест VersionConflictException
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturn409WhenVersionConflicts() throws Exception {
+        Long incorrectId = 10L;
+        String test = "test";
+        when(userService.findById(incorrectId)).thenThrow(new VersionConflictException(test));
+
+        mvc.perform(get("/users/" + incorrectId))
+           .andExpect(jsonPath("$.error", is("Version conflict: " + test)))
+           .andExpect(jsonPath("$.statusCode", is(409)));
+
+        verify(userService, times(1)).findById(incorrectId);
+    }
+
+    /**
+     * Тест OptimisticLockingFailureException
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturn409WhenOptimisticLockFails() throws Exception {
+        Long incorrectId = 10L;
+        String test = "test";
+        when(userService.findById(incorrectId)).thenThrow(new OptimisticLockingFailureException(test));
+
+        mvc.perform(get("/users/" + incorrectId))
+           .andExpect(jsonPath("$.error", is("Concurrent modification: " + test)))
+           .andExpect(jsonPath("$.statusCode", is(409)));
+
+        verify(userService, times(1)).findById(incorrectId);
+    }
+
+    /**
+     * Тест ItemSearchUnavailableException
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturn503WhenSearchIsUnavailable() throws Exception {
+        Long incorrectId = 10L;
+        String test = "test";
+        when(userService.findById(incorrectId)).thenThrow(new ItemSearchUnavailableException(test));
+
+        mvc.perform(get("/users/" + incorrectId))
+           .andExpect(jsonPath("$.error", is("Service unavailable: " + test)))
+           .andExpect(jsonPath("$.statusCode", is(503)));
+
+        verify(userService, times(1)).findById(incorrectId);
+    }
+}
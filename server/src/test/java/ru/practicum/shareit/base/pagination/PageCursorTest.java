@@ -0,0 +1,66 @@
+package ru.practicum.shareit.base.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Юнит тесты для PageCursor
+ */
+class PageCursorTest {
+    /**
+     * Курсор с ключом времени восстанавливается из строки без потерь
+     */
+    @Test
+    void shouldDecodeEncodedCursorWithTime() {
+        PageCursor cursor = PageCursor.of(LocalDateTime.of(2022, 9, 1, 12, 30, 15, 123_456_000), 42L);
+
+        assertThat(PageCursor.decode(cursor.encode()), equalTo(cursor));
+    }
+
+    /**
+     * Курсор только по id восстанавливается из строки без потерь
+     */
+    @Test
+    void shouldDecodeEncodedCursorWithId() {
+        PageCursor cursor = PageCursor.ofId(7L);
+
+        PageCursor actual = PageCursor.decode(cursor.encode());
+
+        assertThat(actual, equalTo(cursor));
+        assertThat(actual.getTime(), nullValue());
+        assertThrows(IllegalRequestStateException.class, actual::requireTime);
+    }
+
+    /**
+     * Некорректная строка курсора
+     */
+    @Test
+    void shouldThrowWhenCursorIsInvalid() {
+        assertThrows(IllegalRequestStateException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalRequestStateException.class, () -> new PaginationRequest(0, 10, "bm90LWEtY3Vyc29y"));
+    }
+
+    /**
+     * Заголовок X-Next-Cursor есть только у полной страницы
+     */
+    @Test
+    void shouldAddNextCursorHeaderForFullPage() {
+        Function<Long, PageCursor> cursorOf = PageCursor::ofId;
+
+        ResponseEntity<List<Long>> full = PageCursor.toResponse(List.of(1L, 2L), 2, cursorOf);
+        ResponseEntity<List<Long>> partial = PageCursor.toResponse(List.of(1L), 2, cursorOf);
+
+        assertThat(full.getHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER), equalTo(PageCursor.ofId(2L).encode()));
+        assertThat(partial.getHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER), nullValue());
+    }
+}
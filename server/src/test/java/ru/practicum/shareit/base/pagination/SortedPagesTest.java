@@ -0,0 +1,37 @@
+package ru.practicum.shareit.base.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Юнит тесты для SortedPages
+ */
+class SortedPagesTest {
+    /**
+     * Страницы сливаются в общем порядке, limit ограничивает результат
+     */
+    @Test
+    void shouldMergeInOrder() {
+        List<Integer> actual = SortedPages.merge(List.of(List.of(9, 5, 1), List.of(8, 7, 2)),
+                Comparator.reverseOrder(), 5);
+
+        assertThat(actual, equalTo(List.of(9, 8, 7, 5, 2)));
+    }
+
+    /**
+     * Пустые страницы и limit больше числа элементов
+     */
+    @Test
+    void shouldHandleEmptyPages() {
+        assertThat(SortedPages.merge(List.of(List.of(), List.of(3)), Comparator.<Integer>reverseOrder(), 10),
+                equalTo(List.of(3)));
+        assertThat(SortedPages.merge(List.of(List.of(), List.of()), Comparator.<Integer>reverseOrder(), 10),
+                empty());
+    }
+}
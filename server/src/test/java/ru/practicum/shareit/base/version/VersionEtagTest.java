@@ -0,0 +1,60 @@
+package ru.practicum.shareit.base.version;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Юнит тесты для VersionEtag
+ */
+class VersionEtagTest {
+    /**
+     * ETag ответа - версия в кавычках, без версии заголовка нет
+     */
+    @Test
+    void shouldSetEtagFromVersion() {
+        ResponseEntity<String> withVersion = VersionEtag.ok("body", 3L);
+        ResponseEntity<String> withoutVersion = VersionEtag.ok("body", null);
+
+        assertThat(withVersion.getHeaders().getETag(), equalTo("\"3\""));
+        assertThat(withVersion.getBody(), equalTo("body"));
+        assertThat(withoutVersion.getHeaders().getETag(), nullValue());
+    }
+
+    /**
+     * Разбор If-Match: версия в кавычках, отсутствие заголовка и * - без проверки
+     */
+    @Test
+    void shouldParseIfMatch() {
+        assertThat(VersionEtag.parseIfMatch("\"3\""), equalTo(3L));
+        assertThat(VersionEtag.parseIfMatch(null), nullValue());
+        assertThat(VersionEtag.parseIfMatch("*"), nullValue());
+    }
+
+    /**
+     * If-Match не по версии: слабый ETag, без кавычек, не число
+     */
+    @Test
+    void shouldThrowWhenIfMatchIsNotVersion() {
+        assertThrows(IllegalRequestStateException.class, () -> VersionEtag.parseIfMatch("W/\"3\""));
+        assertThrows(IllegalRequestStateException.class, () -> VersionEtag.parseIfMatch("3"));
+        assertThrows(IllegalRequestStateException.class, () -> VersionEtag.parseIfMatch("\"abc\""));
+    }
+
+    /**
+     * Проверка версии: null - без проверки, несовпадение - конфликт
+     */
+    @Test
+    void shouldCheckVersion() {
+        assertDoesNotThrow(() -> VersionEtag.checkVersion("Item", 1L, null, 2L));
+        assertDoesNotThrow(() -> VersionEtag.checkVersion("Item", 1L, 2L, 2L));
+        assertThrows(VersionConflictException.class, () -> VersionEtag.checkVersion("Item", 1L, 1L, 2L));
+    }
+}
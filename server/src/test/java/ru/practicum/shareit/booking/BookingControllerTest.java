@@ -12,11 +12,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.base.exception.VersionConflictException;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBulkDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto.Outcome;
 import ru.practicum.shareit.booking.model.ApprovedState;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -37,7 +42,9 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * Юнит тесты для BookingController
@@ -116,7 +123,7 @@ class BookingControllerTest {
                                                       .id(bookingId)
                                                       .status(BookingStatus.APPROVED)
                                                       .build();
-        when(bookingService.handleStatus(userId, bookingId, state)).thenReturn(expected);
+        when(bookingService.handleStatus(userId, bookingId, state, null)).thenReturn(expected);
 
         mvc.perform(patch("/bookings/" + bookingId)
                    .header("X-Sharer-User-Id", userId)
@@ -124,7 +131,100 @@ class BookingControllerTest {
            .andExpect(jsonPath("$.id", is(bookingId), Long.class))
            .andExpect(jsonPath("$.status", is(expected.getStatus().toString())));
 
-        verify(bookingService, times(1)).handleStatus(userId, bookingId, state);
+        verify(bookingService, times(1)).handleStatus(userId, bookingId, state, null);
+    }
+
+    /**
+     * Эндпоинт PATCH /bookings/{bookingId}/?approved={state} с If-Match: версия передается в сервис,
+     * ETag ответа - новая версия
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldHandleStatusWithIfMatch() throws Exception {
+        Long bookingId = 1L;
+        ApprovedState state = ApprovedState.TRUE;
+        BookingSendingDto expected = BookingSendingDto.builder()
+                                                      .id(bookingId)
+                                                      .status(BookingStatus.APPROVED)
+                                                      .version(1L)
+                                                      .build();
+        when(bookingService.handleStatus(userId, bookingId, state, 0L)).thenReturn(expected);
+
+        mvc.perform(patch("/bookings/" + bookingId)
+                   .header("X-Sharer-User-Id", userId)
+                   .header(HttpHeaders.IF_MATCH, "\"0\"")
+                   .param("approved", "TRUE"))
+           .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+           .andExpect(jsonPath("$.status", is(expected.getStatus().toString())));
+
+        verify(bookingService, times(1)).handleStatus(userId, bookingId, state, 0L);
+    }
+
+    /**
+     * Эндпоинт PATCH /bookings/{bookingId}/?approved={state} с устаревшим If-Match - 409
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturnConflictWhenVersionMismatchForHandleStatus() throws Exception {
+        Long bookingId = 1L;
+        ApprovedState state = ApprovedState.TRUE;
+        when(bookingService.handleStatus(userId, bookingId, state, 0L))
+                .thenThrow(new VersionConflictException("Booking with id=1 has version 1, expected 0"));
+
+        mvc.perform(patch("/bookings/" + bookingId)
+                   .header("X-Sharer-User-Id", userId)
+                   .header(HttpHeaders.IF_MATCH, "\"0\"")
+                   .param("approved", "TRUE"))
+           .andExpect(status().isConflict());
+
+        verify(bookingService, times(1)).handleStatus(userId, bookingId, state, 0L);
+    }
+
+    /**
+     * Эндпоинт PATCH /bookings/{bookingId}/?approved={state} с If-Match не по версии - 400, сервис не вызывается
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldReturnBadRequestWhenIfMatchIsNotVersion() throws Exception {
+        mvc.perform(patch("/bookings/1")
+                   .header("X-Sharer-User-Id", userId)
+                   .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                   .param("approved", "TRUE"))
+           .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Эндпоинт PATCH /bookings?approved={state}, тело - список id бронирований, X-Sharer-User-Id - id пользователя
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldHandleStatuses() throws Exception {
+        ApprovedState state = ApprovedState.FALSE;
+        List<Long> bookingIds = List.of(1L, 2L);
+        BookingStatusBulkDto bulkDto = new BookingStatusBulkDto(bookingIds);
+        List<BookingStatusResultDto> expected = List.of(
+                new BookingStatusResultDto(1L, Outcome.UPDATED, 10L, BookingStatus.REJECTED),
+                new BookingStatusResultDto(2L, Outcome.NOT_OWNER, null, null));
+        when(bookingService.handleStatuses(userId, bookingIds, state)).thenReturn(expected);
+
+        mvc.perform(patch("/bookings")
+                   .header("X-Sharer-User-Id", userId)
+                   .param("approved", "FALSE")
+                   .characterEncoding(StandardCharsets.UTF_8)
+                   .contentType(MediaType.APPLICATION_JSON)
+                   .content(mapper.writeValueAsString(bulkDto)))
+           .andExpect(jsonPath("$[0].bookingId", is(1L), Long.class))
+           .andExpect(jsonPath("$[0].outcome", is(Outcome.UPDATED.toString())))
+           .andExpect(jsonPath("$[0].itemId", is(10L), Long.class))
+           .andExpect(jsonPath("$[0].status", is(BookingStatus.REJECTED.toString())))
+           .andExpect(jsonPath("$[1].bookingId", is(2L), Long.class))
+           .andExpect(jsonPath("$[1].outcome", is(Outcome.NOT_OWNER.toString())));
+
+        verify(bookingService, times(1)).handleStatuses(userId, bookingIds, state);
     }
 
     /**
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
@@ -16,6 +17,7 @@ import ru.practicum.shareit.user.UserRepository;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -87,25 +89,45 @@ class BookingRepositoryTest {
      */
     @Test
     void shouldFindAllByBookerWhereTimeIsInside() {
-        List<Booking> expected = List.of(booking2);
+        List<BookingRow> actual = bookingRepository.findAllByBookerWhereTimeIsInside(user2.getId(),
+                LocalDateTime.now(), PageRequest.of(0,10));
 
-        List<Booking> actual = bookingRepository.findAllByBookerWhereTimeIsInside(user2.getId(), LocalDateTime.now(),
-                PageRequest.of(0,10));
+        assertThat(idsOf(actual), equalTo(List.of(booking2.getId())));
+    }
 
-        assertThat(actual, equalTo(expected));
+    /**
+     * Проекция BookingRow содержит все поля BookingSendingDto
+     */
+    @Test
+    void shouldFillBookingRow() {
+        List<BookingRow> actual = bookingRepository.findAllByBookerIdAndStatus(user2.getId(), BookingStatus.WAITING,
+                PageRequest.of(0, 10));
+
+        assertThat(BookingMapper.toSendingDto(actual.get(0)), equalTo(BookingMapper.toSendingDto(booking2)));
     }
 
     /**
-     * Стандартное поведение для findAllByItemIdInWhereTimeIsInside
+     * Стандартное поведение для findAllByOwnerIdAndStatus
      */
     @Test
-    void shouldFindAllByItemIdInWhereTimeIsInside() {
-        List<Booking> expected = List.of(booking2);
+    void shouldFindAllByOwnerIdAndStatus() {
+        List<BookingRow> actual = bookingRepository.findAllByOwnerIdAndStatus(user1.getId(), BookingStatus.WAITING,
+                PageRequest.of(0, 10));
 
-        List<Booking> actual = bookingRepository.findAllByItemIdInWhereTimeIsInside(List.of(item1.getId()),
-                LocalDateTime.now(), PageRequest.of(0,10));
+        assertThat(idsOf(actual), equalTo(List.of(booking2.getId())));
+    }
 
-        assertThat(actual, equalTo(expected));
+    /**
+     * Стандартное поведение для findAllByOwnerWhereTimeIsInside и findAllByOwnerIdAndStartAfter
+     */
+    @Test
+    void shouldFindAllByOwnerIdForTimeStates() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(idsOf(bookingRepository.findAllByOwnerWhereTimeIsInside(user1.getId(), now, PageRequest.of(0, 10))),
+                equalTo(List.of(booking2.getId())));
+        assertThat(idsOf(bookingRepository.findAllByOwnerIdAndStartAfter(user1.getId(), now, PageRequest.of(0, 10))),
+                equalTo(List.of(booking3.getId())));
     }
 
     /**
@@ -144,4 +166,34 @@ class BookingRepositoryTest {
 
         assertThat(actual, equalTo(expected));
     }
-}
\ No newline at end of file
+
+    /**
+     * Keyset-страницы findPageByBookerIdAfter проходят все бронирования без пропусков и повторов
+     */
+    @Test
+    void shouldFindPageByBookerIdAfter() {
+        List<BookingRow> firstPage = bookingRepository.findPageByBookerIdAfter(user2.getId(),
+                LocalDateTime.now().plusYears(100), Long.MAX_VALUE, PageRequest.of(0, 2));
+        BookingRow last = firstPage.get(firstPage.size() - 1);
+        List<BookingRow> secondPage = bookingRepository.findPageByBookerIdAfter(user2.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 2));
+
+        assertThat(idsOf(firstPage), equalTo(List.of(booking3.getId(), booking2.getId())));
+        assertThat(idsOf(secondPage), equalTo(List.of(booking1.getId())));
+    }
+
+    /**
+     * Стандартное поведение для findPageByOwnerIdAndStatusAfter
+     */
+    @Test
+    void shouldFindPageByOwnerIdAndStatusAfter() {
+        List<BookingRow> actual = bookingRepository.findPageByOwnerIdAndStatusAfter(user1.getId(),
+                BookingStatus.APPROVED, booking3.getStart(), booking3.getId(), PageRequest.of(0, 10));
+
+        assertThat(idsOf(actual), equalTo(List.of(booking1.getId())));
+    }
+
+    private static List<Long> idsOf(List<BookingRow> rows) {
+        return rows.stream().map(BookingRow::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Бронирования вещей владельца (CURRENT, страница 10): время запроса с соединением с items по owner_id
+ * при росте числа вещей владельца.
+ * Не входит в обычный прогон тестов, запуск: mvn -pl server test -Dtest=OwnerBookingQueryBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.show_sql=false")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class OwnerBookingQueryBenchmark {
+    private static final int[] INVENTORIES = {100, 1_000, 10_000};
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    final BookingRepository bookingRepository;
+    final JdbcTemplate jdbcTemplate;
+    final TestEntityManager entityManager;
+
+    @Test
+    void measureOwnerJoin() {
+        Long bookerId = insertUser("booker");
+        Pageable page = PageRequest.of(0, 10, Sort.by("start").descending());
+        for (int inventory : INVENTORIES) {
+            Long ownerId = insertUser("owner" + inventory);
+            insertItemsWithBookings(ownerId, bookerId, inventory);
+            LocalDateTime now = LocalDateTime.now();
+
+            double joinMicros = measure(() -> bookingRepository.findAllByOwnerWhereTimeIsInside(ownerId, now, page));
+
+            System.out.printf("items %6d: join %8.1f us/query%n", inventory, joinMicros);
+        }
+    }
+
+    private double measure(Supplier<List<?>> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            total += System.nanoTime() - start;
+            entityManager.clear();
+        }
+        return total / 1_000.0 / ITERATIONS;
+    }
+
+    private Long insertUser(String name) {
+        jdbcTemplate.update("INSERT INTO users (username, email) VALUES (?, ?)", name, name + "@bench.mail");
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, name + "@bench.mail");
+    }
+
+    private void insertItemsWithBookings(Long ownerId, Long bookerId, int inventory) {
+        List<Object[]> items = new ArrayList<>(inventory);
+        for (int i = 0; i < inventory; i++) {
+            items.add(new Object[]{ownerId, "Item" + i, "Item" + i + " description", true});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO items (owner_id, item_name, description, available) " +
+                "VALUES (?, ?, ?, ?)", items);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> bookings = new ArrayList<>(inventory);
+        List<Long> itemIds = jdbcTemplate.queryForList("SELECT id FROM items WHERE owner_id = ?", Long.class,
+                ownerId);
+        for (int i = 0; i < itemIds.size(); i++) {
+            bookings.add(new Object[]{Timestamp.valueOf(now.minusDays(1).plusMinutes(i)),
+                    Timestamp.valueOf(now.plusDays(1)), itemIds.get(i), bookerId, "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (start_time, end_time, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, ?)", bookings);
+    }
+}
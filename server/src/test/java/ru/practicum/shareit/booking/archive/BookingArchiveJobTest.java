@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для BookingArchiveJob
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingArchiveJobTest {
+    @Mock
+    BookingService bookingService;
+
+    SimpleMeterRegistry registry;
+    BookingArchiveJob job;
+    LocalDateTime now;
+    LocalDateTime cutoff;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        job = new BookingArchiveJob(bookingService, registry, 30, 10, 3);
+        now = LocalDateTime.now();
+        cutoff = now.minusDays(30);
+    }
+
+    /**
+     * Граница архивации - retention-days дней до запуска, пакеты обрабатываются до первого неполного
+     */
+    @Test
+    void shouldArchiveUntilBatchIsNotFull() {
+        when(bookingService.archiveEnded(cutoff, 10)).thenReturn(10, 4);
+
+        int actual = job.archive(now);
+
+        assertThat(actual, equalTo(14));
+        DistributionSummary summary = registry.get(BookingArchiveJob.ROWS_METRIC).summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(14.0));
+
+        verify(bookingService, times(2)).archiveEnded(cutoff, 10);
+    }
+
+    /**
+     * За запуск обрабатывается не больше max-batches пакетов
+     */
+    @Test
+    void shouldStopAfterMaxBatches() {
+        when(bookingService.archiveEnded(cutoff, 10)).thenReturn(10);
+
+        assertThat(job.archive(now), equalTo(30));
+
+        verify(bookingService, times(3)).archiveEnded(cutoff, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifyNoMoreInteractions(bookingService);
+    }
+}
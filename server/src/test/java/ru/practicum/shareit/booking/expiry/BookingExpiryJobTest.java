@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для BookingExpiryJob
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryJobTest {
+    @Mock
+    BookingService bookingService;
+
+    SimpleMeterRegistry registry;
+    BookingExpiryJob job;
+    LocalDateTime cutoff;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        job = new BookingExpiryJob(bookingService, registry, 10, 3);
+        cutoff = LocalDateTime.now();
+    }
+
+    /**
+     * Пакеты обрабатываются до первого неполного, число строк записывается в метрику
+     */
+    @Test
+    void shouldExpireUntilBatchIsNotFull() {
+        when(bookingService.expireWaiting(cutoff, 10)).thenReturn(10, 4);
+
+        int actual = job.expire(cutoff);
+
+        assertThat(actual, equalTo(14));
+        DistributionSummary summary = registry.get(BookingExpiryJob.ROWS_METRIC).summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(14.0));
+
+        verify(bookingService, times(2)).expireWaiting(cutoff, 10);
+    }
+
+    /**
+     * За запуск обрабатывается не больше max-batches пакетов
+     */
+    @Test
+    void shouldStopAfterMaxBatches() {
+        when(bookingService.expireWaiting(cutoff, 10)).thenReturn(10);
+
+        int actual = job.expire(cutoff);
+
+        assertThat(actual, equalTo(30));
+
+        verify(bookingService, times(3)).expireWaiting(cutoff, 10);
+    }
+
+    /**
+     * Запуск без истекших бронирований тоже попадает в метрику
+     */
+    @Test
+    void shouldRecordEmptyRun() {
+        when(bookingService.expireWaiting(cutoff, 10)).thenReturn(0);
+
+        assertThat(job.expire(cutoff), equalTo(0));
+        assertThat(registry.get(BookingExpiryJob.ROWS_METRIC).summary().count(), equalTo(1L));
+
+        verify(bookingService, times(1)).expireWaiting(cutoff, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifyNoMoreInteractions(bookingService);
+    }
+}
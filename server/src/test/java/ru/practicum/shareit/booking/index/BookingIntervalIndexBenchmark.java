@@ -0,0 +1,68 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.Random;
+
+/**
+ * Проверка пересечения бронирований: интервальное дерево против перебора всех бронирований вещи.
+ * 10^6 бронирований одной вещи, случайные запросы. Не входит в обычный прогон тестов,
+ * запуск: mvn -pl server test -Dtest=BookingIntervalIndexBenchmark
+ */
+@Tag("benchmark")
+class BookingIntervalIndexBenchmark {
+    private static final int BOOKINGS = 1_000_000;
+    private static final int QUERIES = 100_000;
+    private static final int SCAN_QUERIES = 1_000;
+    private static final long HOUR = 3_600_000_000L;
+
+    @Test
+    void compareWithLinearScan() {
+        long[] starts = new long[BOOKINGS];
+        long[] ends = new long[BOOKINGS];
+        IntervalTree tree = new IntervalTree();
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < BOOKINGS; i++) {
+            starts[i] = i * 3 * HOUR;
+            ends[i] = starts[i] + 2 * HOUR;
+            tree.insert(i, starts[i], ends[i], BookingStatus.APPROVED);
+        }
+        long buildNanos = System.nanoTime() - buildStart;
+
+        Random random = new Random(42);
+        long[] queries = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = (long) (random.nextDouble() * BOOKINGS * 3 * HOUR);
+        }
+
+        int treeHits = 0;
+        long treeStart = System.nanoTime();
+        for (long from : queries) {
+            if (tree.findOverlapping(from, from + HOUR) != null) {
+                treeHits++;
+            }
+        }
+        long treeNanos = System.nanoTime() - treeStart;
+
+        int scanHits = 0;
+        long scanStart = System.nanoTime();
+        for (int q = 0; q < SCAN_QUERIES; q++) {
+            long from = queries[q];
+            for (int i = 0; i < BOOKINGS; i++) {
+                if (starts[i] < from + HOUR && ends[i] > from) {
+                    scanHits++;
+                    break;
+                }
+            }
+        }
+        long scanNanos = System.nanoTime() - scanStart;
+
+        System.out.printf("build %d bookings: %d ms%n", BOOKINGS, buildNanos / 1_000_000);
+        System.out.printf("interval tree: %.3f us/query (%d hits of %d)%n",
+                treeNanos / 1_000.0 / QUERIES, treeHits, QUERIES);
+        System.out.printf("linear scan:   %.3f us/query (%d hits of %d)%n",
+                scanNanos / 1_000.0 / SCAN_QUERIES, scanHits, SCAN_QUERIES);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для BookingIntervalIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    @Mock
+    BookingRepository bookingRepository;
+
+    BookingIntervalIndex index;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    @BeforeEach
+    void init() {
+        index = new BookingIntervalIndex(bookingRepository, 100, Duration.ofMinutes(1), Duration.ofMinutes(5),
+                Duration.ofDays(1));
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        end = start.plusDays(1);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    /**
+     * Бронирование попадает в индекс только после фиксации транзакции
+     */
+    @Test
+    void shouldAddAfterCommit() {
+        when(bookingRepository.findIntervalsByItemIdEndingAfter(eq(1L), eq(BookingIntervalIndex.BLOCKING_STATUSES),
+                any())).thenReturn(List.of());
+        index.add(1L, 10L, start, end);
+
+        assertThat(index.isFree(1L, start, end), equalTo(true));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(index.isFree(1L, start, end), equalTo(false));
+    }
+
+    /**
+     * При откате транзакции индекс не меняется
+     */
+    @Test
+    void shouldNotAddOnRollback() {
+        when(bookingRepository.findIntervalsByItemIdEndingAfter(eq(1L), eq(BookingIntervalIndex.BLOCKING_STATUSES),
+                any())).thenReturn(List.of());
+        index.add(1L, 10L, start, end);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                                         .forEach(sync -> sync.afterCompletion(
+                                                 TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(index.isFree(1L, start, end), equalTo(true));
+    }
+
+    /**
+     * Отклонение бронирования освобождает вещь после фиксации транзакции
+     */
+    @Test
+    void shouldRemoveRejectedAfterCommit() {
+        when(bookingRepository.findIntervalsByItemIdEndingAfter(eq(1L), eq(BookingIntervalIndex.BLOCKING_STATUSES),
+                any())).thenReturn(List.of());
+        TransactionSynchronizationManager.clearSynchronization();
+        index.add(1L, 10L, start, end);
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.updateStatus(1L, 10L, start, BookingStatus.REJECTED);
+
+        assertThat(index.isFree(1L, start, end), equalTo(false));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(index.isFree(1L, start, end), equalTo(true));
+    }
+
+    /**
+     * Удаление после фиксации не загружает из БД дерево вещи, не загруженное на этом узле
+     */
+    @Test
+    void shouldRemoveOnlyFromLoadedTree() {
+        index.remove(1L, 10L, start);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(index.isLoaded(1L), equalTo(false));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    /**
+     * Сверка находит отсутствующие в индексе, отличающиеся и удаленные из БД бронирования
+     */
+    @Test
+    void shouldCompareTreeWithStored() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(1L, BookingIntervalIndex.toMicros(start), BookingIntervalIndex.toMicros(end),
+                BookingStatus.WAITING);
+        tree.insert(2L, BookingIntervalIndex.toMicros(end), BookingIntervalIndex.toMicros(end.plusDays(1)),
+                BookingStatus.WAITING);
+        LocalDateTime horizon = LocalDateTime.now().minusDays(1);
+
+        assertThat(BookingIntervalIndex.compare(tree, List.of(
+                new BookingInterval(1L, start, end, BookingStatus.WAITING),
+                new BookingInterval(2L, end, end.plusDays(1), BookingStatus.WAITING)), horizon), empty());
+        assertThat(BookingIntervalIndex.compare(tree, List.of(
+                new BookingInterval(1L, start, end, BookingStatus.APPROVED),
+                new BookingInterval(3L, start, end, BookingStatus.WAITING)), horizon), hasSize(3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
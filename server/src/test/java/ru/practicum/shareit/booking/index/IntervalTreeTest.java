@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Юнит тесты для IntervalTree
+ */
+class IntervalTreeTest {
+    IntervalTree tree;
+
+    @BeforeEach
+    void init() {
+        tree = new IntervalTree();
+        tree.insert(1L, 10, 20, BookingStatus.APPROVED);
+        tree.insert(2L, 30, 40, BookingStatus.WAITING);
+        tree.insert(3L, 50, 60, BookingStatus.WAITING);
+    }
+
+    /**
+     * Пересечение с интервалом внутри и частичное пересечение
+     */
+    @Test
+    void shouldFindOverlapping() {
+        assertThat(tree.findOverlapping(12, 15).getId(), equalTo(1L));
+        assertThat(tree.findOverlapping(35, 55).getId(), notNullValue());
+        assertThat(tree.findOverlapping(0, 100), notNullValue());
+    }
+
+    /**
+     * Полуинтервалы, касающиеся границами, не пересекаются
+     */
+    @Test
+    void shouldNotFindAdjacent() {
+        assertThat(tree.findOverlapping(20, 30), nullValue());
+        assertThat(tree.findOverlapping(0, 10), nullValue());
+        assertThat(tree.findOverlapping(60, 70), nullValue());
+    }
+
+    /**
+     * Удаленный интервал не участвует в поиске
+     */
+    @Test
+    void shouldRemove() {
+        assertThat(tree.remove(30, 2L), equalTo(true));
+        assertThat(tree.remove(30, 2L), equalTo(false));
+
+        assertThat(tree.findOverlapping(30, 40), nullValue());
+        assertThat(tree.size(), equalTo(2));
+    }
+
+    /**
+     * Обход пересекающихся интервалов в порядке начала
+     */
+    @Test
+    void shouldIterateOverlappingInOrder() {
+        List<Long> ids = new ArrayList<>();
+
+        tree.forEachOverlapping(15, 55, node -> ids.add(node.getId()));
+
+        assertThat(ids, equalTo(List.of(1L, 2L, 3L)));
+    }
+
+    /**
+     * Сравнение с полным перебором на случайных вставках и удалениях
+     */
+    @Test
+    void shouldMatchLinearScan() {
+        IntervalTree randomTree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        Random random = new Random(42);
+        for (long id = 0; id < 2_000; id++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(200);
+            randomTree.insert(id, start, end, BookingStatus.WAITING);
+            intervals.add(new long[]{id, start, end});
+        }
+        for (int i = 0; i < 500; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            randomTree.remove(removed[1], removed[0]);
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(200);
+            boolean expected = intervals.stream().anyMatch(interval -> interval[1] < end && interval[2] > start);
+
+            assertThat(randomTree.findOverlapping(start, end) != null, equalTo(expected));
+        }
+        assertThat(randomTree.size(), equalTo(intervals.size()));
+    }
+}
@@ -5,40 +5,58 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.archive.BookingHistory;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.ApprovedState;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Интеграционные тесты для BookingServiceImpl
  */
 @DataJpaTest
-@Import(BookingServiceImpl.class)
+@Import({BookingServiceImpl.class, BookingIntervalIndex.class, ItemBookingSummaries.class, BookingHistory.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class BookingServiceImplIntegrationTest {
     final BookingRepository bookingRepository;
     final ItemRepository itemRepository;
     final UserRepository userRepository;
     final BookingService bookingService;
+    final BookingIntervalIndex bookingIntervalIndex;
+    final ItemBookingSummaries itemBookingSummaries;
+    final ItemBookingSummaryRepository itemBookingSummaryRepository;
+    final TestEntityManager entityManager;
 
     Item item1, item2;
     User user1, user2;
@@ -114,6 +132,102 @@ class BookingServiceImplIntegrationTest {
         assertThat(actual.getEnd(), equalTo(expected.getEnd()));
     }
 
+    /**
+     * Поведение add при пересечении с бронированием в статусе WAITING
+     */
+    @Test
+    void shouldThrowWhenBookingOverlapsForAdd() {
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                       .itemId(item1.getId())
+                                       .start(booking2.getStart().plus(1, ChronoUnit.HOURS))
+                                       .end(booking2.getEnd().plus(1, ChronoUnit.HOURS))
+                                       .build();
+
+        assertThrows(BookingConflictException.class, () -> bookingService.add(user2.getId(), toAdd));
+    }
+
+    /**
+     * Поведение add для бронирования, начинающегося в момент окончания другого
+     */
+    @Test
+    void shouldAddWhenBookingStartsAtEndOfAnother() {
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                       .itemId(item1.getId())
+                                       .start(booking2.getEnd())
+                                       .end(booking2.getEnd().plus(1, ChronoUnit.DAYS))
+                                       .build();
+
+        BookingSendingDto actual = bookingService.add(user2.getId(), toAdd);
+
+        assertThat(actual.getId(), notNullValue());
+    }
+
+    /**
+     * Отклоненное бронирование не мешает новому на тот же период
+     */
+    @Test
+    void shouldAddAfterOverlappingBookingIsRejected() {
+        bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.FALSE, null);
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                       .itemId(item1.getId())
+                                       .start(booking2.getStart())
+                                       .end(booking2.getEnd())
+                                       .build();
+
+        BookingSendingDto actual = bookingService.add(user2.getId(), toAdd);
+
+        assertThat(actual.getId(), notNullValue());
+    }
+
+    /**
+     * Пересечение с бронированием, которого нет в индексе этого экземпляра (создано другим экземпляром server),
+     * обнаруживается проверкой в БД
+     */
+    @Test
+    void shouldThrowWhenBookingOverlapsOnlyInDbForAdd() {
+        LocalDateTime start = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS);
+        bookingIntervalIndex.isFree(item1.getId(), start, start.plusDays(1));
+        bookingRepository.save(Booking.builder()
+                                      .item(item1)
+                                      .start(start)
+                                      .end(start.plusDays(1))
+                                      .status(BookingStatus.WAITING)
+                                      .booker(user2)
+                                      .build());
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                       .itemId(item1.getId())
+                                       .start(start.plusHours(1))
+                                       .end(start.plusDays(2))
+                                       .build();
+
+        assertThrows(BookingConflictException.class, () -> bookingService.add(user2.getId(), toAdd));
+    }
+
+    /**
+     * Бронирования, закончившиеся раньше горизонта хранения, не хранятся в индексе, а окна до горизонта
+     * читаются из БД
+     */
+    @Test
+    void shouldKeepOnlyRecentBookingsInIndex() {
+        Booking old = bookingRepository.save(Booking.builder()
+                                                    .item(item1)
+                                                    .start(LocalDateTime.now().minusDays(11)
+                                                                        .truncatedTo(ChronoUnit.SECONDS))
+                                                    .end(LocalDateTime.now().minusDays(10)
+                                                                      .truncatedTo(ChronoUnit.SECONDS))
+                                                    .status(BookingStatus.APPROVED)
+                                                    .booker(user2)
+                                                    .build());
+        entityManager.flush();
+        bookingIntervalIndex.evict(item1.getId());
+
+        assertThat(bookingIntervalIndex.isFree(item1.getId(), old.getStart(), old.getEnd()), equalTo(false));
+        assertThat(bookingIntervalIndex.isFree(item1.getId(), booking2.getStart(), booking2.getEnd()),
+                equalTo(false));
+        assertThat(bookingIntervalIndex.findFreeSlots(item1.getId(), old.getStart().minusDays(1), old.getEnd()),
+                equalTo(List.of(new ItemAvailabilityDto.TimeSlot(old.getStart().minusDays(1), old.getStart()))));
+    }
+
     /**
      * Стандартное поведение handleStatus
      */
@@ -122,11 +236,176 @@ class BookingServiceImplIntegrationTest {
         BookingSendingDto expected = BookingMapper.toSendingDto(booking2);
         expected.setStatus(BookingStatus.APPROVED);
 
-        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE);
+        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE,
+                null);
 
         assertThat(actual, equalTo(expected));
     }
 
+    /**
+     * handleStatus с совпадающей версией из If-Match возвращает новую версию
+     */
+    @Test
+    void shouldIncrementVersionForHandleStatus() {
+        Long version = booking2.getVersion();
+
+        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE,
+                version);
+
+        assertThat(actual.getVersion(), equalTo(version + 1));
+    }
+
+    /**
+     * handleStatus с устаревшей версией из If-Match
+     */
+    @Test
+    void shouldThrowVersionConflictForHandleStatus() {
+        Long staleVersion = booking2.getVersion() - 1;
+
+        assertThrows(VersionConflictException.class, () -> bookingService.handleStatus(user1.getId(),
+                booking2.getId(), ApprovedState.TRUE, staleVersion));
+        assertThat(booking2.getStatus(), equalTo(BookingStatus.WAITING));
+    }
+
+    /**
+     * handleStatus для бронирования, измененного другой транзакцией после чтения
+     */
+    @Test
+    void shouldThrowOptimisticLockForConcurrentHandleStatus() {
+        entityManager.flush();
+        entityManager.getEntityManager()
+                     .createNativeQuery("UPDATE bookings SET version = version + 1 WHERE id = ?")
+                     .setParameter(1, booking2.getId())
+                     .executeUpdate();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.handleStatus(user1.getId(),
+                booking2.getId(), ApprovedState.TRUE, null));
+        assertThat(bookingIntervalIndex.isFree(item1.getId(), booking2.getStart(), booking2.getEnd()),
+                equalTo(false));
+    }
+
+    /**
+     * Стандартное поведение expireWaiting: истекают только WAITING с прошедшим началом. Индекс меняется после
+     * фиксации транзакции, дерево, загруженное заново, уже не содержит истекшего бронирования
+     */
+    @Test
+    void shouldExpireWaiting() {
+        Booking started = bookingRepository.save(Booking.builder()
+                                                        .item(item1)
+                                                        .start(LocalDateTime.now().minusHours(1)
+                                                                            .truncatedTo(ChronoUnit.SECONDS))
+                                                        .end(LocalDateTime.now().plusHours(1)
+                                                                          .truncatedTo(ChronoUnit.SECONDS))
+                                                        .status(BookingStatus.WAITING)
+                                                        .booker(user2)
+                                                        .build());
+        bookingIntervalIndex.isFree(item1.getId(), started.getStart(), started.getEnd());
+        entityManager.flush();
+        entityManager.clear();
+
+        int actual = bookingService.expireWaiting(LocalDateTime.now(), 10);
+
+        assertThat(actual, equalTo(1));
+        assertThat(bookingRepository.findById(started.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.EXPIRED));
+        assertThat(bookingRepository.findById(booking2.getId()).orElseThrow().getStatus(),
+                equalTo(BookingStatus.WAITING));
+        assertThat(bookingIntervalIndex.isFree(item1.getId(), started.getStart(), started.getEnd()), equalTo(false));
+        bookingIntervalIndex.evict(item1.getId());
+        assertThat(bookingIntervalIndex.isFree(item1.getId(), started.getStart(), started.getEnd()), equalTo(true));
+        assertThat(bookingService.expireWaiting(LocalDateTime.now(), 10), equalTo(0));
+    }
+
+    /**
+     * archiveEnded переносит старые бронирования в архив, списки ALL, PAST и REJECTED читают обе таблицы
+     * в общем порядке с общим смещением и курсором, WAITING - только bookings
+     */
+    @Test
+    void shouldArchiveEndedAndMergeLists() {
+        Booking old = bookingRepository.save(Booking.builder()
+                                                    .item(item1)
+                                                    .start(LocalDateTime.now().minusDays(201)
+                                                                        .truncatedTo(ChronoUnit.SECONDS))
+                                                    .end(LocalDateTime.now().minusDays(200)
+                                                                      .truncatedTo(ChronoUnit.SECONDS))
+                                                    .status(BookingStatus.APPROVED)
+                                                    .booker(user2)
+                                                    .build());
+        bookingIntervalIndex.isFree(item1.getId(), old.getStart(), old.getEnd());
+        entityManager.flush();
+        entityManager.clear();
+
+        int actual = bookingService.archiveEnded(LocalDateTime.now().minusDays(180), 10);
+
+        assertThat(actual, equalTo(1));
+        assertThat(bookingRepository.findById(old.getId()).isPresent(), equalTo(false));
+        assertThat(bookingService.archiveEnded(LocalDateTime.now().minusDays(180), 10), equalTo(0));
+        assertThat(bookingService.findById(user2.getId(), old.getId()).getStart(), equalTo(old.getStart()));
+
+        assertThat(ids(bookingService.findByBookerIdAndStatus(user2.getId(), BookingRequestState.ALL,
+                new PaginationRequest(0, 10))), equalTo(List.of(booking2.getId(), booking1.getId(), old.getId())));
+        assertThat(ids(bookingService.findByOwnerIdAndStatus(user1.getId(), BookingRequestState.PAST,
+                new PaginationRequest(0, 10))), equalTo(List.of(booking1.getId(), old.getId())));
+        assertThat(ids(bookingService.findByBookerIdAndStatus(user2.getId(), BookingRequestState.ALL,
+                new PaginationRequest(2, 1))), equalTo(List.of(old.getId())));
+        assertThat(ids(bookingService.findByOwnerIdAndStatus(user1.getId(), BookingRequestState.REJECTED,
+                new PaginationRequest(0, 10))), equalTo(List.of()));
+        String cursor = PageCursor.of(booking1.getStart(), booking1.getId()).encode();
+        assertThat(ids(bookingService.findByOwnerIdAndStatus(user1.getId(), BookingRequestState.ALL,
+                new PaginationRequest(0, 10, cursor))), equalTo(List.of(old.getId())));
+        assertThat(ids(bookingService.findByBookerIdAndStatus(user2.getId(), BookingRequestState.WAITING,
+                new PaginationRequest(0, 10))), equalTo(List.of(booking2.getId())));
+    }
+
+    /**
+     * Сводка вещи: подтверждение будущего бронирования делает его следующим, после наступления его начала
+     * пересчет переносит его в последние
+     */
+    @Test
+    void shouldMaintainItemBookingSummary() {
+        assertThat(itemBookingSummaries.insertMissing(), equalTo(2));
+        assertThat(itemBookingSummaries.roll(LocalDateTime.now(), 10), equalTo(2));
+        entityManager.flush();
+        entityManager.clear();
+        ItemBookingSummary summary = itemBookingSummaryRepository.findById(item1.getId()).orElseThrow();
+        assertThat(summary.getLastBookingId(), equalTo(booking1.getId()));
+        assertThat(summary.getNextBookingId(), equalTo(null));
+
+        bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE, null);
+        entityManager.clear();
+        summary = itemBookingSummaryRepository.findById(item1.getId()).orElseThrow();
+        assertThat(summary.getNextBookingId(), equalTo(booking2.getId()));
+        assertThat(summary.getNextBookerId(), equalTo(user2.getId()));
+        assertThat(summary.getNextStart(), equalTo(booking2.getStart()));
+        assertThat(itemBookingSummaries.roll(LocalDateTime.now(), 10), equalTo(0));
+
+        LocalDateTime started = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        entityManager.getEntityManager()
+                     .createNativeQuery("UPDATE bookings SET start_time = ? WHERE id = ?")
+                     .setParameter(1, started)
+                     .setParameter(2, booking2.getId())
+                     .executeUpdate();
+        entityManager.getEntityManager()
+                     .createNativeQuery("UPDATE item_booking_summary SET next_start = ? WHERE item_id = ?")
+                     .setParameter(1, started)
+                     .setParameter(2, item1.getId())
+                     .executeUpdate();
+
+        assertThat(itemBookingSummaries.roll(LocalDateTime.now(), 10), equalTo(1));
+        entityManager.flush();
+        entityManager.clear();
+        summary = itemBookingSummaryRepository.findById(item1.getId()).orElseThrow();
+        assertThat(summary.getLastBookingId(), equalTo(booking2.getId()));
+        assertThat(summary.getLastStart(), equalTo(started));
+        assertThat(summary.getNextBookingId(), equalTo(null));
+    }
+
+    private static List<Long> ids(List<BookingSendingDto> bookings) {
+        return bookings.stream()
+                       .map(BookingSendingDto::getId)
+                       .collect(Collectors.toList());
+    }
+
     /**
      * Стандартное поведение findById
      */
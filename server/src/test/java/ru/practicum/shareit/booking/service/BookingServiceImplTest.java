@@ -11,15 +11,25 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.archive.BookingHistory;
 import ru.practicum.shareit.booking.dto.BookingReceivingDto;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto.Outcome;
+import ru.practicum.shareit.booking.dto.BookingStatusRow;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.BookingCreationException;
 import ru.practicum.shareit.booking.exception.BookingNotFoundException;
 import ru.practicum.shareit.booking.exception.BookingStatusException;
 import ru.practicum.shareit.booking.model.ApprovedState;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.exception.InvalidItemOwnerException;
@@ -27,6 +37,7 @@ import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.exception.ItemUnavailableException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
@@ -34,13 +45,18 @@ import ru.practicum.shareit.user.exception.UserNotFoundException;
 import java.time.LocalDateTime;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -56,9 +72,17 @@ class BookingServiceImplTest {
     @MockBean
     final BookingRepository bookingRepository;
     @MockBean
+    final BookingArchiveRepository bookingArchiveRepository;
+    @MockBean
+    final BookingHistory bookingHistory;
+    @MockBean
     final ItemRepository itemRepository;
     @MockBean
     final UserRepository userRepository;
+    @MockBean
+    final BookingIntervalIndex bookingIntervalIndex;
+    @MockBean
+    final ItemBookingSummaries itemBookingSummaries;
     @InjectMocks
     final BookingService bookingService;
 
@@ -87,8 +111,8 @@ class BookingServiceImplTest {
                     .owner(user2)
                     .available(false)
                     .build();
-        when(itemRepository.findById(item1.getId())).thenReturn(Optional.of(item1));
-        when(itemRepository.findById(item2.getId())).thenReturn(Optional.of(item2));
+        when(itemRepository.findWithLockById(item1.getId())).thenReturn(Optional.of(item1));
+        when(itemRepository.findWithLockById(item2.getId())).thenReturn(Optional.of(item2));
 
         booking1 = Booking.builder()
                           .id(1L)
@@ -107,8 +131,8 @@ class BookingServiceImplTest {
                           .status(BookingStatus.WAITING)
                           .booker(user2)
                           .build();
-        when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
-        when(bookingRepository.findById(booking2.getId())).thenReturn(Optional.of(booking2));
+        when(bookingRepository.findWithItemAndBookerById(booking1.getId())).thenReturn(Optional.of(booking1));
+        when(bookingRepository.findWithItemAndBookerById(booking2.getId())).thenReturn(Optional.of(booking2));
     }
 
     /**
@@ -140,8 +164,33 @@ class BookingServiceImplTest {
         assertThat(actual, equalTo(expected));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).findWithLockById(item1.getId());
+        verify(bookingRepository, times(1)).existsOverlapping(item1.getId(), BookingIntervalIndex.BLOCKING_STATUSES,
+                toAdd.getStart(), toAdd.getEnd());
         verify(bookingRepository, times(1)).save(expectedBooking);
+        verify(bookingIntervalIndex, times(1)).add(item1.getId(), null, toAdd.getStart(), toAdd.getEnd());
+    }
+
+    /**
+     * Поведение add при пересечении с существующим бронированием: проверка идет в БД, индекс не используется
+     */
+    @Test
+    void shouldThrowWhenBookingOverlapsForAdd() {
+        BookingReceivingDto toAdd = BookingReceivingDto.builder()
+                                                       .start(booking2.getStart())
+                                                       .end(booking2.getEnd())
+                                                       .itemId(item1.getId())
+                                                       .build();
+        when(bookingRepository.existsOverlapping(item1.getId(), BookingIntervalIndex.BLOCKING_STATUSES,
+                toAdd.getStart(), toAdd.getEnd())).thenReturn(true);
+
+        assertThrows(BookingConflictException.class, () -> bookingService.add(user2.getId(), toAdd));
+
+        verify(userRepository, times(1)).findById(user2.getId());
+        verify(itemRepository, times(1)).findWithLockById(item1.getId());
+        verify(bookingRepository, times(1)).existsOverlapping(item1.getId(), BookingIntervalIndex.BLOCKING_STATUSES,
+                toAdd.getStart(), toAdd.getEnd());
+        verifyNoInteractions(bookingIntervalIndex);
     }
 
     /**
@@ -181,12 +230,12 @@ class BookingServiceImplTest {
                                                                          .truncatedTo(ChronoUnit.SECONDS))
                                                        .itemId(incorrectId)
                                                        .build();
-        when(itemRepository.findById(incorrectId)).thenReturn(Optional.empty());
+        when(itemRepository.findWithLockById(incorrectId)).thenReturn(Optional.empty());
 
         assertThrows(ItemNotFoundException.class, () -> bookingService.add(user2.getId(), toAdd));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(itemRepository, times(1)).findById(incorrectId);
+        verify(itemRepository, times(1)).findWithLockById(incorrectId);
     }
 
     /**
@@ -207,7 +256,7 @@ class BookingServiceImplTest {
         assertThrows(BookingCreationException.class, () -> bookingService.add(user1.getId(), toAdd));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).findWithLockById(item1.getId());
     }
 
     /**
@@ -228,7 +277,7 @@ class BookingServiceImplTest {
         assertThrows(ItemUnavailableException.class, () -> bookingService.add(user1.getId(), toAdd));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findById(item2.getId());
+        verify(itemRepository, times(1)).findWithLockById(item2.getId());
     }
 
     /**
@@ -239,13 +288,51 @@ class BookingServiceImplTest {
         BookingSendingDto expected = BookingMapper.toSendingDto(booking2);
         expected.setStatus(BookingStatus.APPROVED);
 
-        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE);
+        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.TRUE,
+                null);
 
         assertThat(actual, equalTo(expected));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
-        verify(itemRepository, times(1)).findById(expected.getItem().getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
+        verify(bookingRepository, times(1)).flush();
+        verify(bookingIntervalIndex, times(1)).updateStatus(item1.getId(), booking2.getId(), booking2.getStart(),
+                BookingStatus.APPROVED);
+        verify(itemBookingSummaries, times(1)).approved(item1.getId(), booking2.getId(), user2.getId(),
+                booking2.getStart(), booking2.getEnd());
+    }
+
+    /**
+     * handleStatus с отказом: сводка вещи не меняется
+     */
+    @Test
+    void shouldNotTouchSummaryWhenRejected() {
+        BookingSendingDto actual = bookingService.handleStatus(user1.getId(), booking2.getId(), ApprovedState.FALSE,
+                null);
+
+        assertThat(actual.getStatus(), equalTo(BookingStatus.REJECTED));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
+        verify(bookingRepository, times(1)).flush();
+        verify(bookingIntervalIndex, times(1)).updateStatus(item1.getId(), booking2.getId(), booking2.getStart(),
+                BookingStatus.REJECTED);
+    }
+
+    /**
+     * Поведение handleStatus при версии из If-Match, отличной от версии бронирования
+     */
+    @Test
+    void shouldThrowWhenVersionMismatchForHandleStatus() {
+        booking2.setVersion(2L);
+
+        assertThrows(VersionConflictException.class, () -> bookingService.handleStatus(user1.getId(),
+                booking2.getId(), ApprovedState.TRUE, 1L));
+        assertThat(booking2.getStatus(), equalTo(BookingStatus.WAITING));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
+        verifyNoInteractions(bookingIntervalIndex);
     }
 
     /**
@@ -257,7 +344,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(incorrectId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> bookingService.handleStatus(incorrectId, booking2.getId(),
-                ApprovedState.TRUE));
+                ApprovedState.TRUE, null));
 
         verify(userRepository, times(1)).findById(incorrectId);
     }
@@ -268,13 +355,13 @@ class BookingServiceImplTest {
     @Test
     void shouldThrowWhenIncorrectBookingIdForHandleStatus() {
         Long incorrectId = -1L;
-        when(bookingRepository.findById(incorrectId)).thenReturn(Optional.empty());
+        when(bookingRepository.findWithItemAndBookerById(incorrectId)).thenReturn(Optional.empty());
 
         assertThrows(BookingNotFoundException.class, () -> bookingService.handleStatus(user1.getId(), incorrectId,
-                ApprovedState.TRUE));
+                ApprovedState.TRUE, null));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(bookingRepository, times(1)).findById(incorrectId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(incorrectId);
     }
 
     /**
@@ -285,10 +372,10 @@ class BookingServiceImplTest {
         booking2.setStatus(BookingStatus.APPROVED);
 
         assertThrows(BookingStatusException.class, () -> bookingService.handleStatus(user1.getId(), booking2.getId(),
-                ApprovedState.TRUE));
+                ApprovedState.TRUE, null));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
     }
 
     /**
@@ -297,11 +384,85 @@ class BookingServiceImplTest {
     @Test
     void shouldThrowWhenUserIsNotOwnerForHandleStatus() {
         assertThrows(InvalidItemOwnerException.class, () -> bookingService.handleStatus(user2.getId(), booking2.getId(),
-                ApprovedState.TRUE));
+                ApprovedState.TRUE, null));
+
+        verify(userRepository, times(1)).findById(user2.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
+    }
+
+    /**
+     * Стандартное поведение handleStatuses: один запрос на проверку, один UPDATE, результат по каждому id
+     */
+    @Test
+    void shouldHandleStatuses() {
+        Long missingId = 99L;
+        when(bookingRepository.findStatusRowsByIdIn(any()))
+                .thenReturn(List.of(toStatusRow(booking1), toStatusRow(booking2)));
+        when(bookingRepository.updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.APPROVED)).thenReturn(1);
+
+        List<BookingStatusResultDto> actual = bookingService.handleStatuses(user1.getId(),
+                List.of(booking2.getId(), booking1.getId(), missingId, booking2.getId()), ApprovedState.TRUE);
+
+        assertThat(actual, equalTo(List.of(
+                new BookingStatusResultDto(booking2.getId(), Outcome.UPDATED, item1.getId(), BookingStatus.APPROVED),
+                new BookingStatusResultDto(booking1.getId(), Outcome.NOT_WAITING, item1.getId(),
+                        BookingStatus.APPROVED),
+                new BookingStatusResultDto(missingId, Outcome.NOT_FOUND, null, null))));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(bookingRepository, times(1)).findStatusRowsByIdIn(Set.of(booking2.getId(), booking1.getId(),
+                missingId));
+        verify(bookingRepository, times(1)).updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+        verify(bookingIntervalIndex, times(1)).updateStatus(item1.getId(), booking2.getId(), booking2.getStart(),
+                BookingStatus.APPROVED);
+        verify(itemBookingSummaries, times(1)).approved(item1.getId(), booking2.getId(), user2.getId(),
+                booking2.getStart(), booking2.getEnd());
+    }
+
+    /**
+     * handleStatuses: чужие бронирования не изменяются, UPDATE не выполняется
+     */
+    @Test
+    void shouldNotUpdateForeignBookingsForHandleStatuses() {
+        when(bookingRepository.findStatusRowsByIdIn(any())).thenReturn(List.of(toStatusRow(booking2)));
+
+        List<BookingStatusResultDto> actual = bookingService.handleStatuses(user2.getId(),
+                List.of(booking2.getId()), ApprovedState.FALSE);
+
+        assertThat(actual, equalTo(List.of(new BookingStatusResultDto(booking2.getId(), Outcome.NOT_OWNER, null,
+                null))));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
-        verify(itemRepository, times(1)).findById(booking2.getItem().getId());
+        verify(bookingRepository, times(1)).findStatusRowsByIdIn(Set.of(booking2.getId()));
+    }
+
+    /**
+     * handleStatuses: бронирование, статус которого изменился до UPDATE, получает NOT_WAITING
+     */
+    @Test
+    void shouldReportConcurrentChangeForHandleStatuses() {
+        BookingStatusRow changed = new BookingStatusRow(booking2.getId(), item1.getId(), user1.getId(),
+                user2.getId(), booking2.getStart(), booking2.getEnd(), BookingStatus.REJECTED);
+        when(bookingRepository.findStatusRowsByIdIn(any()))
+                .thenReturn(List.of(toStatusRow(booking2)))
+                .thenReturn(List.of(changed));
+        when(bookingRepository.updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.APPROVED)).thenReturn(0);
+
+        List<BookingStatusResultDto> actual = bookingService.handleStatuses(user1.getId(),
+                List.of(booking2.getId()), ApprovedState.TRUE);
+
+        assertThat(actual, equalTo(List.of(new BookingStatusResultDto(booking2.getId(), Outcome.NOT_WAITING,
+                item1.getId(), BookingStatus.REJECTED))));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(bookingRepository, times(1)).findStatusRowsByIdIn(Set.of(booking2.getId()));
+        verify(bookingRepository, times(1)).findStatusRowsByIdIn(List.of(booking2.getId()));
+        verify(bookingRepository, times(1)).updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+        verifyNoInteractions(bookingIntervalIndex);
     }
 
     /**
@@ -316,7 +477,7 @@ class BookingServiceImplTest {
         assertThat(actual, equalTo(expected));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
     }
 
     /**
@@ -331,8 +492,7 @@ class BookingServiceImplTest {
         assertThat(actual, equalTo(expected));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
-        verify(itemRepository, times(1)).findById(booking2.getItem().getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
     }
 
     /**
@@ -347,8 +507,7 @@ class BookingServiceImplTest {
                 booking2.getId()));
 
         verify(userRepository, times(1)).findById(randomUser.getId());
-        verify(bookingRepository, times(1)).findById(booking2.getId());
-        verify(itemRepository, times(1)).findById(booking2.getItem().getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(booking2.getId());
     }
 
     /**
@@ -371,17 +530,142 @@ class BookingServiceImplTest {
     @Test
     void shouldThrowWhenIncorrectBookingIdForFindById() {
         Long incorrectId = -1L;
-        when(bookingRepository.findById(incorrectId)).thenReturn(Optional.empty());
+        when(bookingRepository.findWithItemAndBookerById(incorrectId)).thenReturn(Optional.empty());
 
         assertThrows(BookingNotFoundException.class, () -> bookingService.findById(user1.getId(),
                 incorrectId));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(bookingRepository, times(1)).findById(incorrectId);
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(incorrectId);
+        verify(bookingArchiveRepository, times(1)).findWithItemAndBookerById(incorrectId);
+    }
+
+    /**
+     * findById: бронирование, перенесенное в архив, читается из bookings_archive
+     */
+    @Test
+    void shouldFindArchivedById() {
+        ArchivedBooking archived = ArchivedBooking.builder()
+                                                  .id(3L)
+                                                  .item(item1)
+                                                  .booker(user2)
+                                                  .start(booking1.getStart().minusYears(1))
+                                                  .end(booking1.getEnd().minusYears(1))
+                                                  .status(BookingStatus.APPROVED)
+                                                  .version(1L)
+                                                  .build();
+        when(bookingRepository.findWithItemAndBookerById(archived.getId())).thenReturn(Optional.empty());
+        when(bookingArchiveRepository.findWithItemAndBookerById(archived.getId())).thenReturn(Optional.of(archived));
+
+        BookingSendingDto actual = bookingService.findById(user1.getId(), archived.getId());
+
+        assertThat(actual, equalTo(BookingMapper.toSendingDto(archived.toBooking())));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(bookingRepository, times(1)).findWithItemAndBookerById(archived.getId());
+        verify(bookingArchiveRepository, times(1)).findWithItemAndBookerById(archived.getId());
+    }
+
+    /**
+     * Стандартное поведение expireWaiting: один SELECT пакета, один UPDATE, истекшее бронирование удаляется
+     * из индекса
+     */
+    @Test
+    void shouldExpireWaiting() {
+        LocalDateTime cutoff = booking2.getStart().plusHours(1);
+        when(bookingRepository.findStatusRowsByStatusAndStartBefore(BookingStatus.WAITING, cutoff,
+                PageRequest.of(0, 10))).thenReturn(List.of(toStatusRow(booking2)));
+        when(bookingRepository.updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.EXPIRED)).thenReturn(1);
+
+        int actual = bookingService.expireWaiting(cutoff, 10);
+
+        assertThat(actual, equalTo(1));
+
+        verify(bookingRepository, times(1)).findStatusRowsByStatusAndStartBefore(BookingStatus.WAITING, cutoff,
+                PageRequest.of(0, 10));
+        verify(bookingRepository, times(1)).updateStatusByIdIn(List.of(booking2.getId()), BookingStatus.WAITING,
+                BookingStatus.EXPIRED);
+        verify(bookingIntervalIndex, times(1)).remove(item1.getId(), booking2.getId(), booking2.getStart());
+    }
+
+    /**
+     * expireWaiting: бронирование, подтвержденное между SELECT и UPDATE, не удаляется из индекса
+     */
+    @Test
+    void shouldSkipConcurrentlyApprovedBookingForExpireWaiting() {
+        LocalDateTime cutoff = booking2.getStart().plusHours(1);
+        Booking approved = Booking.builder()
+                                  .id(3L)
+                                  .item(item1)
+                                  .start(booking2.getStart().minusHours(1))
+                                  .status(BookingStatus.WAITING)
+                                  .build();
+        List<Long> ids = List.of(approved.getId(), booking2.getId());
+        when(bookingRepository.findStatusRowsByStatusAndStartBefore(BookingStatus.WAITING, cutoff,
+                PageRequest.of(0, 10))).thenReturn(List.of(toStatusRow(approved), toStatusRow(booking2)));
+        when(bookingRepository.updateStatusByIdIn(ids, BookingStatus.WAITING, BookingStatus.EXPIRED)).thenReturn(1);
+        approved.setStatus(BookingStatus.APPROVED);
+        booking2.setStatus(BookingStatus.EXPIRED);
+        when(bookingRepository.findStatusRowsByIdIn(ids)).thenReturn(List.of(toStatusRow(approved),
+                toStatusRow(booking2)));
+
+        int actual = bookingService.expireWaiting(cutoff, 10);
+
+        assertThat(actual, equalTo(1));
+
+        verify(bookingRepository, times(1)).findStatusRowsByStatusAndStartBefore(BookingStatus.WAITING, cutoff,
+                PageRequest.of(0, 10));
+        verify(bookingRepository, times(1)).updateStatusByIdIn(ids, BookingStatus.WAITING, BookingStatus.EXPIRED);
+        verify(bookingRepository, times(1)).findStatusRowsByIdIn(ids);
+        verify(bookingIntervalIndex, times(1)).remove(item1.getId(), booking2.getId(), booking2.getStart());
+        verify(bookingIntervalIndex, never()).remove(item1.getId(), approved.getId(), approved.getStart());
+    }
+
+    /**
+     * Стандартное поведение archiveEnded: SELECT пакета, INSERT ... SELECT в архив, DELETE, удаление из индекса
+     */
+    @Test
+    void shouldArchiveEnded() {
+        LocalDateTime cutoff = booking1.getEnd().plusHours(1);
+        List<Long> ids = List.of(booking1.getId());
+        when(bookingRepository.findEndedBefore(cutoff, PageRequest.of(0, 10))).thenReturn(List.of(booking1));
+        when(bookingArchiveRepository.copyFromBookings(ids)).thenReturn(1);
+        when(bookingRepository.deleteByIdIn(ids)).thenReturn(1);
+
+        int actual = bookingService.archiveEnded(cutoff, 10);
+
+        assertThat(actual, equalTo(1));
+
+        verify(bookingRepository, times(1)).findEndedBefore(cutoff, PageRequest.of(0, 10));
+        verify(bookingArchiveRepository, times(1)).copyFromBookings(ids);
+        verify(bookingRepository, times(1)).deleteByIdIn(ids);
+        verify(bookingIntervalIndex, times(1)).remove(item1.getId(), booking1.getId(), booking1.getStart());
+    }
+
+    /**
+     * archiveEnded без завершившихся бронирований не обращается к архиву
+     */
+    @Test
+    void shouldNotTouchArchiveWhenNothingEnded() {
+        LocalDateTime cutoff = booking1.getEnd().minusDays(1);
+        when(bookingRepository.findEndedBefore(cutoff, PageRequest.of(0, 10))).thenReturn(List.of());
+
+        assertThat(bookingService.archiveEnded(cutoff, 10), equalTo(0));
+
+        verify(bookingRepository, times(1)).findEndedBefore(cutoff, PageRequest.of(0, 10));
+        verifyNoInteractions(bookingArchiveRepository, bookingIntervalIndex);
+    }
+
+    private static BookingStatusRow toStatusRow(Booking booking) {
+        return new BookingStatusRow(booking.getId(), booking.getItem().getId(), booking.getItem().getOwner().getId(),
+                booking.getBooker() == null ? null : booking.getBooker().getId(), booking.getStart(), booking.getEnd(),
+                booking.getStatus());
     }
 
     @AfterEach
     void tearDown() {
-        verifyNoMoreInteractions(bookingRepository, itemRepository, userRepository);
+        verifyNoMoreInteractions(bookingRepository, bookingArchiveRepository, bookingHistory, itemRepository,
+                userRepository, itemBookingSummaries);
     }
 }
\ No newline at end of file
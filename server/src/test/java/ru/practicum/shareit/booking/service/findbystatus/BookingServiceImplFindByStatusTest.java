@@ -13,9 +13,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.archive.BookingHistory;
+import ru.practicum.shareit.booking.dto.BookingRow;
 import ru.practicum.shareit.booking.dto.BookingSendingDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingRequestState;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -23,6 +27,7 @@ import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
@@ -39,6 +44,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -53,16 +59,25 @@ public class BookingServiceImplFindByStatusTest {
     @MockBean
     final BookingRepository bookingRepository;
     @MockBean
+    final BookingArchiveRepository bookingArchiveRepository;
+    @MockBean
+    final BookingHistory bookingHistory;
+    @MockBean
     final ItemRepository itemRepository;
     @MockBean
     final UserRepository userRepository;
+    @MockBean
+    final BookingIntervalIndex bookingIntervalIndex;
+    @MockBean
+    final ItemBookingSummaries itemBookingSummaries;
     @InjectMocks
     final BookingService bookingService;
 
     User user1, user2;
     Item item1, item2;
-    Booking booking1, booking2;
+    Booking booking1, booking2, archived;
     List<BookingSendingDto> expectedList;
+    List<BookingRow> rows;
     PaginationRequest paginationRequest;
     Pageable makedPageable;
 
@@ -110,11 +125,29 @@ public class BookingServiceImplFindByStatusTest {
                           .status(BookingStatus.WAITING)
                           .booker(user2)
                           .build();
+        archived = Booking.builder()
+                          .id(3L)
+                          .item(item1)
+                          .start(booking1.getStart().minusYears(1))
+                          .end(booking1.getEnd().minusYears(1))
+                          .status(BookingStatus.APPROVED)
+                          .booker(user2)
+                          .build();
         when(bookingRepository.findById(booking1.getId())).thenReturn(Optional.of(booking1));
         when(bookingRepository.findById(booking2.getId())).thenReturn(Optional.of(booking2));
-        when(itemRepository.findAllByOwnerId(user1.getId())).thenReturn(List.of(item1));
         expectedList = List.of(BookingMapper.toSendingDto(booking2),
                 BookingMapper.toSendingDto(booking1));
+        rows = List.of(toRow(booking2), toRow(booking1));
+    }
+
+    /**
+     * Строка проекции в порядке, который возвращает БД (start DESC)
+     */
+    private static BookingRow toRow(Booking booking) {
+        return new BookingRow(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                booking.getItem().getId(), booking.getItem().getName(), booking.getItem().getDescription(),
+                booking.getItem().getAvailable(), booking.getBooker().getId(), booking.getBooker().getName(),
+                booking.getBooker().getEmail());
     }
 
     /**
@@ -123,11 +156,9 @@ public class BookingServiceImplFindByStatusTest {
     @Test
     void shouldFindByBookerIdAndStatusForAll() {
         List<BookingSendingDto> expected = List.of(BookingMapper.toSendingDto(booking2),
-                BookingMapper.toSendingDto(booking1));
-        PaginationRequest paginationRequest = new PaginationRequest(0, 10);
-        Pageable makedPageable = paginationRequest.makePaginationByFieldDesc("start");
-        when(bookingRepository.findAllByBookerId(user2.getId(), makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+                BookingMapper.toSendingDto(booking1), BookingMapper.toSendingDto(archived));
+        when(bookingHistory.findByBooker(eq(user2.getId()), eq(BookingRequestState.ALL), any(), eq(0), eq(10)))
+                .thenReturn(List.of(toRow(booking2), toRow(booking1), toRow(archived)));
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(), BookingRequestState.ALL,
                 paginationRequest);
@@ -135,7 +166,28 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expected));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(bookingRepository, times(1)).findAllByBookerId(user2.getId(), makedPageable);
+        verify(bookingHistory, times(1)).findByBooker(eq(user2.getId()), eq(BookingRequestState.ALL), any(),
+                eq(0), eq(10));
+        verifyNoInteractions(bookingRepository, bookingArchiveRepository);
+    }
+
+    /**
+     * findByBookerIdAndStatus для ALL: смещение передается в запрос по bookings и архиву
+     */
+    @Test
+    void shouldPassOffsetToHistoryForFindByBookerIdAndStatus() {
+        PaginationRequest secondPage = new PaginationRequest(1, 1);
+        when(bookingHistory.findByBooker(eq(user2.getId()), eq(BookingRequestState.ALL), any(), eq(1), eq(1)))
+                .thenReturn(List.of(toRow(archived)));
+
+        List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(), BookingRequestState.ALL,
+                secondPage);
+
+        assertThat(actual, equalTo(List.of(BookingMapper.toSendingDto(archived))));
+
+        verify(userRepository, times(1)).findById(user2.getId());
+        verify(bookingHistory, times(1)).findByBooker(eq(user2.getId()), eq(BookingRequestState.ALL), any(),
+                eq(1), eq(1));
     }
 
     /**
@@ -144,7 +196,7 @@ public class BookingServiceImplFindByStatusTest {
     @Test
     void shouldFindByBookerIdAndStatusForWaiting() {
         when(bookingRepository.findAllByBookerIdAndStatus(user2.getId(), BookingStatus.WAITING, makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(),
                 BookingRequestState.WAITING, paginationRequest);
@@ -161,8 +213,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByBookerIdAndStatusForRejected() {
-        when(bookingRepository.findAllByBookerIdAndStatus(user2.getId(), BookingStatus.REJECTED, makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingHistory.findByBooker(eq(user2.getId()), eq(BookingRequestState.REJECTED), any(), eq(0), eq(10)))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(),
                 BookingRequestState.REJECTED, paginationRequest);
@@ -170,8 +222,8 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(bookingRepository, times(1)).findAllByBookerIdAndStatus(user2.getId(),
-                BookingStatus.REJECTED, makedPageable);
+        verify(bookingHistory, times(1)).findByBooker(eq(user2.getId()), eq(BookingRequestState.REJECTED), any(),
+                eq(0), eq(10));
     }
 
     /**
@@ -180,7 +232,7 @@ public class BookingServiceImplFindByStatusTest {
     @Test
     void shouldFindByBookerIdAndStatusForCurrent() {
         when(bookingRepository.findAllByBookerWhereTimeIsInside(eq(user2.getId()), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(),
                 BookingRequestState.CURRENT, paginationRequest);
@@ -197,17 +249,18 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByBookerIdAndStatusForPast() {
-        when(bookingRepository.findAllByBookerIdAndEndBefore(eq(user2.getId()), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingHistory.findByBooker(eq(user2.getId()), eq(BookingRequestState.PAST), any(), eq(0), eq(10)))
+                .thenReturn(List.of(toRow(booking1), toRow(archived)));
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(),
                 BookingRequestState.PAST, paginationRequest);
 
-        assertThat(actual, equalTo(expectedList));
+        assertThat(actual, equalTo(List.of(BookingMapper.toSendingDto(booking1),
+                BookingMapper.toSendingDto(archived))));
 
         verify(userRepository, times(1)).findById(user2.getId());
-        verify(bookingRepository, times(1)).findAllByBookerIdAndEndBefore(eq(user2.getId()),
-                any(), eq(makedPageable));
+        verify(bookingHistory, times(1)).findByBooker(eq(user2.getId()), eq(BookingRequestState.PAST), any(),
+                eq(0), eq(10));
     }
 
     /**
@@ -216,7 +269,7 @@ public class BookingServiceImplFindByStatusTest {
     @Test
     void shouldFindByBookerIdAndStatusForFuture() {
         when(bookingRepository.findAllByBookerIdAndStartAfter(eq(user2.getId()), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByBookerIdAndStatus(user2.getId(),
                 BookingRequestState.FUTURE, paginationRequest);
@@ -247,18 +300,18 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForAll() {
-        when(bookingRepository.findAllByItemIdIn(List.of(item1.getId()), makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingHistory.findByOwner(eq(user1.getId()), eq(BookingRequestState.ALL), any(), eq(0), eq(10)))
+                .thenReturn(rows);
 
-        List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(), BookingRequestState.ALL,
-                paginationRequest);
+        List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
+                BookingRequestState.ALL, paginationRequest);
 
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
-        verify(bookingRepository, times(1)).findAllByItemIdIn(List.of(item1.getId()),
-                makedPageable);
+        verifyNoInteractions(itemRepository);
+        verify(bookingHistory, times(1)).findByOwner(eq(user1.getId()), eq(BookingRequestState.ALL), any(),
+                eq(0), eq(10));
     }
 
     /**
@@ -266,8 +319,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForWaiting() {
-        when(bookingRepository.findAllByItemIdInAndStatus(List.of(item1.getId()), BookingStatus.WAITING, makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingRepository.findAllByOwnerIdAndStatus(user1.getId(), BookingStatus.WAITING, makedPageable))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
                 BookingRequestState.WAITING, paginationRequest);
@@ -275,8 +328,8 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStatus(List.of(item1.getId()),
+        verifyNoInteractions(itemRepository);
+        verify(bookingRepository, times(1)).findAllByOwnerIdAndStatus(user1.getId(),
                 BookingStatus.WAITING, makedPageable);
     }
 
@@ -285,9 +338,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForRejected() {
-        when(bookingRepository.findAllByItemIdInAndStatus(List.of(item1.getId()),
-                BookingStatus.REJECTED, makedPageable))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingHistory.findByOwner(eq(user1.getId()), eq(BookingRequestState.REJECTED), any(), eq(0), eq(10)))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
                 BookingRequestState.REJECTED, paginationRequest);
@@ -295,9 +347,9 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
-        verify(bookingRepository, times(1)).findAllByItemIdInAndStatus(List.of(item1.getId()),
-                BookingStatus.REJECTED, makedPageable);
+        verifyNoInteractions(itemRepository);
+        verify(bookingHistory, times(1)).findByOwner(eq(user1.getId()), eq(BookingRequestState.REJECTED), any(),
+                eq(0), eq(10));
     }
 
     /**
@@ -305,8 +357,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForCurrent() {
-        when(bookingRepository.findAllByItemIdInWhereTimeIsInside(eq(List.of(item1.getId())), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingRepository.findAllByOwnerWhereTimeIsInside(eq(user1.getId()), any(), eq(makedPageable)))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
                 BookingRequestState.CURRENT, paginationRequest);
@@ -314,9 +366,9 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
+        verifyNoInteractions(itemRepository);
         verify(bookingRepository, times(1))
-                .findAllByItemIdInWhereTimeIsInside(eq(List.of(item1.getId())), any(), eq(makedPageable));
+                .findAllByOwnerWhereTimeIsInside(eq(user1.getId()), any(), eq(makedPageable));
     }
 
     /**
@@ -324,8 +376,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForPast() {
-        when(bookingRepository.findAllByItemIdInAndEndBefore(eq(List.of(item1.getId())), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingHistory.findByOwner(eq(user1.getId()), eq(BookingRequestState.PAST), any(), eq(0), eq(10)))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
                 BookingRequestState.PAST, paginationRequest);
@@ -333,9 +385,9 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
-        verify(bookingRepository, times(1))
-                .findAllByItemIdInAndEndBefore(eq(List.of(item1.getId())), any(), eq(makedPageable));
+        verifyNoInteractions(itemRepository);
+        verify(bookingHistory, times(1)).findByOwner(eq(user1.getId()), eq(BookingRequestState.PAST), any(),
+                eq(0), eq(10));
     }
 
     /**
@@ -343,8 +395,8 @@ public class BookingServiceImplFindByStatusTest {
      */
     @Test
     void shouldFindByOwnerIdAndStatusForFuture() {
-        when(bookingRepository.findAllByItemIdInAndStartAfter(eq(List.of(item1.getId())), any(), eq(makedPageable)))
-                .thenReturn(List.of(booking1, booking2));
+        when(bookingRepository.findAllByOwnerIdAndStartAfter(eq(user1.getId()), any(), eq(makedPageable)))
+                .thenReturn(rows);
 
         List<BookingSendingDto> actual = bookingService.findByOwnerIdAndStatus(user1.getId(),
                 BookingRequestState.FUTURE, paginationRequest);
@@ -352,9 +404,9 @@ public class BookingServiceImplFindByStatusTest {
         assertThat(actual, equalTo(expectedList));
 
         verify(userRepository, times(1)).findById(user1.getId());
-        verify(itemRepository, times(1)).findAllByOwnerId(user1.getId());
+        verifyNoInteractions(itemRepository);
         verify(bookingRepository, times(1))
-                .findAllByItemIdInAndStartAfter(eq(List.of(item1.getId())), any(), eq(makedPageable));
+                .findAllByOwnerIdAndStartAfter(eq(user1.getId()), any(), eq(makedPageable));
     }
 
     /**
@@ -12,10 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.service.ItemService;
@@ -34,6 +37,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.hamcrest.Matchers.is;
 
@@ -131,7 +135,7 @@ class ItemControllerTest {
                                   .description(toUpdate.getDescription())
                                   .available(toUpdate.getAvailable())
                                   .build();
-        when(itemService.update(userId, item1.getId(), toUpdate)).thenReturn(expected);
+        when(itemService.update(userId, item1.getId(), toUpdate, null)).thenReturn(expected);
 
         mvc.perform(patch("/items/" + item1.getId())
                    .content(mapper.writeValueAsString(toUpdate))
@@ -144,7 +148,37 @@ class ItemControllerTest {
            .andExpect(jsonPath("$.description", is(expected.getDescription())))
            .andExpect(jsonPath("$.available", is(expected.getAvailable())));
 
-        verify(itemService, times(1)).update(userId, item1.getId(), toUpdate);
+        verify(itemService, times(1)).update(userId, item1.getId(), toUpdate, null);
+    }
+
+    /**
+     * Эндпоинт PATCH /items/{itemId} с If-Match: версия передается в сервис, ETag ответа - новая версия
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldUpdateWithIfMatch() throws Exception {
+        ItemDto toUpdate = ItemDto.builder()
+                                  .name("new item")
+                                  .build();
+        ItemDto expected = ItemDto.builder()
+                                  .id(item1.getId())
+                                  .name(toUpdate.getName())
+                                  .version(4L)
+                                  .build();
+        when(itemService.update(userId, item1.getId(), toUpdate, 3L)).thenReturn(expected);
+
+        mvc.perform(patch("/items/" + item1.getId())
+                   .content(mapper.writeValueAsString(toUpdate))
+                   .header("X-Sharer-User-Id", userId)
+                   .header(HttpHeaders.IF_MATCH, "\"3\"")
+                   .characterEncoding(StandardCharsets.UTF_8)
+                   .contentType(MediaType.APPLICATION_JSON)
+                   .accept(MediaType.APPLICATION_JSON))
+           .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+           .andExpect(jsonPath("$.version").doesNotExist());
+
+        verify(itemService, times(1)).update(userId, item1.getId(), toUpdate, 3L);
     }
 
     /**
@@ -297,6 +331,62 @@ class ItemControllerTest {
         verify(itemService, times(1)).addComment(userId, itemId, toAdd);
     }
 
+    /**
+     * Эндпоинт GET /items/{itemId}/comments?from=&size=, тело - пустое. Полная страница - с курсором следующей
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldGetComments() throws Exception {
+        Long itemId = 1L;
+        CommentDto expected = CommentDto.builder()
+                                        .id(3L)
+                                        .created(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+                                        .authorName("author")
+                                        .text("text")
+                                        .build();
+        when(itemService.findComments(itemId, new PaginationRequest(0, 1))).thenReturn(List.of(expected));
+
+        mvc.perform(get("/items/" + itemId + "/comments?from=0&size=1")
+                                 .characterEncoding(StandardCharsets.UTF_8)
+                                 .accept(MediaType.APPLICATION_JSON))
+           .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER, PageCursor.ofId(expected.getId()).encode()))
+           .andExpect(jsonPath("$[0].id", is(expected.getId()), Long.class))
+           .andExpect(jsonPath("$[0].authorName", is(expected.getAuthorName())))
+           .andExpect(jsonPath("$[0].text", is(expected.getText())))
+           .andExpect(jsonPath("$[0].created", is(formatter.format(expected.getCreated()))));
+
+        verify(itemService, times(1)).findComments(itemId, new PaginationRequest(0, 1));
+    }
+
+    /**
+     * Эндпоинт GET /items/{itemId}/availability?from=&to=, тело - пустое, header - id пользователя
+     *
+     * @throws Exception
+     */
+    @Test
+    void shouldGetAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = from.plus(3, ChronoUnit.DAYS);
+        ItemAvailabilityDto expected = ItemAvailabilityDto.builder()
+                                                          .itemId(item1.getId())
+                                                          .from(from)
+                                                          .to(to)
+                                                          .freeSlots(List.of(new ItemAvailabilityDto.TimeSlot(from,
+                                                                  to)))
+                                                          .build();
+        when(itemService.findAvailability(item1.getId(), from, to)).thenReturn(expected);
+
+        mvc.perform(get("/items/" + item1.getId() + "/availability").header("X-Sharer-User-Id", userId)
+                                                                     .param("from", formatter.format(from))
+                                                                     .param("to", formatter.format(to)))
+           .andExpect(jsonPath("$.itemId", is(expected.getItemId()), Long.class))
+           .andExpect(jsonPath("$.freeSlots[0].start", is(formatter.format(from))))
+           .andExpect(jsonPath("$.freeSlots[0].end", is(formatter.format(to))));
+
+        verify(itemService, times(1)).findAvailability(item1.getId(), from, to);
+    }
+
     @AfterEach
     void tearDown() {
         verifyNoMoreInteractions(itemService);
@@ -5,13 +5,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.base.pagination.OffsetBasedPageRequest;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.comment.ItemComments;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 
@@ -26,11 +32,14 @@ import static org.hamcrest.Matchers.equalTo;
  * Интеграционные тесты для ItemRepository
  */
 @DataJpaTest
+@Import(ItemComments.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class ItemRepositoryTest {
     final UserRepository userRepository;
     final ItemRepository itemRepository;
     final BookingRepository bookingRepository;
+    final ItemBookingSummaryRepository itemBookingSummaryRepository;
+    final TestEntityManager entityManager;
 
     Item item1, item2;
     User user1, user2;
@@ -77,31 +86,62 @@ class ItemRepositoryTest {
     }
 
     /**
-     * Стандартное поведение для searchAvailableBy
+     * Стандартное поведение findAllByOwnerIdWithBookings
      */
     @Test
-    void shouldSearchAvailableBy() {
-        String text = "Item";
-        List<Item> expected = List.of(item1, item2);
+    void shouldFindAllByOwnerIdWithBookings() {
+        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1, List.of(),
+                ItemDtoWithBookings.BookingShort.toBookingShort(past),
+                ItemDtoWithBookings.BookingShort.toBookingShort(future)),
+                ItemMapper.toDtoWithBookings(item2, List.of(), null, null));
 
-        List<Item> actual = itemRepository.searchAvailableBy(text, PageRequest.of(0, 10));
+        List<ItemDtoWithBookings> actual = itemRepository.findAllByOwnerIdWithBookings(user1.getId(),
+                PageRequest.of(0, 10));
 
         assertThat(actual, equalTo(expected));
     }
 
     /**
-     * Стандартное поведение findAllByOwnerIdWithBookings
+     * findAllByOwnerIdWithBookings: сводка, следующее бронирование которой уже началось, вычисляется заново
      */
     @Test
-    void shouldFindAllByOwnerIdWithBookings() {
-        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1,
+    void shouldRecomputeSummaryWhenNextBookingStarted() {
+        ItemBookingSummary stale = ItemBookingSummary.builder()
+                                                     .itemId(item1.getId())
+                                                     .refreshed(past.getStart().minusDays(1))
+                                                     .build();
+        stale.setNext(past);
+        itemBookingSummaryRepository.save(stale);
+        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1, List.of(),
                 ItemDtoWithBookings.BookingShort.toBookingShort(past),
                 ItemDtoWithBookings.BookingShort.toBookingShort(future)),
-                ItemMapper.toDtoWithBookings(item2, null, null));
+                ItemMapper.toDtoWithBookings(item2, List.of(), null, null));
 
         List<ItemDtoWithBookings> actual = itemRepository.findAllByOwnerIdWithBookings(user1.getId(),
                 PageRequest.of(0, 10));
 
         assertThat(actual, equalTo(expected));
     }
-}
\ No newline at end of file
+
+    /**
+     * findAllByOwnerIdWithBookings без сводок: страница вещей с бронированиями одним нативным запросом,
+     * смещение и курсор применяются к вещам
+     */
+    @Test
+    void shouldFindAllByOwnerIdWithWindowBookings() {
+        ItemRepositoryWithBookings window = new ItemRepositoryWithBookingsImpl(itemRepository,
+                new ItemComments(entityManager.getEntityManager(), 10), entityManager.getEntityManager(), false);
+        ItemDtoWithBookings first = ItemMapper.toDtoWithBookings(item1, List.of(),
+                ItemDtoWithBookings.BookingShort.toBookingShort(past),
+                ItemDtoWithBookings.BookingShort.toBookingShort(future));
+        ItemDtoWithBookings second = ItemMapper.toDtoWithBookings(item2, List.of(), null, null);
+
+        assertThat(window.findAllByOwnerIdWithBookings(user1.getId(), PageRequest.of(0, 10)),
+                equalTo(List.of(first, second)));
+        assertThat(window.findAllByOwnerIdWithBookings(user1.getId(), OffsetBasedPageRequest.of(1, 1,
+                Sort.by("id"))), equalTo(List.of(second)));
+        assertThat(window.findAllByOwnerIdWithBookingsAfter(user1.getId(), item1.getId(), PageRequest.of(0, 10)),
+                equalTo(List.of(second)));
+        assertThat(window.findAllByOwnerIdWithBookings(user2.getId(), PageRequest.of(0, 10)), equalTo(List.of()));
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.base.pagination.OffsetBasedPageRequest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.comment.ItemComments;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Страница вещей владельца с последним и следующим бронированиями (20 вещей, первая и последняя страницы):
+ * прежний цикл "два запроса на вещь" против одного нативного запроса с ROW_NUMBER() и соединения со сводками
+ * item_booking_summary при росте числа вещей владельца.
+ * Не входит в обычный прогон тестов, запуск: mvn -pl server test -Dtest=OwnerItemListingBenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.show_sql=false")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class OwnerItemListingBenchmark {
+    private static final int[] INVENTORIES = {1_000, 10_000, 100_000};
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    final ItemRepository itemRepository;
+    final BookingRepository bookingRepository;
+    final JdbcTemplate jdbcTemplate;
+    final TestEntityManager entityManager;
+
+    @Test
+    void compareLoopWindowAndSummary() {
+        ItemRepositoryWithBookings window = new ItemRepositoryWithBookingsImpl(itemRepository,
+                new ItemComments(entityManager.getEntityManager(), 10), entityManager.getEntityManager(), false);
+        ItemRepositoryWithBookings summary = new ItemRepositoryWithBookingsImpl(itemRepository,
+                new ItemComments(entityManager.getEntityManager(), 10), entityManager.getEntityManager(), true);
+        Long bookerId = insertUser("booker");
+        for (int inventory : INVENTORIES) {
+            Long ownerId = insertUser("owner" + inventory);
+            insertItemsWithBookings(ownerId, bookerId, inventory);
+            for (int from : new int[]{0, inventory - PAGE_SIZE}) {
+                Pageable page = OffsetBasedPageRequest.of(from, PAGE_SIZE, Sort.by("id"));
+
+                double loopMicros = measure(() -> withBookingsLoop(ownerId, page));
+                double windowMicros = measure(() -> window.findAllByOwnerIdWithBookings(ownerId, page));
+                double summaryMicros = measure(() -> summary.findAllByOwnerIdWithBookings(ownerId, page));
+
+                System.out.printf("items %6d, from %6d: loop %8.1f us, window %8.1f us, summary %8.1f us%n",
+                        inventory, from, loopMicros, windowMicros, summaryMicros);
+            }
+        }
+    }
+
+    /**
+     * Прежняя реализация: страница вещей, затем по два запроса на каждую вещь
+     */
+    private List<ItemDtoWithBookings> withBookingsLoop(Long ownerId, Pageable page) {
+        return itemRepository.findAllByOwnerId(ownerId, page)
+                             .stream()
+                             .map(item -> ItemMapper.toDtoWithBookings(item, List.of(),
+                                     first(bookingRepository.findPastByItemId(item.getId(),
+                                             PageRequest.of(0, 1))),
+                                     first(bookingRepository.findFutureByItemId(item.getId(),
+                                             PageRequest.of(0, 1)))))
+                             .collect(Collectors.toList());
+    }
+
+    private static ItemDtoWithBookings.BookingShort first(List<Booking> bookings) {
+        return bookings.isEmpty() ? null : ItemDtoWithBookings.BookingShort.toBookingShort(bookings.get(0));
+    }
+
+    private double measure(Supplier<List<?>> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            total += System.nanoTime() - start;
+            entityManager.clear();
+        }
+        return total / 1_000.0 / ITERATIONS;
+    }
+
+    private Long insertUser(String name) {
+        jdbcTemplate.update("INSERT INTO users (username, email) VALUES (?, ?)", name, name + "@bench.mail");
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, name + "@bench.mail");
+    }
+
+    /**
+     * У каждой вещи одно прошедшее и одно будущее подтвержденные бронирования, сводки уже рассчитаны
+     */
+    private void insertItemsWithBookings(Long ownerId, Long bookerId, int inventory) {
+        List<Object[]> items = new ArrayList<>(inventory);
+        for (int i = 0; i < inventory; i++) {
+            items.add(new Object[]{ownerId, "Item" + i, "Item" + i + " description", true});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO items (owner_id, item_name, description, available) " +
+                "VALUES (?, ?, ?, ?)", items);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> bookings = new ArrayList<>(inventory * 2);
+        List<Long> itemIds = jdbcTemplate.queryForList("SELECT id FROM items WHERE owner_id = ?", Long.class,
+                ownerId);
+        for (int i = 0; i < itemIds.size(); i++) {
+            bookings.add(new Object[]{Timestamp.valueOf(now.minusDays(2).plusMinutes(i)),
+                    Timestamp.valueOf(now.minusDays(1)), itemIds.get(i), bookerId, "APPROVED"});
+            bookings.add(new Object[]{Timestamp.valueOf(now.plusDays(1).plusMinutes(i)),
+                    Timestamp.valueOf(now.plusDays(2)), itemIds.get(i), bookerId, "APPROVED"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (start_time, end_time, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, ?)", bookings);
+
+        jdbcTemplate.update("INSERT INTO item_booking_summary (item_id, last_booking_id, last_booker_id, " +
+                "last_start, last_end, next_booking_id, next_booker_id, next_start, next_end, refreshed) " +
+                "SELECT i.id, l.id, l.booker_id, l.start_time, l.end_time, n.id, n.booker_id, n.start_time, " +
+                "n.end_time, ? FROM items AS i " +
+                "JOIN bookings AS l ON l.item_id = i.id AND l.start_time < ? " +
+                "JOIN bookings AS n ON n.item_id = i.id AND n.start_time > ? " +
+                "WHERE i.owner_id = ?", Timestamp.valueOf(now), Timestamp.valueOf(now), Timestamp.valueOf(now),
+                ownerId);
+    }
+}
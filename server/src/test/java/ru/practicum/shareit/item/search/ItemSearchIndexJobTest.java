@@ -0,0 +1,68 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для ItemSearchIndexJob
+ */
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexJobTest {
+    @Mock
+    ItemSearchIndex index;
+
+    SimpleMeterRegistry registry;
+    ItemSearchIndexJob job;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        job = new ItemSearchIndexJob(index, registry);
+    }
+
+    /**
+     * Построенный индекс сканируется, число замененных вещей записывается в метрику
+     */
+    @Test
+    void shouldCatchUpReadyIndex() {
+        when(index.isReady()).thenReturn(true);
+        when(index.catchUp()).thenReturn(3);
+
+        assertThat(job.catchUp(), equalTo(3));
+
+        DistributionSummary summary = registry.get(ItemSearchIndexJob.ROWS_METRIC).summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(3.0));
+        verify(index).isReady();
+        verify(index).catchUp();
+    }
+
+    /**
+     * Пока индекс строится, сканирование не запускается
+     */
+    @Test
+    void shouldSkipIndexNotBuiltYet() {
+        when(index.isReady()).thenReturn(false);
+
+        assertThat(job.catchUp(), equalTo(0));
+
+        verify(index).isReady();
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifyNoMoreInteractions(index);
+    }
+}
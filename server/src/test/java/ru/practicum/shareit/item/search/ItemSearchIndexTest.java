@@ -0,0 +1,198 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для ItemSearchIndex
+ */
+class ItemSearchIndexTest {
+    ItemRepository itemRepository;
+    ItemSearchIndex index;
+
+    @BeforeEach
+    void init() {
+        itemRepository = mock(ItemRepository.class);
+        index = new ItemSearchIndex(itemRepository, 2);
+        index.put(item(1L, "Дрель ударная", "Дрель с аккумулятором", true));
+        index.put(item(2L, "Отвертка", "Аккумуляторная отвертка, подходит к дрели", true));
+        index.put(item(3L, "Аккумулятор", "Запасной для шуруповерта", true));
+        index.put(item(4L, "Дрель", "Старая, сетевая", false));
+    }
+
+    /**
+     * Слово запроса находит токены, содержащие его, без учета регистра; недоступные вещи не находятся
+     */
+    @Test
+    void shouldFindTokensContainingWord() {
+        assertThat(index.search("ДРЕЛ", 0, 10), equalTo(List.of(1L, 2L)));
+        assertThat(index.search("кумулят", 0, 10), equalTo(List.of(3L, 1L, 2L)));
+        assertThat(index.search("пила", 0, 10), empty());
+        assertThat(index.search(" , ", 0, 10), empty());
+    }
+
+    /**
+     * Совпадение в названии весит больше, чем в описании; слово целиком - больше, чем начало токена.
+     * При равной релевантности - порядок id
+     */
+    @Test
+    void shouldRankByRelevance() {
+        index.put(item(5L, "Аккумуляторный блок", "", true));
+
+        assertThat(index.search("дрел", 0, 10), equalTo(List.of(1L, 2L)));
+        assertThat(index.search("аккумулятор", 0, 10), equalTo(List.of(3L, 5L, 1L, 2L)));
+    }
+
+    /**
+     * Слова запроса объединяются по И
+     */
+    @Test
+    void shouldMatchAllWords() {
+        assertThat(index.search("отвертка дрел", 0, 10), equalTo(List.of(2L)));
+        assertThat(index.search("отвертка шуруповерт", 0, 10), empty());
+    }
+
+    /**
+     * Страница по смещению и страница после курсора в порядке релевантности
+     */
+    @Test
+    void shouldPaginate() {
+        assertThat(index.search("аккумулятор", 1, 1), equalTo(List.of(1L)));
+        assertThat(index.searchAfter("аккумулятор", 3L, 10), equalTo(List.of(1L, 2L)));
+        assertThat(index.searchAfter("аккумулятор", 1L, 1), equalTo(List.of(2L)));
+        assertThat(index.searchAfter("аккумулятор", 100L, 10), empty());
+    }
+
+    /**
+     * Изменение вещи заменяет ее токены, смена доступности убирает вещь из результатов и возвращает в них
+     */
+    @Test
+    void shouldReplaceItemOnPut() {
+        index.put(item(1L, 1L, "Перфоратор", "Сетевой", true));
+        index.put(item(4L, 1L, "Дрель", "Старая, сетевая", true));
+
+        assertThat(index.search("дрел", 0, 10), equalTo(List.of(4L, 2L)));
+        assertThat(index.search("ударная", 0, 10), empty());
+        assertThat(index.search("сетев", 0, 10), equalTo(List.of(1L, 4L)));
+    }
+
+    /**
+     * Более старая версия вещи не заменяет более новую, в каком бы порядке ни пришли изменения
+     */
+    @Test
+    void shouldIgnoreOlderVersion() {
+        index.put(item(1L, 2L, "Перфоратор", "Сетевой", true));
+        index.put(item(1L, 1L, "Дрель", "Ударная", true));
+
+        assertThat(index.search("перфоратор", 0, 10), equalTo(List.of(1L)));
+        assertThat(index.search("ударная", 0, 10), empty());
+    }
+
+    /**
+     * В транзакции изменения не видны в поиске до фиксации
+     */
+    @Test
+    void shouldPutAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(item(1L, 1L, "Перфоратор", "Сетевой", true));
+            index.put(item(5L, 0L, "Дрель-шуруповерт", "Новая", true));
+
+            assertThat(index.search("дрел", 0, 10), equalTo(List.of(1L, 2L)));
+            assertThat(index.search("перфоратор", 0, 10), empty());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                                             .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.search("дрел", 0, 10), equalTo(List.of(5L, 2L)));
+        assertThat(index.search("перфоратор", 0, 10), equalTo(List.of(1L)));
+    }
+
+    /**
+     * Изменения, сделанные в откаченной транзакции, в индекс не попадают
+     */
+    @Test
+    void shouldNotPutOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(item(1L, 1L, "Перфоратор", "Сетевой", true));
+            index.put(item(5L, 0L, "Дрель-шуруповерт", "Новая", true));
+            TransactionSynchronizationManager.getSynchronizations()
+                                             .forEach(synchronization -> synchronization.afterCompletion(
+                                                     TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.search("дрел", 0, 10), equalTo(List.of(1L, 2L)));
+        assertThat(index.search("перфоратор", 0, 10), empty());
+    }
+
+    /**
+     * Догоняющее сканирование заменяет вещи, версия которых в БД новее, и добавляет отсутствующие
+     */
+    @Test
+    void shouldCatchUpNewerVersions() {
+        when(itemRepository.findIndexedAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new IndexedItem(1L, "Перфоратор", "Сетевой", true, 1L),
+                new IndexedItem(2L, "Отвертка", "Аккумуляторная отвертка, подходит к дрели", true, 0L)));
+        when(itemRepository.findIndexedAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new IndexedItem(5L, "Пила", "Ручная", true, 0L)));
+
+        assertThat(index.catchUp(), equalTo(2));
+
+        assertThat(index.search("перфоратор", 0, 10), equalTo(List.of(1L)));
+        assertThat(index.search("ударная", 0, 10), empty());
+        assertThat(index.search("пила", 0, 10), equalTo(List.of(5L)));
+        assertThat(index.search("отвертка", 0, 10), equalTo(List.of(2L)));
+    }
+
+    /**
+     * Построение индекса пакетами по id заменяет прежнее содержимое
+     */
+    @Test
+    void shouldRebuildInBatches() {
+        when(itemRepository.findIndexedAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new IndexedItem(1L, "Дрель", "Ударная", true, 0L),
+                new IndexedItem(2L, "Пила", "Ручная", true, 0L)));
+        when(itemRepository.findIndexedAfter(2L, PageRequest.of(0, 2))).thenReturn(List.of(
+                new IndexedItem(5L, "Дрель", "Без аккумулятора", false, 0L)));
+
+        index.rebuild();
+
+        assertThat(index.isReady(), equalTo(true));
+        assertThat(index.search("дрель", 0, 10), equalTo(List.of(1L)));
+        assertThat(index.search("пила", 0, 10), equalTo(List.of(2L)));
+        assertThat(index.search("отвертка", 0, 10), empty());
+    }
+
+    private static Item item(Long id, String name, String description, boolean available) {
+        return item(id, 0L, name, description, available);
+    }
+
+    private static Item item(Long id, Long version, String name, String description, boolean available) {
+        return Item.builder()
+                   .id(id)
+                   .version(version)
+                   .name(name)
+                   .description(description)
+                   .available(available)
+                   .build();
+    }
+}
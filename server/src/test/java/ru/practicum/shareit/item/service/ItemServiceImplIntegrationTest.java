@@ -6,17 +6,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.comment.ItemComments;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.User;
@@ -25,13 +33,17 @@ import ru.practicum.shareit.user.UserRepository;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@DataJpaTest
-@Import(ItemServiceImpl.class)
+@DataJpaTest(properties = "shareit.item.comments.embedded-limit=2")
+@Import({ItemServiceImpl.class, BookingIntervalIndex.class, ItemBookingSummaries.class, ItemComments.class,
+        ItemSearchIndex.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class ItemServiceImplIntegrationTest {
     final ItemRepository itemRepository;
@@ -40,6 +52,7 @@ class ItemServiceImplIntegrationTest {
     final CommentRepository commentRepository;
     final ItemRequestRepository itemRequestRepository;
     final ItemService itemService;
+    final ItemSearchIndex itemSearchIndex;
 
     Item item1, item2;
     User user1, user2;
@@ -84,20 +97,22 @@ class ItemServiceImplIntegrationTest {
                         .build();
         bookingRepository.save(past);
         bookingRepository.save(future);
+        itemSearchIndex.rebuild();
     }
 
     /**
-     * Стандартное поведение findById
+     * Стандартное поведение findById, версия вещи передается для ETag
      */
     @Test
     void shouldFindById() {
-        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1,
+        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1, List.of(),
                 ItemDtoWithBookings.BookingShort.toBookingShort(past),
                 ItemDtoWithBookings.BookingShort.toBookingShort(future));
 
         ItemDtoWithBookings actual = itemService.findById(user1.getId(), item1.getId());
 
         assertThat(actual, equalTo(expected));
+        assertThat(actual.getVersion(), equalTo(item1.getVersion()));
     }
 
     /**
@@ -105,7 +120,7 @@ class ItemServiceImplIntegrationTest {
      */
     @Test
     void shouldFindAllByOwnerId() {
-        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1,
+        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1, List.of(),
                 ItemDtoWithBookings.BookingShort.toBookingShort(past),
                 ItemDtoWithBookings.BookingShort.toBookingShort(future)));
 
@@ -166,23 +181,71 @@ class ItemServiceImplIntegrationTest {
                                   .available(toUpdate.getAvailable())
                                   .build();
 
-        ItemDto actual = itemService.update(user1.getId(), item1.getId(), toUpdate);
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), toUpdate, null);
 
         assertThat(actual, equalTo(expected));
     }
 
+    /**
+     * update с версией из If-Match: совпадающая версия увеличивается, устаревшая дает конфликт
+     */
+    @Test
+    void shouldCheckVersionForUpdate() {
+        ItemDto toUpdate = ItemDto.builder()
+                                  .name("new item name")
+                                  .build();
+        Long version = item1.getVersion();
+
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), toUpdate, version);
+
+        assertThat(actual.getVersion(), equalTo(version + 1));
+        assertThrows(VersionConflictException.class, () -> itemService.update(user1.getId(), item1.getId(),
+                toUpdate, version));
+    }
+
     /**
      * Стандартное поведение searchAvailableBy
      */
     @Test
     void shouldSearchAvailableBy() {
-        List<ItemDto> expected = List.of(ItemMapper.toDto(item1));
+        List<ItemDto> expected = List.of(ItemMapper.toDto(item1, List.of()));
 
         List<ItemDto> actual = itemService.searchAvailableBy("Item", new PaginationRequest(0, 10));
 
         assertThat(actual, equalTo(expected));
     }
 
+    /**
+     * searchAvailableBy по поисковому индексу: добавление и смена доступности вещи не видны в поиске, пока
+     * транзакция не зафиксирована, догоняющее сканирование применяет их в порядке релевантности
+     */
+    @Test
+    void shouldSearchAvailableByIndexAfterChanges() {
+        ItemDto added = itemService.add(user2.getId(), ItemDto.builder()
+                                                              .name("Item description holder")
+                                                              .description("Other")
+                                                              .available(true)
+                                                              .build());
+        itemService.update(user1.getId(), item1.getId(), ItemDto.builder()
+                                                                .available(false)
+                                                                .build(), null);
+        itemService.update(user2.getId(), item2.getId(), ItemDto.builder()
+                                                                .available(true)
+                                                                .build(), null);
+
+        List<Long> uncommitted = itemService.searchAvailableBy("description", new PaginationRequest(0, 10))
+                                            .stream()
+                                            .map(ItemDto::getId)
+                                            .collect(Collectors.toList());
+        itemSearchIndex.catchUp();
+        List<Long> actual = itemService.searchAvailableBy("description", new PaginationRequest(0, 10)).stream()
+                                       .map(ItemDto::getId)
+                                       .collect(Collectors.toList());
+
+        assertThat(uncommitted, equalTo(List.of(item1.getId())));
+        assertThat(actual, equalTo(List.of(added.getId(), item2.getId())));
+    }
+
     /**
      * Стандартное поведение addComment
      */
@@ -205,4 +268,56 @@ class ItemServiceImplIntegrationTest {
         assertThat(actual.getAuthorName(), equalTo(expected.getAuthorName()));
         assertThat(actual.getText(), equalTo(expected.getText()));
     }
-}
\ No newline at end of file
+
+    /**
+     * В DTO вещи встраиваются только embedded-limit последних комментариев, остальные доступны постранично
+     * через findComments, новые первыми
+     */
+    @Test
+    void shouldEmbedLatestCommentsAndPageTheRest() {
+        List<Comment> comments = IntStream.range(0, 5)
+                                          .mapToObj(i -> commentRepository.save(Comment.builder()
+                                                                                       .text("Comment" + i)
+                                                                                       .author(user2)
+                                                                                       .item(item1)
+                                                                                       .created(past.getEnd())
+                                                                                       .build()))
+                                          .collect(Collectors.toList());
+        List<Long> expected = List.of(comments.get(4).getId(), comments.get(3).getId());
+
+        List<Long> embedded = itemService.findById(user2.getId(), item1.getId()).getComments().stream()
+                                         .map(ItemDto.ItemComment::getId)
+                                         .collect(Collectors.toList());
+        List<Long> owned = itemService.findAllByOwnerId(user1.getId(), new PaginationRequest(0, 10)).get(0)
+                                      .getComments().stream()
+                                      .map(ItemDto.ItemComment::getId)
+                                      .collect(Collectors.toList());
+        List<CommentDto> firstPage = itemService.findComments(item1.getId(), new PaginationRequest(0, 3));
+        List<CommentDto> nextPage = itemService.findComments(item1.getId(), new PaginationRequest(0, 3,
+                PageCursor.ofId(firstPage.get(2).getId()).encode()));
+
+        assertThat(embedded, equalTo(expected));
+        assertThat(owned, equalTo(expected));
+        assertThat(firstPage.stream().map(CommentDto::getId).collect(Collectors.toList()),
+                equalTo(List.of(comments.get(4).getId(), comments.get(3).getId(), comments.get(2).getId())));
+        assertThat(firstPage.get(0).getAuthorName(), equalTo(user2.getName()));
+        assertThat(nextPage.stream().map(CommentDto::getId).collect(Collectors.toList()),
+                equalTo(List.of(comments.get(1).getId(), comments.get(0).getId())));
+    }
+
+    /**
+     * Стандартное поведение findAvailability: окно разбивается бронированием future на два свободных периода
+     */
+    @Test
+    void shouldFindAvailability() {
+        LocalDateTime from = future.getStart().minus(1, ChronoUnit.DAYS);
+        LocalDateTime to = future.getEnd().plus(1, ChronoUnit.DAYS);
+        List<ItemAvailabilityDto.TimeSlot> expected = List.of(
+                new ItemAvailabilityDto.TimeSlot(from, future.getStart()),
+                new ItemAvailabilityDto.TimeSlot(future.getEnd(), to));
+
+        ItemAvailabilityDto actual = itemService.findAvailability(item1.getId(), from, to);
+
+        assertThat(actual.getFreeSlots(), equalTo(expected));
+    }
+}
@@ -13,22 +13,35 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.practicum.shareit.base.exception.IllegalRequestStateException;
+import ru.practicum.shareit.base.exception.VersionConflictException;
+import ru.practicum.shareit.base.pagination.PageCursor;
 import ru.practicum.shareit.base.pagination.PaginationRequest;
+import ru.practicum.shareit.booking.BookingArchiveRepository;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.comment.ItemComments;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 import ru.practicum.shareit.item.exception.CommentCreationException;
 import ru.practicum.shareit.item.exception.InvalidItemOwnerException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.exception.ItemSearchUnavailableException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.request.ItemRequestNotFoundException;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -66,16 +79,30 @@ class ItemServiceImplTest {
     @MockBean
     final BookingRepository bookingRepository;
     @MockBean
+    final BookingArchiveRepository bookingArchiveRepository;
+    @MockBean
     final CommentRepository commentRepository;
     @MockBean
     final ItemRequestRepository itemRequestRepository;
+    @MockBean
+    final BookingIntervalIndex bookingIntervalIndex;
+    @MockBean
+    final ItemBookingSummaryRepository itemBookingSummaryRepository;
+    @MockBean
+    final ItemBookingSummaries itemBookingSummaries;
+    @MockBean
+    final ItemComments itemComments;
+    @MockBean
+    final ItemSearchIndex itemSearchIndex;
     @InjectMocks
     final ItemService itemService;
 
     Item item1, item2, item3;
+    List<ItemDto.ItemComment> comments1;
     User user1, user2, user3;
 
     Booking future, past;
+    ItemBookingSummary summary;
 
     @BeforeEach
     void init() {
@@ -117,6 +144,8 @@ class ItemServiceImplTest {
         when(itemRepository.findById(item1.getId())).thenReturn(Optional.of(item1));
         when(itemRepository.findById(item2.getId())).thenReturn(Optional.of(item2));
         when(itemRepository.findById(item3.getId())).thenReturn(Optional.of(item3));
+        comments1 = List.of(ItemDto.ItemComment.toItemComment(comment));
+        when(itemComments.findLatest(item1.getId())).thenReturn(comments1);
 
         past = Booking.builder()
                       .id(1L)
@@ -135,18 +164,74 @@ class ItemServiceImplTest {
                         .status(BookingStatus.APPROVED)
                         .booker(user3)
                         .build();
-        when(bookingRepository.findPastByItemId(item1.getId(),
-                PageRequest.of(0, 1))).thenReturn(List.of(past));
-        when(bookingRepository.findFutureByItemId(item1.getId(),
-                PageRequest.of(0, 1))).thenReturn(List.of(future));
+        summary = ItemBookingSummary.builder()
+                                    .itemId(item1.getId())
+                                    .refreshed(LocalDateTime.now())
+                                    .build();
+        summary.setLast(past);
+        summary.setNext(future);
     }
 
     /**
-     * Стандартное поведение findById, user - владелец вещи
+     * Стандартное поведение findById, user - владелец вещи: бронирования из сводки вещи
      */
     @Test
     void shouldFindByIdForOwner() {
-        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1,
+        when(itemBookingSummaryRepository.findById(item1.getId())).thenReturn(Optional.of(summary));
+        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1, comments1,
+                ItemDtoWithBookings.BookingShort.toBookingShort(past),
+                ItemDtoWithBookings.BookingShort.toBookingShort(future));
+
+        ItemDtoWithBookings actual = itemService.findById(user1.getId(), item1.getId());
+
+        assertThat(actual, equalTo(expected));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemComments, times(1)).findLatest(item1.getId());
+        verify(itemBookingSummaryRepository, times(1)).findById(item1.getId());
+    }
+
+    /**
+     * Поведение findById для владельца, пока сводка вещи не рассчитана: бронирования вычисляются
+     */
+    @Test
+    void shouldComputeSummaryWhenNotRefreshedForFindById() {
+        ItemBookingSummary notRefreshed = ItemBookingSummary.builder()
+                                                            .itemId(item1.getId())
+                                                            .build();
+        summary.setRefreshed(null);
+        when(itemBookingSummaryRepository.findById(item1.getId())).thenReturn(Optional.of(notRefreshed));
+        when(itemBookingSummaries.compute(item1.getId())).thenReturn(summary);
+        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1, comments1,
+                ItemDtoWithBookings.BookingShort.toBookingShort(past),
+                ItemDtoWithBookings.BookingShort.toBookingShort(future));
+
+        ItemDtoWithBookings actual = itemService.findById(user1.getId(), item1.getId());
+
+        assertThat(actual, equalTo(expected));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemComments, times(1)).findLatest(item1.getId());
+        verify(itemBookingSummaryRepository, times(1)).findById(item1.getId());
+        verify(itemBookingSummaries, times(1)).compute(item1.getId());
+    }
+
+    /**
+     * Поведение findById для владельца, когда начало следующего бронирования сводки прошло, а roll еще не
+     * перенес его в последние: бронирования вычисляются
+     */
+    @Test
+    void shouldComputeSummaryWhenNextBookingStartedForFindById() {
+        ItemBookingSummary stale = ItemBookingSummary.builder()
+                                                     .itemId(item1.getId())
+                                                     .refreshed(past.getStart().minusDays(1))
+                                                     .build();
+        stale.setNext(past);
+        when(itemBookingSummaryRepository.findById(item1.getId())).thenReturn(Optional.of(stale));
+        when(itemBookingSummaries.compute(item1.getId())).thenReturn(summary);
+        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1, comments1,
                 ItemDtoWithBookings.BookingShort.toBookingShort(past),
                 ItemDtoWithBookings.BookingShort.toBookingShort(future));
 
@@ -156,10 +241,9 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
-        verify(bookingRepository, times(1)).findPastByItemId(item1.getId(),
-                PageRequest.of(0, 1));
-        verify(bookingRepository, times(1)).findFutureByItemId(item1.getId(),
-                PageRequest.of(0, 1));
+        verify(itemComments, times(1)).findLatest(item1.getId());
+        verify(itemBookingSummaryRepository, times(1)).findById(item1.getId());
+        verify(itemBookingSummaries, times(1)).compute(item1.getId());
     }
 
     /**
@@ -167,7 +251,7 @@ class ItemServiceImplTest {
      */
     @Test
     void shouldFindByIdForNonOwner() {
-        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1,
+        ItemDtoWithBookings expected = ItemMapper.toDtoWithBookings(item1, comments1,
                 null,
                 null);
 
@@ -177,6 +261,7 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user2.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemComments, times(1)).findLatest(item1.getId());
     }
 
     /**
@@ -211,10 +296,10 @@ class ItemServiceImplTest {
     void shouldFindAllByOwnerId() {
         PaginationRequest request = new PaginationRequest(0, 10);
         when(itemRepository.findAllByOwnerIdWithBookings(user1.getId(), request.makePaginationByFieldAsc("id")))
-                .thenReturn(List.of(ItemMapper.toDtoWithBookings(item1,
+                .thenReturn(List.of(ItemMapper.toDtoWithBookings(item1, comments1,
                         ItemDtoWithBookings.BookingShort.toBookingShort(past),
                         ItemDtoWithBookings.BookingShort.toBookingShort(future))));
-        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1,
+        List<ItemDtoWithBookings> expected = List.of(ItemMapper.toDtoWithBookings(item1, comments1,
                 ItemDtoWithBookings.BookingShort.toBookingShort(past),
                 ItemDtoWithBookings.BookingShort.toBookingShort(future)));
 
@@ -260,7 +345,7 @@ class ItemServiceImplTest {
                                .build();
         Item newItem = ItemMapper.toItem(toAdd, user3, itemRequest);
         when(itemRepository.save(newItem)).thenReturn(newItem);
-        ItemDto expected = ItemMapper.toDto(newItem);
+        ItemDto expected = ItemMapper.toDto(newItem, List.of());
 
         ItemDto actual = itemService.add(user3.getId(), toAdd);
 
@@ -269,6 +354,8 @@ class ItemServiceImplTest {
         verify(userRepository, times(1)).findById(user3.getId());
         verify(itemRequestRepository, times(1)).findById(itemRequest.getId());
         verify(itemRepository, times(1)).save(newItem);
+        verify(itemBookingSummaries, times(1)).created(newItem.getId());
+        verify(itemSearchIndex, times(1)).put(newItem);
     }
 
     /**
@@ -283,7 +370,7 @@ class ItemServiceImplTest {
                                .build();
         Item newItem = ItemMapper.toItem(toAdd, user3, null);
         when(itemRepository.save(any())).thenReturn(newItem);
-        ItemDto expected = ItemMapper.toDto(newItem);
+        ItemDto expected = ItemMapper.toDto(newItem, List.of());
 
         ItemDto actual = itemService.add(user3.getId(), toAdd);
 
@@ -291,6 +378,8 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user3.getId());
         verify(itemRepository, times(1)).save(any());
+        verify(itemBookingSummaries, times(1)).created(newItem.getId());
+        verify(itemSearchIndex, times(1)).put(newItem);
     }
 
     /**
@@ -341,7 +430,7 @@ class ItemServiceImplTest {
                                    .available(false)
                                    .build();
 
-        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto);
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto, null);
 
         assertThat(actual.getId(), equalTo(item1.getId()));
         assertThat(actual.getName(), equalTo(updateDto.getName()));
@@ -350,6 +439,9 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).flush();
+        verify(itemSearchIndex, times(1)).put(item1);
+        verify(itemComments, times(1)).findLatest(item1.getId());
     }
 
     /**
@@ -363,7 +455,7 @@ class ItemServiceImplTest {
                                    .build();
         String expectedName = item1.getName();
 
-        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto);
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto, null);
 
         assertThat(actual.getId(), equalTo(item1.getId()));
         assertThat(actual.getName(), equalTo(expectedName));
@@ -372,6 +464,9 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).flush();
+        verify(itemSearchIndex, times(1)).put(item1);
+        verify(itemComments, times(1)).findLatest(item1.getId());
     }
 
     /**
@@ -385,7 +480,7 @@ class ItemServiceImplTest {
                                    .build();
         String expectedDescription = item1.getDescription();
 
-        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto);
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto, null);
 
         assertThat(actual.getId(), equalTo(item1.getId()));
         assertThat(actual.getName(), equalTo(updateDto.getName()));
@@ -394,6 +489,9 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).flush();
+        verify(itemSearchIndex, times(1)).put(item1);
+        verify(itemComments, times(1)).findLatest(item1.getId());
     }
 
     /**
@@ -407,7 +505,7 @@ class ItemServiceImplTest {
                                    .build();
         Boolean expectedAvailable = item1.getAvailable();
 
-        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto);
+        ItemDto actual = itemService.update(user1.getId(), item1.getId(), updateDto, null);
 
         assertThat(actual.getId(), equalTo(item1.getId()));
         assertThat(actual.getName(), equalTo(updateDto.getName()));
@@ -416,6 +514,9 @@ class ItemServiceImplTest {
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
+        verify(itemRepository, times(1)).flush();
+        verify(itemSearchIndex, times(1)).put(item1);
+        verify(itemComments, times(1)).findLatest(item1.getId());
     }
 
     /**
@@ -430,7 +531,8 @@ class ItemServiceImplTest {
                                    .available(false)
                                    .build();
 
-        assertThrows(UserNotFoundException.class, () -> itemService.update(incorrectId, item1.getId(), updateDto));
+        assertThrows(UserNotFoundException.class, () -> itemService.update(incorrectId, item1.getId(), updateDto,
+                null));
 
         verify(userRepository, times(1)).findById(incorrectId);
     }
@@ -447,7 +549,8 @@ class ItemServiceImplTest {
                                    .available(false)
                                    .build();
 
-        assertThrows(ItemNotFoundException.class, () -> itemService.update(user1.getId(), incorrectId, updateDto));
+        assertThrows(ItemNotFoundException.class, () -> itemService.update(user1.getId(), incorrectId, updateDto,
+                null));
 
         verify(userRepository, times(1)).findById(user1.getId());
         verify(itemRepository, times(1)).findById(incorrectId);
@@ -464,29 +567,84 @@ class ItemServiceImplTest {
                                    .available(false)
                                    .build();
 
-        assertThrows(InvalidItemOwnerException.class, () -> itemService.update(user2.getId(), item1.getId(), updateDto));
+        assertThrows(InvalidItemOwnerException.class, () -> itemService.update(user2.getId(), item1.getId(),
+                updateDto, null));
 
         verify(userRepository, times(1)).findById(user2.getId());
         verify(itemRepository, times(1)).findById(item1.getId());
     }
 
     /**
-     * Стандартное поведение searchAvailableBy
+     * Поведение update при версии из If-Match, отличной от версии вещи
      */
     @Test
-    void shouldSearchAvailableBy() {
-        String text = "test search text";
+    void shouldThrowWhenVersionMismatchForUpdate() {
+        ItemDto updateDto = ItemDto.builder()
+                                   .name("updated name")
+                                   .build();
+        item1.setVersion(2L);
+
+        assertThrows(VersionConflictException.class, () -> itemService.update(user1.getId(), item1.getId(),
+                updateDto, 1L));
+        assertThat(item1.getName(), equalTo("Item1"));
+
+        verify(userRepository, times(1)).findById(user1.getId());
+        verify(itemRepository, times(1)).findById(item1.getId());
+    }
+
+    /**
+     * Поведение searchAvailableBy, пока поисковый индекс не построен: поиск недоступен, БД не читается
+     */
+    @Test
+    void shouldThrowWhenSearchIndexIsNotReadyForSearch() {
         PaginationRequest request = new PaginationRequest(0, 10);
-        when(itemRepository.searchAvailableBy(text, request.makePaginationByFieldAsc("id")))
-                .thenReturn(List.of(item1, item2));
-        List<ItemDto> expected = List.of(ItemMapper.toDto(item1), ItemMapper.toDto(item2));
+
+        assertThrows(ItemSearchUnavailableException.class, () -> itemService.searchAvailableBy("item", request));
+
+        verify(itemSearchIndex, times(1)).isReady();
+    }
+
+    /**
+     * Поведение searchAvailableBy по поисковому индексу: вещи в порядке релевантности из индекса
+     */
+    @Test
+    void shouldSearchAvailableByIndex() {
+        String text = "item";
+        PaginationRequest request = new PaginationRequest(0, 10);
+        when(itemSearchIndex.isReady()).thenReturn(true);
+        when(itemSearchIndex.search(text, 0, 10)).thenReturn(List.of(item3.getId(), item1.getId()));
+        when(itemRepository.findAllById(List.of(item3.getId(), item1.getId()))).thenReturn(List.of(item1, item3));
+        List<ItemDto> expected = List.of(ItemMapper.toDto(item3, List.of()), ItemMapper.toDto(item1, List.of()));
 
         List<ItemDto> actual = itemService.searchAvailableBy(text, request);
 
         assertThat(actual, equalTo(expected));
 
-        verify(itemRepository, times(1)).searchAvailableBy(text,
-                request.makePaginationByFieldAsc("id"));
+        verify(itemSearchIndex, times(1)).isReady();
+        verify(itemSearchIndex, times(1)).search(text, 0, 10);
+        verify(itemRepository, times(1)).findAllById(List.of(item3.getId(), item1.getId()));
+        verify(itemComments, times(1)).findLatest(List.of(item3.getId(), item1.getId()));
+    }
+
+    /**
+     * Поведение searchAvailableBy по поисковому индексу с курсором: вещи после вещи курсора
+     */
+    @Test
+    void shouldSearchAvailableByIndexAfterCursor() {
+        String text = "item";
+        PaginationRequest request = new PaginationRequest(0, 10, PageCursor.ofId(item3.getId()).encode());
+        when(itemSearchIndex.isReady()).thenReturn(true);
+        when(itemSearchIndex.searchAfter(text, item3.getId(), 10)).thenReturn(List.of(item1.getId()));
+        when(itemRepository.findAllById(List.of(item1.getId()))).thenReturn(List.of(item1));
+
+        List<ItemDto> actual = itemService.searchAvailableBy(text, request);
+
+        assertThat(actual, equalTo(List.of(ItemMapper.toDto(item1, List.of()))));
+
+        verify(itemSearchIndex, times(1)).isReady();
+        verify(itemSearchIndex, times(1)).searchAfter(text, item3.getId(), 10);
+        verify(itemRepository, times(1)).findAllById(List.of(item1.getId()));
+        verify(itemComments, times(1)).findLatest(List.of(item1.getId()));
     }
 
     /**
@@ -600,11 +758,155 @@ class ItemServiceImplTest {
         verify(itemRepository, times(1)).findById(item1.getId());
         verify(bookingRepository, times(1)).findPastApprovedByBookerAndItem(user2.getId(),
                 item1.getId(), PageRequest.of(0, 1));
+        verify(bookingArchiveRepository, times(1)).findPastApprovedByBookerAndItem(user2.getId(),
+                item1.getId(), PageRequest.of(0, 1));
+    }
+
+    /**
+     * addComment: бронирование, перенесенное в архив, тоже дает право оставить отзыв
+     */
+    @Test
+    void shouldAddCommentForArchivedBooking() {
+        CommentDto toAdd = CommentDto.builder()
+                                     .text("Comment text")
+                                     .build();
+        ArchivedBooking archived = ArchivedBooking.builder()
+                                                  .id(past.getId())
+                                                  .item(item1)
+                                                  .booker(user2)
+                                                  .start(past.getStart())
+                                                  .end(past.getEnd())
+                                                  .status(BookingStatus.APPROVED)
+                                                  .build();
+        when(bookingArchiveRepository.findPastApprovedByBookerAndItem(user2.getId(), item1.getId(),
+                PageRequest.of(0, 1))).thenReturn(List.of(archived));
+        Comment saved = Comment.builder()
+                               .text(toAdd.getText())
+                               .author(user2)
+                               .item(item1)
+                               .created(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+                               .build();
+        when(commentRepository.save(any())).thenReturn(saved);
+
+        CommentDto actual = itemService.addComment(user2.getId(), item1.getId(), toAdd);
+
+        assertThat(actual.getText(), equalTo(toAdd.getText()));
+
+        verify(userRepository, times(1)).findById(user2.getId());
+        verify(itemRepository, times(1)).findById(item1.getId());
+        verify(bookingRepository, times(1)).findPastApprovedByBookerAndItem(user2.getId(),
+                item1.getId(), PageRequest.of(0, 1));
+        verify(bookingArchiveRepository, times(1)).findPastApprovedByBookerAndItem(user2.getId(),
+                item1.getId(), PageRequest.of(0, 1));
+        verify(commentRepository, times(1)).save(any());
+    }
+
+    /**
+     * Стандартное поведение findAvailability
+     */
+    @Test
+    void shouldFindAvailability() {
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = from.plus(3, ChronoUnit.DAYS);
+        List<ItemAvailabilityDto.TimeSlot> slots = List.of(new ItemAvailabilityDto.TimeSlot(from, to));
+        ItemAvailabilityDto expected = ItemAvailabilityDto.builder()
+                                                          .itemId(item1.getId())
+                                                          .from(from)
+                                                          .to(to)
+                                                          .freeSlots(slots)
+                                                          .build();
+        when(itemRepository.existsById(item1.getId())).thenReturn(true);
+        when(bookingIntervalIndex.findFreeSlots(item1.getId(), from, to)).thenReturn(slots);
+
+        ItemAvailabilityDto actual = itemService.findAvailability(item1.getId(), from, to);
+
+        assertThat(actual, equalTo(expected));
+
+        verify(itemRepository, times(1)).existsById(item1.getId());
+    }
+
+    /**
+     * Стандартное поведение findComments: страница комментариев вещи, новые первыми
+     */
+    @Test
+    void shouldFindComments() {
+        PaginationRequest request = new PaginationRequest(0, 10);
+        Comment comment = item1.getComments().get(0);
+        when(itemRepository.existsById(item1.getId())).thenReturn(true);
+        when(commentRepository.findAllByItemId(item1.getId(), request.makePaginationByFieldDesc("id")))
+                .thenReturn(List.of(comment));
+
+        List<CommentDto> actual = itemService.findComments(item1.getId(), request);
+
+        assertThat(actual, equalTo(List.of(CommentMapper.toDto(comment))));
+
+        verify(itemRepository, times(1)).existsById(item1.getId());
+        verify(commentRepository, times(1)).findAllByItemId(item1.getId(), request.makePaginationByFieldDesc("id"));
+    }
+
+    /**
+     * Поведение findComments с курсором: комментарии с id меньше id из курсора
+     */
+    @Test
+    void shouldFindCommentsAfterCursor() {
+        PaginationRequest request = new PaginationRequest(0, 10, PageCursor.ofId(5L).encode());
+        Comment comment = item1.getComments().get(0);
+        when(itemRepository.existsById(item1.getId())).thenReturn(true);
+        when(commentRepository.findAllByItemIdAfter(item1.getId(), 5L, request.makeCursorPagination()))
+                .thenReturn(List.of(comment));
+
+        List<CommentDto> actual = itemService.findComments(item1.getId(), request);
+
+        assertThat(actual, equalTo(List.of(CommentMapper.toDto(comment))));
+
+        verify(itemRepository, times(1)).existsById(item1.getId());
+        verify(commentRepository, times(1)).findAllByItemIdAfter(item1.getId(), 5L, request.makeCursorPagination());
+    }
+
+    /**
+     * Поведение findComments при некорректном itemId
+     */
+    @Test
+    void shouldThrowWhenIncorrectItemIdForFindComments() {
+        Long incorrectId = -1L;
+        when(itemRepository.existsById(incorrectId)).thenReturn(false);
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.findComments(incorrectId,
+                new PaginationRequest(0, 10)));
+
+        verify(itemRepository, times(1)).existsById(incorrectId);
+    }
+
+    /**
+     * Поведение findAvailability при некорректном itemId
+     */
+    @Test
+    void shouldThrowWhenIncorrectItemIdForFindAvailability() {
+        Long incorrectId = -1L;
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        when(itemRepository.existsById(incorrectId)).thenReturn(false);
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.findAvailability(incorrectId, from,
+                from.plus(1, ChronoUnit.DAYS)));
+
+        verify(itemRepository, times(1)).existsById(incorrectId);
+    }
+
+    /**
+     * Поведение findAvailability, если начало окна не раньше конца
+     */
+    @Test
+    void shouldThrowWhenWindowIsEmptyForFindAvailability() {
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertThrows(IllegalRequestStateException.class, () -> itemService.findAvailability(item1.getId(), from,
+                from));
     }
 
     @AfterEach
     void tearDown() {
-        verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository, commentRepository,
-                itemRequestRepository);
+        verifyNoMoreInteractions(userRepository, itemRepository, bookingRepository, bookingArchiveRepository,
+                commentRepository, itemRequestRepository, itemBookingSummaryRepository, itemBookingSummaries,
+                itemComments, itemSearchIndex);
     }
 }
\ No newline at end of file
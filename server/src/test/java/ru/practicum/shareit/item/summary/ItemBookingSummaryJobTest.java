@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.summary;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Юнит тесты для ItemBookingSummaryJob
+ */
+@ExtendWith(MockitoExtension.class)
+class ItemBookingSummaryJobTest {
+    @Mock
+    ItemBookingSummaries summaries;
+
+    SimpleMeterRegistry registry;
+    ItemBookingSummaryJob job;
+    LocalDateTime now;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        job = new ItemBookingSummaryJob(summaries, registry, 10, 3);
+        now = LocalDateTime.now();
+    }
+
+    /**
+     * Сначала добавляются недостающие сводки, затем пакеты пересчитываются до первого неполного
+     */
+    @Test
+    void shouldInsertMissingThenRollUntilBatchIsNotFull() {
+        when(summaries.insertMissing()).thenReturn(2);
+        when(summaries.roll(now, 10)).thenReturn(10, 5);
+
+        int actual = job.roll(now);
+
+        assertThat(actual, equalTo(15));
+        DistributionSummary summary = registry.get(ItemBookingSummaryJob.ROWS_METRIC).summary();
+        assertThat(summary.count(), equalTo(1L));
+        assertThat(summary.totalAmount(), equalTo(15.0));
+
+        InOrder order = inOrder(summaries);
+        order.verify(summaries).insertMissing();
+        order.verify(summaries, times(2)).roll(now, 10);
+    }
+
+    /**
+     * За запуск обрабатывается не больше max-batches пакетов
+     */
+    @Test
+    void shouldStopAfterMaxBatches() {
+        when(summaries.roll(now, 10)).thenReturn(10);
+
+        assertThat(job.roll(now), equalTo(30));
+
+        verify(summaries).insertMissing();
+        verify(summaries, times(3)).roll(now, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifyNoMoreInteractions(summaries);
+    }
+}
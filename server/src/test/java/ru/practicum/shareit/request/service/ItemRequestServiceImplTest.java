@@ -101,6 +101,10 @@ class ItemRequestServiceImplTest {
                     .build();
         when(itemRepository.findAllByRequestId(itemRequest1.getId())).thenReturn(List.of(item1));
         when(itemRepository.findAllByRequestId(itemRequest2.getId())).thenReturn(new ArrayList<>());
+        when(itemRepository.findAllByRequestIdIn(List.of(itemRequest1.getId(), itemRequest2.getId())))
+                .thenReturn(List.of(item1));
+        when(itemRepository.findAllByRequestIdIn(List.of(itemRequest2.getId(), itemRequest1.getId())))
+                .thenReturn(List.of(item1));
         when(itemRequestRepository.findAllByRequesterId(userId)).thenReturn(List.of(itemRequest1, itemRequest2));
         when(itemRequestRepository.findAllByRequesterId(ownerId)).thenReturn(new ArrayList<>());
     }
@@ -119,7 +123,7 @@ class ItemRequestServiceImplTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(itemRequestRepository, times(1)).findAllByRequesterId(userId);
-        verify(itemRepository, times(expected.size())).findAllByRequestId(any());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(List.of(itemRequest1.getId(), itemRequest2.getId()));
     }
 
     /**
@@ -136,7 +140,7 @@ class ItemRequestServiceImplTest {
     }
 
     /**
-     * Поведение при пустом списке запросов
+     * Поведение при пустом списке запросов: вещи не запрашиваются
      */
     @Test
     void shouldReturnEmptyListWhenNoRequestsForFindByUserId() {
@@ -148,7 +152,6 @@ class ItemRequestServiceImplTest {
 
         verify(userRepository, times(1)).findById(ownerId);
         verify(itemRequestRepository, times(1)).findAllByRequesterId(ownerId);
-        verify(itemRepository, times(expected.size())).findAllByRequestId(any());
     }
 
     /**
@@ -169,7 +172,7 @@ class ItemRequestServiceImplTest {
         verify(userRepository, times(1)).findById(ownerId);
         verify(itemRequestRepository, times(1)).findAllByRequesterIdNot(ownerId,
                 paginationRequest.makePaginationByFieldDesc("created"));
-        verify(itemRepository, times(expected.size())).findAllByRequestId(any());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(List.of(itemRequest2.getId(), itemRequest1.getId()));
     }
 
     /**
@@ -190,7 +193,7 @@ class ItemRequestServiceImplTest {
         verify(userRepository, times(1)).findById(ownerId);
         verify(itemRequestRepository, times(1)).findAllByRequesterIdNot(ownerId,
                 paginationRequest.makePaginationByFieldDesc("created"));
-        verify(itemRepository, times(expected.size())).findAllByRequestId(any());
+        verify(itemRepository, times(1)).findAllByRequestIdIn(List.of(itemRequest2.getId()));
     }
 
     /**
@@ -224,7 +227,6 @@ class ItemRequestServiceImplTest {
         verify(userRepository, times(1)).findById(ownerId);
         verify(itemRequestRepository, times(1)).findAllByRequesterIdNot(ownerId,
                 paginationRequest.makePaginationByFieldDesc("created"));
-        verify(itemRepository, times(expected.size())).findAllByRequestId(any());
     }
 
     /**